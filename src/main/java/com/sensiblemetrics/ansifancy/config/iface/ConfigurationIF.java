@@ -23,6 +23,11 @@
  */
 package com.sensiblemetrics.ansifancy.config.iface;
 
+import com.sensiblemetrics.ansifancy.model.iface.MarkerIF;
+
+import java.util.Collection;
+import java.util.Set;
+
 /**
  * Configuration interface declaration
  *
@@ -30,4 +35,26 @@ package com.sensiblemetrics.ansifancy.config.iface;
  * @version 1.0
  */
 public interface ConfigurationIF {
+
+    /**
+     * Returns collection {@link Set} of {@link MarkerIF} names
+     *
+     * @return collection {@link Set} of {@link MarkerIF} names
+     */
+    Set<CharSequence> getMarkerNames();
+
+    /**
+     * Returns collection of {@link MarkerIF} markers
+     *
+     * @return collection of {@link MarkerIF} markers
+     */
+    Collection<MarkerIF> getMarkers();
+
+    /**
+     * Returns {@link MarkerIF} by input name {@link String}
+     *
+     * @param name - initial input {@link MarkerIF} name {@link String}
+     * @return {@link MarkerIF} by name
+     */
+    MarkerIF get(final String name);
 }
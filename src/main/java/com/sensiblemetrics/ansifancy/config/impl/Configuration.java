@@ -24,13 +24,14 @@
 package com.sensiblemetrics.ansifancy.config.impl;
 
 import com.sensiblemetrics.ansifancy.config.iface.ConfigurationIF;
-import com.sensiblemetrics.ansifancy.exception.ConfigurationException;
 import com.sensiblemetrics.ansifancy.model.iface.MarkerIF;
 import com.sensiblemetrics.ansifancy.model.impl.Marker;
 import com.sensiblemetrics.ansifancy.model.impl.MetaData;
 import com.sensiblemetrics.ansifancy.model.impl.Style;
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.Setter;
 import lombok.ToString;
 
 import java.util.*;
@@ -38,7 +39,9 @@ import java.util.*;
 import static java.util.Arrays.asList;
 
 /**
- * Default {@link ConfigurationIF} implementation
+ * Default {@link ConfigurationIF} implementation: markers are published copy-on-write as
+ * {@link FrozenConfiguration} snapshots, so adding a marker does not disturb concurrent readers
+ * and renderers may keep the snapshot they started with
  */
 @Data
 @EqualsAndHashCode
@@ -46,9 +49,10 @@ import static java.util.Arrays.asList;
 public class Configuration implements ConfigurationIF {
 
     /**
-     * Default marker map {@link Map}
+     * Current markers snapshot {@link FrozenConfiguration}
      */
-    private final Map<CharSequence, MarkerIF> DEFAULT_MARKER_NAMES_MAP = new HashMap<>();
+    @Setter(AccessLevel.NONE)
+    private volatile FrozenConfiguration snapshot = FrozenConfiguration.EMPTY;
 
     /**
      * Default configuration constructor
@@ -61,37 +65,39 @@ public class Configuration implements ConfigurationIF {
      * Initializes default marker map
      */
     private void initialize() {
+        final Map<CharSequence, MarkerIF> markers = new LinkedHashMap<>();
         /**
          * Default control styles
          */
-        DEFAULT_MARKER_NAMES_MAP.put("reset", Marker.builder().metaData(MetaData.create("reset", "reset")).styles(asList(Style.RESET)).build());
-        DEFAULT_MARKER_NAMES_MAP.put("bold", Marker.builder().metaData(MetaData.create("bold", "bold letter")).styles(asList(Style.BOLD)).build());
-        DEFAULT_MARKER_NAMES_MAP.put("dim", Marker.builder().metaData(MetaData.create("dim", "dim letter")).styles(asList(Style.DIM)).build());
-        DEFAULT_MARKER_NAMES_MAP.put("uline", Marker.builder().metaData(MetaData.create("uline", "underline letter")).styles(asList(Style.UNDER_LINE)).build());
-        DEFAULT_MARKER_NAMES_MAP.put("blink", Marker.builder().metaData(MetaData.create("blink", "blink letter")).styles(asList(Style.BLINK)).build());
-        DEFAULT_MARKER_NAMES_MAP.put("rev", Marker.builder().metaData(MetaData.create("rev", "reverse letter")).styles(asList(Style.REVERSE)).build());
-        DEFAULT_MARKER_NAMES_MAP.put("blank", Marker.builder().metaData(MetaData.create("blank", "blank letter")).styles(asList(Style.BLANK)).build());
-        DEFAULT_MARKER_NAMES_MAP.put("ostrike", Marker.builder().metaData(MetaData.create("ostrike", "overstrike letter")).styles(asList(Style.OVER_STRIKE)).build());
+        markers.put("reset", Marker.builder().metaData(MetaData.create("reset", "reset")).styles(asList(Style.RESET)).build());
+        markers.put("bold", Marker.builder().metaData(MetaData.create("bold", "bold letter")).styles(asList(Style.BOLD)).build());
+        markers.put("dim", Marker.builder().metaData(MetaData.create("dim", "dim letter")).styles(asList(Style.DIM)).build());
+        markers.put("uline", Marker.builder().metaData(MetaData.create("uline", "underline letter")).styles(asList(Style.UNDER_LINE)).build());
+        markers.put("blink", Marker.builder().metaData(MetaData.create("blink", "blink letter")).styles(asList(Style.BLINK)).build());
+        markers.put("rev", Marker.builder().metaData(MetaData.create("rev", "reverse letter")).styles(asList(Style.REVERSE)).build());
+        markers.put("blank", Marker.builder().metaData(MetaData.create("blank", "blank letter")).styles(asList(Style.BLANK)).build());
+        markers.put("ostrike", Marker.builder().metaData(MetaData.create("ostrike", "overstrike letter")).styles(asList(Style.OVER_STRIKE)).build());
 
         /**
          * Default color styles
          */
-        DEFAULT_MARKER_NAMES_MAP.put("black_fg", Marker.builder().metaData(MetaData.create("black_fg", "black foreground letter")).styles(asList(Style.BlACK_FOREGROUND)).build());
-        DEFAULT_MARKER_NAMES_MAP.put("black_bg", Marker.builder().metaData(MetaData.create("black_bg", "black background letter")).styles(asList(Style.BLACK_BACKGROUND)).build());
-        DEFAULT_MARKER_NAMES_MAP.put("red_fg", Marker.builder().metaData(MetaData.create("red_fg", "red foreground letter")).styles(asList(Style.RED_FOREGROUND)).build());
-        DEFAULT_MARKER_NAMES_MAP.put("red_bg", Marker.builder().metaData(MetaData.create("red_bg", "red background letter")).styles(asList(Style.RED_BACKGROUND)).build());
-        DEFAULT_MARKER_NAMES_MAP.put("green_fg", Marker.builder().metaData(MetaData.create("green_fg", "green foreground letter")).styles(asList(Style.GREEN_FOREGROUND)).build());
-        DEFAULT_MARKER_NAMES_MAP.put("green_bg", Marker.builder().metaData(MetaData.create("green_bg", "green background letter")).styles(asList(Style.GREEN_BACKGROUND)).build());
-        DEFAULT_MARKER_NAMES_MAP.put("yellow_fg", Marker.builder().metaData(MetaData.create("yellow_fg", "yellow foreground letter")).styles(asList(Style.YELLOW_FOREGROUND)).build());
-        DEFAULT_MARKER_NAMES_MAP.put("yellow_bg", Marker.builder().metaData(MetaData.create("yellow_bg", "yellow background letter")).styles(asList(Style.YELLOW_BACKGROUND)).build());
-        DEFAULT_MARKER_NAMES_MAP.put("blue_fg", Marker.builder().metaData(MetaData.create("blue_fg", "blue foreground letter")).styles(asList(Style.BLUE_FOREGROUND)).build());
-        DEFAULT_MARKER_NAMES_MAP.put("blue_bg", Marker.builder().metaData(MetaData.create("blue_bg", "blue background letter")).styles(asList(Style.BLUE_BACKGROUND)).build());
-        DEFAULT_MARKER_NAMES_MAP.put("magenta_fg", Marker.builder().metaData(MetaData.create("magenta_fg", "magenta foreground letter")).styles(asList(Style.MAGENTA_FOREGROUND)).build());
-        DEFAULT_MARKER_NAMES_MAP.put("magenta_bg", Marker.builder().metaData(MetaData.create("magenta_bg", "magenta background letter")).styles(asList(Style.MAGENTA_BACKGROUND)).build());
-        DEFAULT_MARKER_NAMES_MAP.put("cyan_fg", Marker.builder().metaData(MetaData.create("cyan_fg", "cyan foreground letter")).styles(asList(Style.CYAN_FOREGROUND)).build());
-        DEFAULT_MARKER_NAMES_MAP.put("cyan_bg", Marker.builder().metaData(MetaData.create("cyan_bg", "cyan background letter")).styles(asList(Style.CYAN_BACKGROUND)).build());
-        DEFAULT_MARKER_NAMES_MAP.put("white_fg", Marker.builder().metaData(MetaData.create("white_fg", "white foreground letter")).styles(asList(Style.WHITE_FOREGROUND)).build());
-        DEFAULT_MARKER_NAMES_MAP.put("white_bg", Marker.builder().metaData(MetaData.create("white_bg", "white background letter")).styles(asList(Style.WHITE_BACKGROUND)).build());
+        markers.put("black_fg", Marker.builder().metaData(MetaData.create("black_fg", "black foreground letter")).styles(asList(Style.BlACK_FOREGROUND)).build());
+        markers.put("black_bg", Marker.builder().metaData(MetaData.create("black_bg", "black background letter")).styles(asList(Style.BLACK_BACKGROUND)).build());
+        markers.put("red_fg", Marker.builder().metaData(MetaData.create("red_fg", "red foreground letter")).styles(asList(Style.RED_FOREGROUND)).build());
+        markers.put("red_bg", Marker.builder().metaData(MetaData.create("red_bg", "red background letter")).styles(asList(Style.RED_BACKGROUND)).build());
+        markers.put("green_fg", Marker.builder().metaData(MetaData.create("green_fg", "green foreground letter")).styles(asList(Style.GREEN_FOREGROUND)).build());
+        markers.put("green_bg", Marker.builder().metaData(MetaData.create("green_bg", "green background letter")).styles(asList(Style.GREEN_BACKGROUND)).build());
+        markers.put("yellow_fg", Marker.builder().metaData(MetaData.create("yellow_fg", "yellow foreground letter")).styles(asList(Style.YELLOW_FOREGROUND)).build());
+        markers.put("yellow_bg", Marker.builder().metaData(MetaData.create("yellow_bg", "yellow background letter")).styles(asList(Style.YELLOW_BACKGROUND)).build());
+        markers.put("blue_fg", Marker.builder().metaData(MetaData.create("blue_fg", "blue foreground letter")).styles(asList(Style.BLUE_FOREGROUND)).build());
+        markers.put("blue_bg", Marker.builder().metaData(MetaData.create("blue_bg", "blue background letter")).styles(asList(Style.BLUE_BACKGROUND)).build());
+        markers.put("magenta_fg", Marker.builder().metaData(MetaData.create("magenta_fg", "magenta foreground letter")).styles(asList(Style.MAGENTA_FOREGROUND)).build());
+        markers.put("magenta_bg", Marker.builder().metaData(MetaData.create("magenta_bg", "magenta background letter")).styles(asList(Style.MAGENTA_BACKGROUND)).build());
+        markers.put("cyan_fg", Marker.builder().metaData(MetaData.create("cyan_fg", "cyan foreground letter")).styles(asList(Style.CYAN_FOREGROUND)).build());
+        markers.put("cyan_bg", Marker.builder().metaData(MetaData.create("cyan_bg", "cyan background letter")).styles(asList(Style.CYAN_BACKGROUND)).build());
+        markers.put("white_fg", Marker.builder().metaData(MetaData.create("white_fg", "white foreground letter")).styles(asList(Style.WHITE_FOREGROUND)).build());
+        markers.put("white_bg", Marker.builder().metaData(MetaData.create("white_bg", "white background letter")).styles(asList(Style.WHITE_BACKGROUND)).build());
+        this.snapshot = FrozenConfiguration.of(markers.values());
     }
 
     /**
@@ -99,8 +105,9 @@ public class Configuration implements ConfigurationIF {
      *
      * @return collection {@link Set} of {@link MarkerIF} names
      */
+    @Override
     public Set<CharSequence> getMarkerNames() {
-        return Collections.unmodifiableSet(DEFAULT_MARKER_NAMES_MAP.keySet());
+        return this.snapshot.getMarkerNames();
     }
 
     /**
@@ -108,8 +115,9 @@ public class Configuration implements ConfigurationIF {
      *
      * @return collection of {@link MarkerIF} markers
      */
+    @Override
     public Collection<MarkerIF> getMarkers() {
-        return Collections.unmodifiableCollection(DEFAULT_MARKER_NAMES_MAP.values());
+        return this.snapshot.getMarkers();
     }
 
     /**
@@ -117,12 +125,10 @@ public class Configuration implements ConfigurationIF {
      *
      * @param marker - initial input {@link MarkerIF} marker to persist
      * @return updated {@link ConfigurationIF} instance
+     * @throws com.sensiblemetrics.ansifancy.exception.ConfigurationException if marker with the same name already exists
      */
-    public ConfigurationIF add(final MarkerIF marker) {
-        if (DEFAULT_MARKER_NAMES_MAP.containsKey(marker.getMetaData().getName())) {
-            throw ConfigurationException.throwConfigAlreadyExist(marker.getMetaData());
-        }
-        DEFAULT_MARKER_NAMES_MAP.put(marker.getMetaData().getName(), marker);
+    public synchronized ConfigurationIF add(final MarkerIF marker) {
+        this.snapshot = this.snapshot.with(marker);
         return this;
     }
 
@@ -132,7 +138,8 @@ public class Configuration implements ConfigurationIF {
      * @param name - initial input {@link MarkerIF} name {@link String}
      * @return {@link MarkerIF} by name
      */
+    @Override
     public MarkerIF get(final String name) {
-        return DEFAULT_MARKER_NAMES_MAP.get(name);
+        return this.snapshot.get(name);
     }
 }
@@ -0,0 +1,237 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 SensibleMetrics Labs, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.sensiblemetrics.ansifancy.config.impl;
+
+import com.sensiblemetrics.ansifancy.config.iface.ConfigurationIF;
+import com.sensiblemetrics.ansifancy.exception.ConfigurationException;
+import com.sensiblemetrics.ansifancy.model.iface.MarkerIF;
+import com.sensiblemetrics.ansifancy.model.iface.StyleIF;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import java.util.*;
+
+/**
+ * Immutable {@link ConfigurationIF} snapshot: markers are indexed by names sorted in an array
+ * (looked up by binary search without allocation, including by a range of {@link CharSequence})
+ * together with their escape codes rendered once, so a snapshot can be shared by any number of renderers.
+ * Updates create a new snapshot (see {@link Configuration} for copy-on-write publication)
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+@EqualsAndHashCode
+@ToString
+public final class FrozenConfiguration implements ConfigurationIF {
+
+    /**
+     * Default empty snapshot
+     */
+    public static final FrozenConfiguration EMPTY = new FrozenConfiguration(new String[0], new MarkerIF[0]);
+
+    /**
+     * Sorted marker names and markers / escape codes of the same indexes
+     */
+    private final String[] names;
+    private final MarkerIF[] markers;
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final String[] codes;
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final transient Set<CharSequence> markerNames;
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final transient Collection<MarkerIF> markerValues;
+
+    private FrozenConfiguration(final String[] names, final MarkerIF[] markers) {
+        this.names = names;
+        this.markers = markers;
+        this.codes = new String[markers.length];
+        for (int i = 0; i < markers.length; i++) {
+            this.codes[i] = getCode(markers[i]);
+        }
+        this.markerNames = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(names)));
+        this.markerValues = Collections.unmodifiableList(Arrays.asList(markers));
+    }
+
+    /**
+     * Returns {@link FrozenConfiguration} snapshot of input {@link ConfigurationIF}
+     *
+     * @param configuration - initial input {@link ConfigurationIF}
+     * @return {@link FrozenConfiguration} snapshot
+     */
+    public static FrozenConfiguration of(final ConfigurationIF configuration) {
+        Objects.requireNonNull(configuration, "Configuration should not be null");
+        if (configuration instanceof FrozenConfiguration) {
+            return (FrozenConfiguration) configuration;
+        }
+        if (configuration instanceof Configuration) {
+            return ((Configuration) configuration).getSnapshot();
+        }
+        return of(configuration.getMarkers());
+    }
+
+    /**
+     * Returns {@link FrozenConfiguration} snapshot of input {@link MarkerIF} markers
+     *
+     * @param markers - initial input collection {@link Collection} of {@link MarkerIF} markers
+     * @return {@link FrozenConfiguration} snapshot
+     * @throws ConfigurationException if marker names are not unique
+     */
+    public static FrozenConfiguration of(final Collection<? extends MarkerIF> markers) {
+        Objects.requireNonNull(markers, "Markers should not be null");
+        final MarkerIF[] sorted = markers.toArray(new MarkerIF[0]);
+        Arrays.sort(sorted, Comparator.comparing(marker -> marker.getMetaData().getName()));
+        final String[] names = new String[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            names[i] = sorted[i].getMetaData().getName();
+            if (i > 0 && names[i].equals(names[i - 1])) {
+                throw ConfigurationException.throwConfigAlreadyExist(sorted[i].getMetaData());
+            }
+        }
+        return new FrozenConfiguration(names, sorted);
+    }
+
+    /**
+     * Returns new {@link FrozenConfiguration} snapshot with input {@link MarkerIF} marker added
+     *
+     * @param marker - initial input {@link MarkerIF} marker to add
+     * @return new {@link FrozenConfiguration} snapshot
+     * @throws ConfigurationException if marker with the same name already exists
+     */
+    public FrozenConfiguration with(final MarkerIF marker) {
+        Objects.requireNonNull(marker, "Marker should not be null");
+        final String name = marker.getMetaData().getName();
+        final int index = Arrays.binarySearch(this.names, name);
+        if (index >= 0) {
+            throw ConfigurationException.throwConfigAlreadyExist(marker.getMetaData());
+        }
+        final int position = -index - 1;
+        final String[] names = new String[this.names.length + 1];
+        final MarkerIF[] markers = new MarkerIF[this.markers.length + 1];
+        System.arraycopy(this.names, 0, names, 0, position);
+        System.arraycopy(this.markers, 0, markers, 0, position);
+        names[position] = name;
+        markers[position] = marker;
+        System.arraycopy(this.names, position, names, position + 1, this.names.length - position);
+        System.arraycopy(this.markers, position, markers, position + 1, this.markers.length - position);
+        return new FrozenConfiguration(names, markers);
+    }
+
+    /**
+     * Returns index of the marker named by input range of {@link CharSequence} or -1 if there is no such marker
+     *
+     * @param source - initial input {@link CharSequence}
+     * @param start  - initial input name start index
+     * @param end    - initial input name end index (exclusive)
+     * @return marker index or -1
+     */
+    public int indexOf(final CharSequence source, int start, int end) {
+        int low = 0;
+        int high = this.names.length - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int cmp = compare(this.names[mid], source, start, end);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns {@link MarkerIF} marker at input index
+     *
+     * @param index - initial input marker index
+     * @return {@link MarkerIF} marker
+     */
+    public MarkerIF getMarker(int index) {
+        return this.markers[index];
+    }
+
+    /**
+     * Returns escape codes of the marker at input index
+     *
+     * @param index - initial input marker index
+     * @return escape codes {@link String}
+     */
+    public String getCode(int index) {
+        return this.codes[index];
+    }
+
+    /**
+     * Returns number of markers
+     *
+     * @return number of markers
+     */
+    public int size() {
+        return this.names.length;
+    }
+
+    @Override
+    public Set<CharSequence> getMarkerNames() {
+        return this.markerNames;
+    }
+
+    @Override
+    public Collection<MarkerIF> getMarkers() {
+        return this.markerValues;
+    }
+
+    @Override
+    public MarkerIF get(final String name) {
+        final int index = Objects.isNull(name) ? -1 : indexOf(name, 0, name.length());
+        return index < 0 ? null : this.markers[index];
+    }
+
+    private static int compare(final String name, final CharSequence source, int start, int end) {
+        final int length = Math.min(name.length(), end - start);
+        for (int i = 0; i < length; i++) {
+            final int diff = name.charAt(i) - source.charAt(start + i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return name.length() - (end - start);
+    }
+
+    /**
+     * Returns escape codes of input {@link MarkerIF} marker (escape chars of its styles)
+     *
+     * @param marker - initial input {@link MarkerIF} marker
+     * @return escape codes {@link String}
+     */
+    public static String getCode(final MarkerIF<?> marker) {
+        final StringBuilder code = new StringBuilder();
+        for (final StyleIF style : marker.<Iterable<StyleIF>>getStyles()) {
+            code.append(style.getEscapeChars());
+        }
+        return code.toString();
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 SensibleMetrics Labs, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.sensiblemetrics.ansifancy.enumeration;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Default terminal color capability type {@link Enum} ordered from the lowest to the highest one
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ColorCapabilityType {
+    /**
+     * No colors nor text attributes (e.g. plain files)
+     */
+    MONO(0),
+    /**
+     * 8 system colors plus their bright variants
+     */
+    ANSI_16(16),
+    /**
+     * xterm 256-color palette
+     */
+    ANSI_256(256),
+    /**
+     * 24-bit RGB colors
+     */
+    TRUECOLOR(1 << 24);
+
+    /**
+     * Number of supported colors
+     */
+    private final int colors;
+}
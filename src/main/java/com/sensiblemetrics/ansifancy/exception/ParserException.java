@@ -77,4 +77,24 @@ public class ParserException extends RuntimeException {
     public static final ParserException throwInvalidSource() {
         return new ParserException("ERROR: invalid source, cannot be NULL or empty");
     }
+
+    /**
+     * Returns {@link ParserException} by unknown escape class name
+     *
+     * @param name - initial input escape class name {@link String}
+     * @return {@link ParserException}
+     */
+    public static final ParserException throwUnknownClass(final String name) {
+        return new ParserException(String.format("ERROR: unknown escape class name = {%s}", name));
+    }
+
+    /**
+     * Returns {@link ParserException} by unbalanced escape class end at input index
+     *
+     * @param index - initial input escape class end index
+     * @return {@link ParserException}
+     */
+    public static final ParserException throwInvalidBracket(long index) {
+        return new ParserException(String.format("ERROR: invalid escape class end at index = {%s}, no open class", index));
+    }
 }
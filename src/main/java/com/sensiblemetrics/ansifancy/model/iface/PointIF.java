@@ -26,6 +26,7 @@ package com.sensiblemetrics.ansifancy.model.iface;
 import lombok.NonNull;
 
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Point interface declaration {@link CharSequence}
@@ -70,4 +71,23 @@ public interface PointIF extends Serializable {
      * @return point code {@code T}
      */
     <T extends CharSequence> T getCode();
+
+    /**
+     * Returns point code chars, the array may be shared and must not be modified
+     *
+     * @return point code chars
+     */
+    default char[] getCodeChars() {
+        final CharSequence code = getCode();
+        return code == null ? new char[0] : code.toString().toCharArray();
+    }
+
+    /**
+     * Returns UTF-8 encoded point code bytes, the array may be shared and must not be modified
+     *
+     * @return point code bytes
+     */
+    default byte[] getCodeBytes() {
+        return new String(getCodeChars()).getBytes(StandardCharsets.UTF_8);
+    }
 }
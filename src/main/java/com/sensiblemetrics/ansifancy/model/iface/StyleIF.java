@@ -26,6 +26,7 @@ package com.sensiblemetrics.ansifancy.model.iface;
 import lombok.NonNull;
 
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Style interface declaration
@@ -57,4 +58,26 @@ public interface StyleIF extends Serializable {
      * @return {@link Iterable} collection of style {@link PointIF}
      */
     @NonNull <S extends Iterable<? extends PointIF>> S getPoints();
+
+    /**
+     * Returns escape sequence of style {@link PointIF} codes, the array may be shared and must not be modified
+     *
+     * @return escape sequence chars
+     */
+    default char[] getEscapeChars() {
+        final StringBuilder escape = new StringBuilder();
+        for (final PointIF point : this.<Iterable<PointIF>>getPoints()) {
+            escape.append(point.getCodeChars());
+        }
+        return escape.toString().toCharArray();
+    }
+
+    /**
+     * Returns UTF-8 encoded escape sequence of style {@link PointIF} codes, the array may be shared and must not be modified
+     *
+     * @return escape sequence bytes
+     */
+    default byte[] getEscapeBytes() {
+        return new String(getEscapeChars()).getBytes(StandardCharsets.UTF_8);
+    }
 }
@@ -45,7 +45,7 @@ public class Area implements AreaIF<IntCoordinate> {
      */
     public boolean isOverlap(final AreaIF<IntCoordinate> other) {
         if (Objects.isNull(other)) return false;
-        if (OperationFactory.INT_COORDINATE_COMPARATOR.compare(getTopRight().getRow(), other.getBottomLeft().getRow()) < 0 || OperationFactory.INT_COORDINATE_COMPARATOR.compare(getBottomLeft().getRow(), other.getTopRight().getRow()) > 0) {
+        if (OperationFactory.INT_COORDINATE_COMPARATOR.compare(getBottomLeft().getRow(), other.getTopRight().getRow()) < 0 || OperationFactory.INT_COORDINATE_COMPARATOR.compare(getTopRight().getRow(), other.getBottomLeft().getRow()) > 0) {
             return false;
         }
         if (OperationFactory.INT_COORDINATE_COMPARATOR.compare(getTopRight().getColumn(), other.getBottomLeft().getColumn()) < 0 || OperationFactory.INT_COORDINATE_COMPARATOR.compare(getBottomLeft().getColumn(), other.getTopRight().getColumn()) > 0) {
@@ -71,7 +71,7 @@ public class Area implements AreaIF<IntCoordinate> {
      */
     @Override
     public int height() {
-        return OperationFactory.SUBTRACT.apply(getTopRight().getRow(), getTopRight().getRow());
+        return OperationFactory.SUBTRACT.apply(getBottomLeft().getRow(), getTopRight().getRow());
     }
 
     /**
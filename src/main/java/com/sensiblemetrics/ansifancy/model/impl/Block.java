@@ -10,6 +10,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NonNull;
 
+import java.util.Objects;
+
 /**
  * Default {@link BlockIF} implementation
  *
@@ -42,7 +44,7 @@ public class Block implements BlockIF<IntCoordinate> {
      * @param area - initial input {@link AreaIF}
      */
     public Block(final Area area) {
-        ValidationUtils.notNull(area, "Area should not be null");
+        Objects.requireNonNull(area, "Area should not be null");
         this.area = area;
         this.matrix = new Matrix(this.area.height(), this.area.width());
     }
@@ -89,6 +91,117 @@ public class Block implements BlockIF<IntCoordinate> {
         return this.matrix.getColumn(i);
     }
 
+    /**
+     * Returns input {@link AreaIF} (in block cell coordinates) clipped to current block bounds,
+     * empty {@link Area} at the clipped top left corner if they do not intersect
+     *
+     * @param region - initial input {@link AreaIF}
+     * @return clipped {@link Area}
+     */
+    public Area clip(@NonNull final AreaIF<IntCoordinate> region) {
+        final int top = clamp(region.getTopRight().getRow().getValue(), this.matrix.height());
+        final int left = clamp(region.getBottomLeft().getColumn().getValue(), this.matrix.width());
+        final int bottom = Math.max(top, clamp(region.getBottomLeft().getRow().getValue(), this.matrix.height()));
+        final int right = Math.max(left, clamp(region.getTopRight().getColumn().getValue(), this.matrix.width()));
+        return Area.create(Position.create(top, right), Position.create(bottom, left));
+    }
+
+    /**
+     * Fills all cells by input {@link StyleIF}
+     *
+     * @param style - initial input {@link StyleIF} instance
+     */
+    public void fill(final StyleIF style) {
+        this.matrix.fill(style);
+    }
+
+    /**
+     * Fills input {@link AreaIF} (clipped to block bounds) by input {@link StyleIF}
+     *
+     * @param region - initial input {@link AreaIF}
+     * @param style  - initial input {@link StyleIF} instance
+     */
+    public void fill(@NonNull final AreaIF<IntCoordinate> region, final StyleIF style) {
+        final Area area = clip(region);
+        this.matrix.fill(area.getTopRight().getRow().getValue(), area.getBottomLeft().getColumn().getValue(), area.height(), area.width(), style);
+    }
+
+    /**
+     * Copies input {@link AreaIF} of input source block to input target position, clipped
+     * to both source and current block bounds
+     *
+     * @param source - initial input source {@link Block}
+     * @param region - initial input source {@link AreaIF}
+     * @param row    - initial input target top row
+     * @param column - initial input target left column
+     */
+    public void copy(@NonNull final Block source, @NonNull final AreaIF<IntCoordinate> region, int row, int column) {
+        int sourceRow = region.getTopRight().getRow().getValue();
+        int sourceColumn = region.getBottomLeft().getColumn().getValue();
+        int height = region.getBottomLeft().getRow().getValue() - sourceRow;
+        int width = region.getTopRight().getColumn().getValue() - sourceColumn;
+        // shifting both rectangles by the part cut off either of them
+        final int rowShift = Math.max(0, Math.max(-sourceRow, -row));
+        final int columnShift = Math.max(0, Math.max(-sourceColumn, -column));
+        sourceRow += rowShift;
+        row += rowShift;
+        sourceColumn += columnShift;
+        column += columnShift;
+        height = Math.min(height - rowShift, Math.min(source.matrix.height() - sourceRow, this.matrix.height() - row));
+        width = Math.min(width - columnShift, Math.min(source.matrix.width() - sourceColumn, this.matrix.width() - column));
+        if (height > 0 && width > 0) {
+            this.matrix.blit(source.matrix, sourceRow, sourceColumn, height, width, row, column);
+        }
+    }
+
+    /**
+     * Moves input {@link AreaIF} of current block to input target position (overlapping
+     * source and target are allowed), cells left behind keep their styles
+     *
+     * @param region - initial input {@link AreaIF}
+     * @param row    - initial input target top row
+     * @param column - initial input target left column
+     */
+    public void move(@NonNull final AreaIF<IntCoordinate> region, int row, int column) {
+        copy(this, region, row, column);
+    }
+
+    /**
+     * Scrolls block content up by input number of rows, filling freed rows by input {@link StyleIF}
+     *
+     * @param rows  - initial input number of rows
+     * @param style - initial input {@link StyleIF} instance
+     */
+    public void scrollUp(int rows, final StyleIF style) {
+        ValidationUtils.isTrue(rows >= 0, "Rows should not be negative");
+        final int shift = Math.min(rows, this.matrix.height());
+        final int height = this.matrix.height() - shift;
+        if (height > 0) {
+            this.matrix.blit(this.matrix, shift, 0, height, this.matrix.width(), 0, 0);
+        }
+        this.matrix.fill(height, 0, shift, this.matrix.width(), style);
+    }
+
+    /**
+     * Scrolls block content down by input number of rows, filling freed rows by input {@link StyleIF}
+     *
+     * @param rows  - initial input number of rows
+     * @param style - initial input {@link StyleIF} instance
+     */
+    public void scrollDown(int rows, final StyleIF style) {
+        ValidationUtils.isTrue(rows >= 0, "Rows should not be negative");
+        final int shift = Math.min(rows, this.matrix.height());
+        final int height = this.matrix.height() - shift;
+        if (height > 0) {
+            this.matrix.blit(this.matrix, 0, 0, height, this.matrix.width(), shift, 0);
+        }
+        this.matrix.fill(0, 0, shift, this.matrix.width(), style);
+    }
+
+    private static int clamp(int value, int upper) {
+        return Math.max(0, Math.min(value, upper));
+    }
+
     /**
      * Returns new {@link BlockIF} instance by input parameters
      *
@@ -96,10 +209,7 @@ public class Block implements BlockIF<IntCoordinate> {
      * @return new {@link BlockIF} instance
      */
     public static Block create(@NonNull final Area area) {
-        return Block
-            .builder()
-            .area(area)
-            .build();
+        return new Block(area);
     }
 
     /**
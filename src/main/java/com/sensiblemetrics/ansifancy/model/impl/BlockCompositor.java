@@ -0,0 +1,300 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 SensibleMetrics Labs, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.sensiblemetrics.ansifancy.model.impl;
+
+import com.sensiblemetrics.ansifancy.model.iface.AreaIF;
+import com.sensiblemetrics.ansifancy.model.iface.StyleIF;
+import com.sensiblemetrics.ansifancy.utils.ValidationUtils;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Layered {@link Block} compositor: blocks are kept in z-order (first is the bottom one) and placed
+ * on the frame by their {@link Area} top left corner. Changes are recorded as dirty {@link Area}s
+ * in frame coordinates, overlapping ones (sharing at least one cell) are merged, and
+ * {@link #compose()} recomposes only those regions from the layers overlapping them, starting from
+ * the topmost layer that covers a region entirely. Not thread-safe
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+public class BlockCompositor {
+
+    /**
+     * Composed frame buffer
+     */
+    @Getter
+    private final Matrix frame;
+    /**
+     * Frame background {@link StyleIF}
+     */
+    private final StyleIF background;
+    private final List<Block> layers = new ArrayList<>();
+    private final List<Area> dirty = new ArrayList<>();
+
+    /**
+     * Default compositor constructor by input frame height / width parameters
+     *
+     * @param height - initial input frame height
+     * @param width  - initial input frame width
+     */
+    public BlockCompositor(final int height, final int width) {
+        this(height, width, null);
+    }
+
+    /**
+     * Default compositor constructor by input frame height / width / background parameters
+     *
+     * @param height     - initial input frame height
+     * @param width      - initial input frame width
+     * @param background - initial input background {@link StyleIF} instance
+     */
+    public BlockCompositor(final int height, final int width, final StyleIF background) {
+        this.frame = new Matrix(height, width);
+        this.background = background;
+        this.frame.fill(background);
+    }
+
+    /**
+     * Returns unmodifiable {@link List} of layers in z-order
+     *
+     * @return {@link List} of layers
+     */
+    public List<Block> getLayers() {
+        return Collections.unmodifiableList(this.layers);
+    }
+
+    /**
+     * Adds input {@link Block} on top of the layers
+     *
+     * @param block - initial input {@link Block}
+     */
+    public void add(final Block block) {
+        add(this.layers.size(), block);
+    }
+
+    /**
+     * Adds input {@link Block} at input z-order index
+     *
+     * @param index - initial input z-order index
+     * @param block - initial input {@link Block}
+     */
+    public void add(final int index, final Block block) {
+        Objects.requireNonNull(block, "Block should not be null");
+        ValidationUtils.isTrue(indexOf(block) < 0, "Block should not be added twice");
+        this.layers.add(index, block);
+        invalidate(block);
+    }
+
+    /**
+     * Removes input {@link Block} from the layers
+     *
+     * @param block - initial input {@link Block}
+     * @return true - if block was removed, false - otherwise
+     */
+    public boolean remove(final Block block) {
+        final int index = indexOf(block);
+        if (index < 0) {
+            return false;
+        }
+        this.layers.remove(index);
+        invalidate(bounds(block));
+        return true;
+    }
+
+    /**
+     * Marks all cells of input {@link Block} as changed
+     *
+     * @param block - initial input {@link Block}
+     */
+    public void invalidate(final Block block) {
+        Objects.requireNonNull(block, "Block should not be null");
+        invalidate(bounds(block));
+    }
+
+    /**
+     * Marks input {@link AreaIF} (in block cell coordinates) of input {@link Block} as changed
+     *
+     * @param block  - initial input {@link Block}
+     * @param region - initial input {@link AreaIF}
+     */
+    public void invalidate(final Block block, final AreaIF<IntCoordinate> region) {
+        Objects.requireNonNull(block, "Block should not be null");
+        final Area area = block.clip(region);
+        final int row = top(block.getArea());
+        final int column = left(block.getArea());
+        invalidate(area(row + top(area), column + left(area), area.height(), area.width()));
+    }
+
+    /**
+     * Marks input {@link AreaIF} (in frame coordinates) as changed
+     *
+     * @param region - initial input {@link AreaIF}
+     */
+    public void invalidate(final AreaIF<IntCoordinate> region) {
+        Objects.requireNonNull(region, "Area should not be null");
+        Area current = clip(top(region), left(region), region.height(), region.width());
+        if (current.isEmpty()) {
+            return;
+        }
+        // merging until the area no longer overlaps any of the pending ones
+        for (boolean merged = true; merged; ) {
+            merged = false;
+            for (int i = this.dirty.size() - 1; i >= 0; i--) {
+                final Area other = this.dirty.get(i);
+                if (intersects(current, other)) {
+                    current = union(current, other);
+                    this.dirty.remove(i);
+                    merged = true;
+                }
+            }
+        }
+        this.dirty.add(current);
+    }
+
+    /**
+     * Marks the whole frame as changed
+     */
+    public void invalidateAll() {
+        this.dirty.clear();
+        this.dirty.add(area(0, 0, this.frame.height(), this.frame.width()));
+    }
+
+    /**
+     * Returns binary flag if there are regions to recompose
+     *
+     * @return true - if frame is dirty, false - otherwise
+     */
+    public boolean isDirty() {
+        return !this.dirty.isEmpty();
+    }
+
+    /**
+     * Recomposes dirty regions into the frame buffer and returns them (in frame coordinates)
+     *
+     * @return {@link List} of recomposed {@link Area}s
+     */
+    public List<Area> compose() {
+        final List<Area> result = new ArrayList<>(this.dirty);
+        for (final Area region : result) {
+            compose(region);
+        }
+        this.dirty.clear();
+        return result;
+    }
+
+    private void compose(final Area region) {
+        final int top = top(region);
+        final int left = left(region);
+        final int bottom = top + region.height();
+        final int right = left + region.width();
+        int first = this.layers.size() - 1;
+        while (first >= 0 && !covers(this.layers.get(first), top, left, bottom, right)) {
+            first--;
+        }
+        if (first < 0) {
+            this.frame.fill(top, left, region.height(), region.width(), this.background);
+            first = 0;
+        }
+        for (int i = first; i < this.layers.size(); i++) {
+            final Block block = this.layers.get(i);
+            final Area bounds = bounds(block);
+            if (!intersects(region, bounds)) {
+                continue;
+            }
+            final int row = top(block.getArea());
+            final int column = left(block.getArea());
+            final int fromRow = Math.max(top, row);
+            final int fromColumn = Math.max(left, column);
+            final int height = Math.min(bottom, row + block.getMatrix().height()) - fromRow;
+            final int width = Math.min(right, column + block.getMatrix().width()) - fromColumn;
+            if (height > 0 && width > 0) {
+                this.frame.blit(block.getMatrix(), fromRow - row, fromColumn - column, height, width, fromRow, fromColumn);
+            }
+        }
+    }
+
+    private boolean covers(final Block block, int top, int left, int bottom, int right) {
+        final int row = top(block.getArea());
+        final int column = left(block.getArea());
+        return row <= top && column <= left && row + block.getMatrix().height() >= bottom && column + block.getMatrix().width() >= right;
+    }
+
+    private int indexOf(final Block block) {
+        for (int i = 0; i < this.layers.size(); i++) {
+            if (this.layers.get(i) == block) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns frame {@link Area} covered by input {@link Block}, clipped to the frame
+     */
+    private Area bounds(final Block block) {
+        return clip(top(block.getArea()), left(block.getArea()), block.getMatrix().height(), block.getMatrix().width());
+    }
+
+    private Area clip(int row, int column, int height, int width) {
+        final int top = Math.max(0, Math.min(row, this.frame.height()));
+        final int left = Math.max(0, Math.min(column, this.frame.width()));
+        final int bottom = Math.max(top, Math.min(row + Math.max(0, height), this.frame.height()));
+        final int right = Math.max(left, Math.min(column + Math.max(0, width), this.frame.width()));
+        return area(top, left, bottom - top, right - left);
+    }
+
+    /**
+     * Returns true if input areas share at least one cell: rows and columns are half-open like
+     * {@link Area#height()} / {@link Area#width()}, unlike inclusive {@link Area#isOverlap(AreaIF)}
+     */
+    private static boolean intersects(final Area first, final Area second) {
+        return top(first) < top(second) + second.height() && top(second) < top(first) + first.height()
+            && left(first) < left(second) + second.width() && left(second) < left(first) + first.width();
+    }
+
+    private static Area union(final Area first, final Area second) {
+        final int top = Math.min(top(first), top(second));
+        final int left = Math.min(left(first), left(second));
+        final int bottom = Math.max(top(first) + first.height(), top(second) + second.height());
+        final int right = Math.max(left(first) + first.width(), left(second) + second.width());
+        return area(top, left, bottom - top, right - left);
+    }
+
+    private static Area area(int row, int column, int height, int width) {
+        return Area.create(Position.create(row, column + width), Position.create(row + height, column));
+    }
+
+    private static int top(final AreaIF<IntCoordinate> area) {
+        return area.getTopRight().getRow().getValue();
+    }
+
+    private static int left(final AreaIF<IntCoordinate> area) {
+        return area.getBottomLeft().getColumn().getValue();
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 SensibleMetrics Labs, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.sensiblemetrics.ansifancy.model.impl;
+
+import com.sensiblemetrics.ansifancy.model.iface.PointIF;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Lazily rendered escape sequence cache: {@link String}, {@code char[]} and UTF-8 {@code byte[]} forms are computed
+ * together on the first access after invalidation and published at once. Forms rendered from {@link PointIF} codes
+ * are also validated against the current codes, so points changed or added behind the owner's back are picked up.
+ * Cached forms are not serialized
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+final class EscapeCache implements Serializable {
+
+    /**
+     * Default explicit serialVersionUID for interoperability
+     */
+    private static final long serialVersionUID = 5403651729405384115L;
+
+    private transient volatile Escape escape;
+
+    /**
+     * Returns cached escape forms, rendered by input supplier if they are missing
+     *
+     * @param render - initial input escape sequence {@link Supplier}
+     * @return cached escape forms
+     */
+    Escape get(final Supplier<? extends CharSequence> render) {
+        Escape result = this.escape;
+        if (result == null) {
+            final String text = String.valueOf(render.get());
+            this.escape = result = new Escape(text, text, null);
+        }
+        return result;
+    }
+
+    /**
+     * Returns cached escape forms of input points, rendered by input function from the point codes
+     * if they are missing or the point codes have changed since (the point codes are also kept concatenated as is)
+     *
+     * @param points - initial input {@link Collection} of {@link PointIF}
+     * @param render - initial input escape sequence {@link Function} of the point codes
+     * @return cached escape forms
+     */
+    Escape get(final Collection<? extends PointIF> points, final Function<char[][], ? extends CharSequence> render) {
+        Escape result = this.escape;
+        if (result == null || !result.isRenderedFrom(points)) {
+            final char[][] codes = new char[points.size()][];
+            final StringBuilder codePoints = new StringBuilder();
+            int i = 0;
+            for (final PointIF point : points) {
+                codes[i] = point.getCodeChars();
+                codePoints.append(codes[i++]);
+            }
+            this.escape = result = new Escape(String.valueOf(render.apply(codes)), codePoints.toString(), codes);
+        }
+        return result;
+    }
+
+    /**
+     * Drops cached escape forms
+     */
+    void invalidate() {
+        this.escape = null;
+    }
+
+    /**
+     * Immutable escape sequence forms
+     */
+    static final class Escape {
+
+        final String text;
+        final char[] chars;
+        final byte[] bytes;
+        /**
+         * Verbatim concatenation of the point codes or rendered text if there are none
+         */
+        final String codePoints;
+        /**
+         * Point codes the forms are rendered from or {@code null}
+         */
+        private final char[][] codes;
+
+        Escape(final String text, final String codePoints, final char[][] codes) {
+            this.text = text;
+            this.chars = text.toCharArray();
+            this.bytes = text.getBytes(StandardCharsets.UTF_8);
+            this.codePoints = codePoints;
+            this.codes = codes;
+        }
+
+        private boolean isRenderedFrom(final Collection<? extends PointIF> points) {
+            if (this.codes == null || this.codes.length != points.size()) {
+                return false;
+            }
+            int i = 0;
+            for (final PointIF point : points) {
+                final char[] code = point.getCodeChars();
+                // shared code arrays are compared by reference first
+                if (code != this.codes[i] && !Arrays.equals(code, this.codes[i])) {
+                    return false;
+                }
+                i++;
+            }
+            return true;
+        }
+    }
+}
@@ -8,6 +8,9 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NonNull;
 
+import java.util.Arrays;
+import java.util.Objects;
+
 /**
  * Default {@link MatrixIF} implementation
  *
@@ -122,6 +125,62 @@ public class Matrix implements MatrixIF<StyleIF> {
         return result;
     }
 
+    /**
+     * Fills all cells by input {@link StyleIF}
+     *
+     * @param style - initial input {@link StyleIF} instance
+     */
+    public void fill(final StyleIF style) {
+        for (final StyleIF[] row : this.matrix) {
+            Arrays.fill(row, style);
+        }
+    }
+
+    /**
+     * Fills input rectangle by input {@link StyleIF}
+     *
+     * @param row    - initial input top row
+     * @param column - initial input left column
+     * @param height - initial input rectangle height
+     * @param width  - initial input rectangle width
+     * @param style  - initial input {@link StyleIF} instance
+     */
+    public void fill(int row, int column, int height, int width, final StyleIF style) {
+        checkRectangle(row, column, height, width);
+        for (int i = row; i < row + height; i++) {
+            Arrays.fill(this.matrix[i], column, column + width, style);
+        }
+    }
+
+    /**
+     * Copies rectangle of input source matrix to input target position, source and target may be
+     * the same matrix with overlapping rectangles
+     *
+     * @param source       - initial input source {@link Matrix}
+     * @param sourceRow    - initial input source top row
+     * @param sourceColumn - initial input source left column
+     * @param height       - initial input rectangle height
+     * @param width        - initial input rectangle width
+     * @param row          - initial input target top row
+     * @param column       - initial input target left column
+     */
+    public void blit(final Matrix source, int sourceRow, int sourceColumn, int height, int width, int row, int column) {
+        Objects.requireNonNull(source, "Source should not be null");
+        source.checkRectangle(sourceRow, sourceColumn, height, width);
+        checkRectangle(row, column, height, width);
+        // rows are copied bottom-up when a rectangle is moved down within the same rows
+        final boolean reverse = source.matrix == this.matrix && row > sourceRow;
+        for (int k = 0; k < height; k++) {
+            final int i = reverse ? height - 1 - k : k;
+            System.arraycopy(source.matrix[sourceRow + i], sourceColumn, this.matrix[row + i], column, width);
+        }
+    }
+
+    private void checkRectangle(int row, int column, int height, int width) {
+        Objects.checkFromIndexSize(row, height, this.height());
+        Objects.checkFromIndexSize(column, width, this.width());
+    }
+
     /**
      * Returns new {@link Matrix} instance by input parameters
      *
@@ -0,0 +1,351 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 SensibleMetrics Labs, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.sensiblemetrics.ansifancy.model.impl;
+
+import com.sensiblemetrics.ansifancy.model.iface.AreaIF;
+import com.sensiblemetrics.ansifancy.model.iface.MatrixIF;
+import com.sensiblemetrics.ansifancy.model.iface.StyleIF;
+import com.sensiblemetrics.ansifancy.utils.ValidationUtils;
+
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Primitive-backed {@link MatrixIF} implementation: styles are stored as {@link PackedStyle} values
+ * in a single row-major {@code long[]}, so a cell costs 8 bytes without object references, rows and
+ * columns are available as views without copying, and fills / rectangle blits are array fills / copies.
+ * Default rendition ({@link PackedStyle#DEFAULT}) corresponds to {@code null} {@link StyleIF} of {@link Matrix}.
+ * Unlike {@link Matrix} it is lossy: {@link #get(int, int)} returns the interned style of the packed rendition
+ * rather than the stored instance, so titles, descriptions and codes {@link PackedStyle} can not pack are lost
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+@EqualsAndHashCode
+@ToString
+public class PackedMatrix implements MatrixIF<StyleIF> {
+
+    /**
+     * Default explicit serialVersionUID for interoperability
+     */
+    private static final long serialVersionUID = 2870924961328765610L;
+
+    private final int height;
+    private final int width;
+    /**
+     * Row-major packed styles
+     */
+    private final long[] cells;
+
+    /**
+     * Default packed matrix constructor by input height / width parameters
+     *
+     * @param height - initial input matrix height
+     * @param width  - initial input matrix width
+     */
+    public PackedMatrix(final int height, final int width) {
+        ValidationUtils.isTrue(height >= 0 && width >= 0, "Height and width should not be negative");
+        this.height = height;
+        this.width = width;
+        this.cells = new long[Math.multiplyExact(height, width)];
+    }
+
+    /**
+     * Returns new {@link PackedMatrix} with styles of input {@link MatrixIF}
+     *
+     * @param matrix - initial input {@link MatrixIF}
+     * @return new {@link PackedMatrix}
+     */
+    public static PackedMatrix of(final MatrixIF<StyleIF> matrix) {
+        Objects.requireNonNull(matrix, "Matrix should not be null");
+        final PackedMatrix result = new PackedMatrix(matrix.height(), matrix.width());
+        for (int i = 0; i < result.height; i++) {
+            for (int j = 0; j < result.width; j++) {
+                result.cells[i * result.width + j] = PackedStyle.of(matrix.get(i, j));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int width() {
+        return this.width;
+    }
+
+    @Override
+    public int height() {
+        return this.height;
+    }
+
+    /**
+     * Returns {@link StyleIF} by input row / column parameters (interned, see {@link PackedStyle#toStyle(long)})
+     * or {@code null} for default rendition
+     *
+     * @param i - initial input row value
+     * @param j - initial input column value
+     * @return {@link StyleIF}
+     */
+    @Override
+    public StyleIF get(int i, int j) {
+        final long style = this.cells[index(i, j)];
+        return style == PackedStyle.DEFAULT ? null : PackedStyle.toStyle(style);
+    }
+
+    /**
+     * Updates {@link StyleIF} by input row / column parameters ({@code null} means default rendition)
+     *
+     * @param i     - initial input row value
+     * @param j     - initial input column value
+     * @param style - initial input {@link StyleIF} instance
+     */
+    @Override
+    public void set(int i, int j, final StyleIF style) {
+        this.cells[index(i, j)] = PackedStyle.of(style);
+    }
+
+    /**
+     * Returns packed style by input row / column parameters
+     *
+     * @param i - initial input row value
+     * @param j - initial input column value
+     * @return packed style
+     */
+    public long getPacked(int i, int j) {
+        return this.cells[index(i, j)];
+    }
+
+    /**
+     * Updates packed style by input row / column parameters
+     *
+     * @param i     - initial input row value
+     * @param j     - initial input column value
+     * @param style - initial input packed style
+     */
+    public void setPacked(int i, int j, long style) {
+        this.cells[index(i, j)] = style;
+    }
+
+    /**
+     * Returns new array of {@link StyleIF} by input row index (see {@link #row(int)} for a view)
+     *
+     * @param i - initial input row index
+     * @return array of {@link StyleIF}
+     */
+    @Override
+    public StyleIF[] getRow(int i) {
+        return toStyles(row(i));
+    }
+
+    /**
+     * Returns new array of {@link StyleIF} by input column index (see {@link #column(int)} for a view)
+     *
+     * @param j - initial input column index
+     * @return array of {@link StyleIF}
+     */
+    @Override
+    public StyleIF[] getColumn(int j) {
+        return toStyles(column(j));
+    }
+
+    /**
+     * Returns {@link View} of the row by input index
+     *
+     * @param i - initial input row index
+     * @return row {@link View}
+     */
+    public View row(int i) {
+        Objects.checkIndex(i, this.height);
+        return new View(i * this.width, 1, this.width);
+    }
+
+    /**
+     * Returns {@link View} of the column by input index
+     *
+     * @param j - initial input column index
+     * @return column {@link View}
+     */
+    public View column(int j) {
+        Objects.checkIndex(j, this.width);
+        return new View(j, this.width, this.height);
+    }
+
+    /**
+     * Fills all cells by input packed style
+     *
+     * @param style - initial input packed style
+     */
+    public void fill(long style) {
+        Arrays.fill(this.cells, style);
+    }
+
+    /**
+     * Fills input rectangle by input packed style
+     *
+     * @param row    - initial input top row
+     * @param column - initial input left column
+     * @param height - initial input rectangle height
+     * @param width  - initial input rectangle width
+     * @param style  - initial input packed style
+     */
+    public void fill(int row, int column, int height, int width, long style) {
+        checkRectangle(row, column, height, width);
+        for (int i = row; i < row + height; i++) {
+            final int from = i * this.width + column;
+            Arrays.fill(this.cells, from, from + width, style);
+        }
+    }
+
+    /**
+     * Copies rectangle of input source matrix to input target position, source and target may be
+     * the same matrix with overlapping rectangles
+     *
+     * @param source       - initial input source {@link PackedMatrix}
+     * @param sourceRow    - initial input source top row
+     * @param sourceColumn - initial input source left column
+     * @param height       - initial input rectangle height
+     * @param width        - initial input rectangle width
+     * @param row          - initial input target top row
+     * @param column       - initial input target left column
+     */
+    public void blit(final PackedMatrix source, int sourceRow, int sourceColumn, int height, int width, int row, int column) {
+        Objects.requireNonNull(source, "Source should not be null");
+        source.checkRectangle(sourceRow, sourceColumn, height, width);
+        checkRectangle(row, column, height, width);
+        // rows are copied bottom-up when a rectangle is moved down within the same cells
+        final boolean reverse = source.cells == this.cells && row > sourceRow;
+        for (int k = 0; k < height; k++) {
+            final int i = reverse ? height - 1 - k : k;
+            System.arraycopy(source.cells, (sourceRow + i) * source.width + sourceColumn, this.cells, (row + i) * this.width + column, width);
+        }
+    }
+
+    /**
+     * Copies input {@link AreaIF} rectangle of input source matrix to input target position
+     * (area rows are [top right row, bottom left row), columns are [bottom left column, top right column))
+     *
+     * @param source - initial input source {@link PackedMatrix}
+     * @param area   - initial input source {@link AreaIF}
+     * @param row    - initial input target top row
+     * @param column - initial input target left column
+     */
+    public void blit(final PackedMatrix source, final AreaIF<IntCoordinate> area, int row, int column) {
+        Objects.requireNonNull(area, "Area should not be null");
+        final int top = area.getTopRight().getRow().getValue();
+        final int left = area.getBottomLeft().getColumn().getValue();
+        blit(source, top, left, area.getBottomLeft().getRow().getValue() - top, area.getTopRight().getColumn().getValue() - left, row, column);
+    }
+
+    /**
+     * Returns copy of current {@link PackedMatrix}
+     *
+     * @return copy of {@link PackedMatrix}
+     */
+    public PackedMatrix copy() {
+        final PackedMatrix result = new PackedMatrix(this.height, this.width);
+        System.arraycopy(this.cells, 0, result.cells, 0, this.cells.length);
+        return result;
+    }
+
+    private int index(int i, int j) {
+        return Objects.checkIndex(i, this.height) * this.width + Objects.checkIndex(j, this.width);
+    }
+
+    private void checkRectangle(int row, int column, int height, int width) {
+        Objects.checkFromIndexSize(row, height, this.height);
+        Objects.checkFromIndexSize(column, width, this.width);
+    }
+
+    private static StyleIF[] toStyles(final View view) {
+        final StyleIF[] result = new StyleIF[view.length()];
+        for (int k = 0; k < result.length; k++) {
+            final long style = view.get(k);
+            result[k] = style == PackedStyle.DEFAULT ? null : PackedStyle.toStyle(style);
+        }
+        return result;
+    }
+
+    /**
+     * Row or column view over the matrix cells
+     */
+    @ToString
+    public final class View {
+
+        private final int offset;
+        private final int stride;
+        private final int length;
+
+        private View(int offset, int stride, int length) {
+            this.offset = offset;
+            this.stride = stride;
+            this.length = length;
+        }
+
+        /**
+         * Returns number of cells
+         *
+         * @return number of cells
+         */
+        public int length() {
+            return this.length;
+        }
+
+        /**
+         * Returns packed style of the cell at input index
+         *
+         * @param k - initial input cell index
+         * @return packed style
+         */
+        public long get(int k) {
+            return cells[this.offset + Objects.checkIndex(k, this.length) * this.stride];
+        }
+
+        /**
+         * Updates packed style of the cell at input index
+         *
+         * @param k     - initial input cell index
+         * @param style - initial input packed style
+         */
+        public void set(int k, long style) {
+            cells[this.offset + Objects.checkIndex(k, this.length) * this.stride] = style;
+        }
+
+        /**
+         * Fills all cells by input packed style
+         *
+         * @param style - initial input packed style
+         */
+        public void fill(long style) {
+            if (this.stride == 1) {
+                Arrays.fill(cells, this.offset, this.offset + this.length, style);
+            } else {
+                for (int k = 0; k < this.length; k++) {
+                    cells[this.offset + k * this.stride] = style;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,424 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 SensibleMetrics Labs, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.sensiblemetrics.ansifancy.model.impl;
+
+import com.sensiblemetrics.ansifancy.model.iface.PointIF;
+import com.sensiblemetrics.ansifancy.model.iface.StyleIF;
+import lombok.experimental.UtilityClass;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Bit-packed immutable style value: full SGR state in a single {@code long}, so styles are compared,
+ * merged and diffed in O(1) and style grids keep one primitive per cell.
+ * <pre>
+ * bits  0-7   attributes (bold, faint, italic, underline, blink, negative, conceal, strike)
+ * bits  8-9   foreground kind (default, palette, rgb)
+ * bits 10-33  foreground payload (palette index or 0xRRGGBB)
+ * bits 34-35  background kind
+ * bits 36-59  background payload
+ * </pre>
+ * {@link #DEFAULT} (zero) is the default rendition. Conversion from {@link StyleIF} applies its SGR codes
+ * (attributes without a bit, e.g. overline, are dropped), conversion to {@link StyleIF} returns instances
+ * interned in a global table
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+@UtilityClass
+public class PackedStyle {
+
+    /**
+     * Default rendition
+     */
+    public static final long DEFAULT = 0L;
+    /**
+     * Default attribute bits
+     */
+    public static final long BOLD = 1L;
+    public static final long FAINT = 1L << 1;
+    public static final long ITALIC = 1L << 2;
+    public static final long UNDERLINE = 1L << 3;
+    public static final long BLINK = 1L << 4;
+    public static final long NEGATIVE = 1L << 5;
+    public static final long CONCEAL = 1L << 6;
+    public static final long STRIKE = 1L << 7;
+    public static final long ATTRIBUTES = 0xFFL;
+    /**
+     * Default color kinds
+     */
+    public static final int COLOR_DEFAULT = 0;
+    public static final int COLOR_PALETTE = 1;
+    public static final int COLOR_RGB = 2;
+    /**
+     * Maximum number of interned {@link StyleIF} instances, styles beyond it are created on every conversion
+     */
+    public static final int MAX_INTERNED = 1 << 16;
+
+    private static final int FOREGROUND_SHIFT = 8;
+    private static final int BACKGROUND_SHIFT = 34;
+    private static final long COLOR_MASK = (1L << 26) - 1;
+    private static final long INTENSITY = BOLD | FAINT;
+    /**
+     * SGR codes switching on / off attributes of the bits from italic (attributes bold and faint share intensity code 22)
+     */
+    private static final int[] ATTRIBUTE_ON = {3, 4, 5, 7, 8, 9};
+    private static final int[] ATTRIBUTE_OFF = {23, 24, 25, 27, 28, 29};
+    private static final int ATTRIBUTE_ON_OFF_SHIFT = 2;
+
+    private static final ConcurrentMap<Long, StyleIF> INTERNED = new ConcurrentHashMap<>();
+
+    /**
+     * Returns packed style of input {@link StyleIF} escape codes
+     *
+     * @param style - initial input {@link StyleIF}
+     * @return packed style
+     */
+    public static long of(final StyleIF style) {
+        if (Objects.isNull(style)) {
+            return DEFAULT;
+        }
+        final char[] escape = style.getEscapeChars();
+        return apply(DEFAULT, escape, 0, escape.length);
+    }
+
+    /**
+     * Returns input packed style updated by SGR sequences ({@code ESC[...m}) of input range, other escape sequences
+     * and text are skipped
+     *
+     * @param style  - initial input packed style
+     * @param escape - initial input escape chars
+     * @param from   - initial input start index
+     * @param to     - initial input end index (exclusive)
+     * @return updated packed style
+     */
+    public static long apply(long style, final char[] escape, int from, int to) {
+        int i = from;
+        while (i + 2 < to) {
+            if (escape[i] != 27 || escape[i + 1] != '[') {
+                i++;
+                continue;
+            }
+            int end = i + 2;
+            while (end < to && (escape[end] >= '0' && escape[end] <= '9' || escape[end] == ';')) {
+                end++;
+            }
+            if (end < to && escape[end] == 'm') {
+                style = applyParameters(style, escape, i + 2, end);
+            }
+            i = end;
+        }
+        return style;
+    }
+
+    private static long applyParameters(long style, final char[] params, int from, int to) {
+        if (from == to) {
+            return DEFAULT;
+        }
+        final int[] values = new int[to - from + 1 >> 1];
+        int count = 0;
+        int value = 0;
+        for (int i = from; i <= to; i++) {
+            if (i == to || params[i] == ';') {
+                values[count++] = value;
+                value = 0;
+            } else {
+                value = Math.min(value * 10 + params[i] - '0', 0xFFFF);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            final int code = values[i];
+            if (code == 0) {
+                style = DEFAULT;
+            } else if (code == 1) {
+                style |= BOLD;
+            } else if (code == 2) {
+                style |= FAINT;
+            } else if (code == 22) {
+                style &= ~INTENSITY;
+            } else if (code >= 30 && code <= 37 || code >= 90 && code <= 97) {
+                style = withForeground(style, COLOR_PALETTE, code < 90 ? code - 30 : code - 82);
+            } else if (code >= 40 && code <= 47 || code >= 100 && code <= 107) {
+                style = withBackground(style, COLOR_PALETTE, code < 100 ? code - 40 : code - 92);
+            } else if (code == 39) {
+                style = withForeground(style, COLOR_DEFAULT, 0);
+            } else if (code == 49) {
+                style = withBackground(style, COLOR_DEFAULT, 0);
+            } else if ((code == 38 || code == 48) && i + 2 < count && values[i + 1] == 5) {
+                style = code == 38 ? withForeground(style, COLOR_PALETTE, values[i + 2] & 0xFF) : withBackground(style, COLOR_PALETTE, values[i + 2] & 0xFF);
+                i += 2;
+            } else if ((code == 38 || code == 48) && i + 4 < count && values[i + 1] == 2) {
+                final int rgb = (values[i + 2] & 0xFF) << 16 | (values[i + 3] & 0xFF) << 8 | values[i + 4] & 0xFF;
+                style = code == 38 ? withForeground(style, COLOR_RGB, rgb) : withBackground(style, COLOR_RGB, rgb);
+                i += 4;
+            } else {
+                for (int j = 0; j < ATTRIBUTE_ON.length; j++) {
+                    if (code == ATTRIBUTE_ON[j]) {
+                        style |= 1L << j + ATTRIBUTE_ON_OFF_SHIFT;
+                    } else if (code == ATTRIBUTE_OFF[j]) {
+                        style &= ~(1L << j + ATTRIBUTE_ON_OFF_SHIFT);
+                    }
+                }
+            }
+        }
+        return style;
+    }
+
+    /**
+     * Returns attribute bits of input packed style
+     *
+     * @param style - initial input packed style
+     * @return attribute bits
+     */
+    public static long attributes(long style) {
+        return style & ATTRIBUTES;
+    }
+
+    /**
+     * Returns input packed style with input attribute bits set
+     *
+     * @param style      - initial input packed style
+     * @param attributes - initial input attribute bits
+     * @return updated packed style
+     */
+    public static long withAttributes(long style, long attributes) {
+        return style | attributes & ATTRIBUTES;
+    }
+
+    /**
+     * Returns input packed style with input attribute bits cleared
+     *
+     * @param style      - initial input packed style
+     * @param attributes - initial input attribute bits
+     * @return updated packed style
+     */
+    public static long withoutAttributes(long style, long attributes) {
+        return style & ~(attributes & ATTRIBUTES);
+    }
+
+    /**
+     * Returns foreground color kind of input packed style
+     *
+     * @param style - initial input packed style
+     * @return color kind
+     */
+    public static int foregroundKind(long style) {
+        return (int) (style >>> FOREGROUND_SHIFT & 3);
+    }
+
+    /**
+     * Returns foreground color payload (palette index or 0xRRGGBB) of input packed style
+     *
+     * @param style - initial input packed style
+     * @return color payload
+     */
+    public static int foreground(long style) {
+        return (int) (style >>> FOREGROUND_SHIFT + 2 & 0xFFFFFF);
+    }
+
+    /**
+     * Returns background color kind of input packed style
+     *
+     * @param style - initial input packed style
+     * @return color kind
+     */
+    public static int backgroundKind(long style) {
+        return (int) (style >>> BACKGROUND_SHIFT & 3);
+    }
+
+    /**
+     * Returns background color payload (palette index or 0xRRGGBB) of input packed style
+     *
+     * @param style - initial input packed style
+     * @return color payload
+     */
+    public static int background(long style) {
+        return (int) (style >>> BACKGROUND_SHIFT + 2 & 0xFFFFFF);
+    }
+
+    /**
+     * Returns input packed style with input foreground color
+     *
+     * @param style - initial input packed style
+     * @param kind  - initial input color kind
+     * @param color - initial input color payload
+     * @return updated packed style
+     */
+    public static long withForeground(long style, int kind, int color) {
+        return style & ~(COLOR_MASK << FOREGROUND_SHIFT) | color(kind, color) << FOREGROUND_SHIFT;
+    }
+
+    /**
+     * Returns input packed style with input background color
+     *
+     * @param style - initial input packed style
+     * @param kind  - initial input color kind
+     * @param color - initial input color payload
+     * @return updated packed style
+     */
+    public static long withBackground(long style, int kind, int color) {
+        return style & ~(COLOR_MASK << BACKGROUND_SHIFT) | color(kind, color) << BACKGROUND_SHIFT;
+    }
+
+    private static long color(int kind, int color) {
+        if (kind == COLOR_DEFAULT) {
+            return 0L;
+        }
+        if (kind != COLOR_PALETTE && kind != COLOR_RGB || kind == COLOR_PALETTE && (color < 0 || color > 0xFF) || (color & ~0xFFFFFF) != 0) {
+            throw new IllegalArgumentException(String.format("ERROR: invalid color kind = {%s}, color = {%s}", kind, color));
+        }
+        return kind | (long) color << 2;
+    }
+
+    /**
+     * Returns overlay packed style applied on base packed style: attributes are combined and
+     * colors of the overlay replace base colors unless they are default
+     *
+     * @param base    - initial input base packed style
+     * @param overlay - initial input overlay packed style
+     * @return merged packed style
+     */
+    public static long merge(long base, long overlay) {
+        long result = base | overlay & ATTRIBUTES;
+        if (foregroundKind(overlay) != COLOR_DEFAULT) {
+            result = result & ~(COLOR_MASK << FOREGROUND_SHIFT) | overlay & COLOR_MASK << FOREGROUND_SHIFT;
+        }
+        if (backgroundKind(overlay) != COLOR_DEFAULT) {
+            result = result & ~(COLOR_MASK << BACKGROUND_SHIFT) | overlay & COLOR_MASK << BACKGROUND_SHIFT;
+        }
+        return result;
+    }
+
+    /**
+     * Returns bits of input packed styles that differ: attribute bits and whole color fields
+     * (zero if styles are equal)
+     *
+     * @param from - initial input source packed style
+     * @param to   - initial input target packed style
+     * @return differing bits
+     */
+    public static long diff(long from, long to) {
+        final long changed = from ^ to;
+        long result = changed & ATTRIBUTES;
+        if ((changed & COLOR_MASK << FOREGROUND_SHIFT) != 0) {
+            result |= COLOR_MASK << FOREGROUND_SHIFT;
+        }
+        if ((changed & COLOR_MASK << BACKGROUND_SHIFT) != 0) {
+            result |= COLOR_MASK << BACKGROUND_SHIFT;
+        }
+        return result;
+    }
+
+    /**
+     * Returns input {@link StringBuilder} with appended shortest SGR sequence switching rendition
+     * from source to target packed style (nothing if styles are equal)
+     *
+     * @param buffer - initial input {@link StringBuilder}
+     * @param from   - initial input source packed style
+     * @param to     - initial input target packed style
+     * @return input {@link StringBuilder}
+     */
+    public static StringBuilder appendTransition(final StringBuilder buffer, long from, long to) {
+        if (from == to) {
+            return buffer;
+        }
+        final int start = buffer.length();
+        buffer.append((char) 27).append('[');
+        if (to == DEFAULT) {
+            return buffer.append("0m");
+        }
+        final long changed = diff(from, to);
+        if ((changed & INTENSITY) != 0) {
+            if ((from & INTENSITY & ~to) != 0) {
+                buffer.append("22;");
+                from &= ~INTENSITY;
+            }
+            if ((to & BOLD) != 0 && (from & BOLD) == 0) {
+                buffer.append("1;");
+            }
+            if ((to & FAINT) != 0 && (from & FAINT) == 0) {
+                buffer.append("2;");
+            }
+        }
+        for (int j = 0; j < ATTRIBUTE_ON.length; j++) {
+            final long bit = 1L << j + ATTRIBUTE_ON_OFF_SHIFT;
+            if ((changed & bit) != 0) {
+                buffer.append((to & bit) != 0 ? ATTRIBUTE_ON[j] : ATTRIBUTE_OFF[j]).append(';');
+            }
+        }
+        if ((changed & COLOR_MASK << FOREGROUND_SHIFT) != 0) {
+            appendColor(buffer, foregroundKind(to), foreground(to), 30, 90, 38);
+        }
+        if ((changed & COLOR_MASK << BACKGROUND_SHIFT) != 0) {
+            appendColor(buffer, backgroundKind(to), background(to), 40, 100, 48);
+        }
+        if (buffer.length() == start + 2) {
+            buffer.setLength(start);
+            return buffer;
+        }
+        buffer.setCharAt(buffer.length() - 1, 'm');
+        return buffer;
+    }
+
+    private static void appendColor(final StringBuilder buffer, int kind, int color, int base, int brightBase, int extended) {
+        if (kind == COLOR_DEFAULT) {
+            buffer.append(base + 9);
+        } else if (kind == COLOR_PALETTE && color < 8) {
+            buffer.append(base + color);
+        } else if (kind == COLOR_PALETTE && color < 16) {
+            buffer.append(brightBase + color - 8);
+        } else if (kind == COLOR_PALETTE) {
+            buffer.append(extended).append(";5;").append(color);
+        } else {
+            buffer.append(extended).append(";2;").append(color >>> 16).append(';').append(color >>> 8 & 0xFF).append(';').append(color & 0xFF);
+        }
+        buffer.append(';');
+    }
+
+    /**
+     * Returns {@link StyleIF} of input packed style: instances are interned in a global table
+     * (up to {@link #MAX_INTERNED}), so they are shared and must not be modified
+     *
+     * @param style - initial input packed style
+     * @return {@link StyleIF}
+     */
+    public static StyleIF toStyle(long style) {
+        final StyleIF interned = INTERNED.get(style);
+        if (Objects.nonNull(interned)) {
+            return interned;
+        }
+        final String code = appendTransition(new StringBuilder(), DEFAULT, style).toString();
+        final String title = Long.toHexString(style);
+        final StyleIF created = code.isEmpty()
+            ? Style.create(title, "packed style " + title)
+            : Style.create(title, "packed style " + title, Point.of(title, title, code, PointIF.PointType.DECORATION_CONTROL));
+        if (INTERNED.size() >= MAX_INTERNED) {
+            return created;
+        }
+        final StyleIF previous = INTERNED.putIfAbsent(style, created);
+        return Objects.isNull(previous) ? created : previous;
+    }
+}
@@ -25,8 +25,10 @@ package com.sensiblemetrics.ansifancy.model.impl;
 
 import com.sensiblemetrics.ansifancy.model.iface.PointIF;
 import lombok.*;
+import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Objects;
 import java.util.function.BiFunction;
 import java.util.function.IntFunction;
 
@@ -288,6 +290,45 @@ public class Point implements PointIF {
      */
     private PointType type;
 
+    /**
+     * Rendered point code cache
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final EscapeCache codeCache = new EscapeCache();
+
+    /**
+     * Updates point code {@link CharSequence}
+     *
+     * @param code - initial input point code {@link CharSequence}
+     */
+    public void setCode(final CharSequence code) {
+        this.code = code;
+        this.codeCache.invalidate();
+    }
+
+    /**
+     * Returns point code chars rendered once per code update, the array is shared and must not be modified
+     *
+     * @return point code chars
+     */
+    @Override
+    public char[] getCodeChars() {
+        return this.codeCache.get(() -> Objects.toString(this.code, StringUtils.EMPTY)).chars;
+    }
+
+    /**
+     * Returns UTF-8 encoded point code bytes rendered once per code update, the array is shared and must not be modified
+     *
+     * @return point code bytes
+     */
+    @Override
+    public byte[] getCodeBytes() {
+        return this.codeCache.get(() -> Objects.toString(this.code, StringUtils.EMPTY)).bytes;
+    }
+
     /**
      * Returns new {@link PointIF} instance by input data parameters
      *
@@ -102,6 +102,15 @@ public class Style implements StyleIF {
      */
     private Map<CharSequence, PointIF> pointMap;
 
+    /**
+     * Rendered style escape sequence cache (validated against the point codes on access)
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final EscapeCache escapeCache = new EscapeCache();
+
     /**
      * Returns current {@link StyleIF} updated by input collection of style {@link PointIF}
      *
@@ -121,6 +130,7 @@ public class Style implements StyleIF {
     public void setPoints(final Iterable<? extends PointIF> points) {
         this.getPoints().clear();
         this.getPointMap().clear();
+        this.escapeCache.invalidate();
         Optional.ofNullable(points)
             .orElseGet(Collections::emptyList)
             .forEach(this::addPoint);
@@ -136,6 +146,7 @@ public class Style implements StyleIF {
         if (Objects.nonNull(point)) {
             this.getPoints().add(point);
             this.getPointMap().put(point.getCode(), point);
+            this.escapeCache.invalidate();
         }
         return this;
     }
@@ -150,6 +161,7 @@ public class Style implements StyleIF {
      */
     public StyleIF add(final CharSequence name, final CharSequence symbol, final int code, final PointIF.PointType type) {
         this.getPoints().add(Point.of(name, symbol, code, type));
+        this.escapeCache.invalidate();
         return this;
     }
 
@@ -169,14 +181,80 @@ public class Style implements StyleIF {
 
     /**
      * Returns string representation of current collection of {@link PointIF} data codes
+     * (concatenated as is once per points update, unlike {@link #getEscapeChars()})
      *
      * @return string representation of current collection of {@link PointIF} data codes
      */
     public String getCodePoints() {
-        return this.getPoints().stream()
-            .map(PointIF::getCode)
-            .map(String::valueOf)
-            .collect(Collectors.joining(StringUtils.EMPTY));
+        return this.escape().codePoints;
+    }
+
+    /**
+     * Returns escape sequence of current collection of {@link PointIF} data codes rendered once per points update:
+     * SGR codes ({@code ESC[...m}) of consecutive points are merged into a single sequence, other codes are kept as is.
+     * The array is shared and must not be modified
+     *
+     * @return escape sequence chars
+     */
+    @Override
+    public char[] getEscapeChars() {
+        return this.escape().chars;
+    }
+
+    /**
+     * Returns UTF-8 encoded escape sequence of current collection of {@link PointIF} data codes rendered once
+     * per points update. The array is shared and must not be modified
+     *
+     * @return escape sequence bytes
+     */
+    @Override
+    public byte[] getEscapeBytes() {
+        return this.escape().bytes;
+    }
+
+    private EscapeCache.Escape escape() {
+        return this.escapeCache.get(Optional.ofNullable(this.getPoints()).orElseGet(Collections::emptyList), Style::renderEscape);
+    }
+
+    private static String renderEscape(final char[][] codes) {
+        final StringBuilder escape = new StringBuilder();
+        final StringBuilder params = new StringBuilder();
+        for (final char[] code : codes) {
+            if (isSelectGraphicRendition(code)) {
+                if (params.length() > 0) {
+                    params.append(';');
+                }
+                if (code.length == 3) {
+                    params.append('0');
+                } else {
+                    params.append(code, 2, code.length - 3);
+                }
+            } else {
+                appendSelectGraphicRendition(escape, params);
+                escape.append(code);
+            }
+        }
+        appendSelectGraphicRendition(escape, params);
+        return escape.toString();
+    }
+
+    private static boolean isSelectGraphicRendition(final char[] code) {
+        if (code.length < 3 || code[0] != 27 || code[1] != '[' || code[code.length - 1] != 'm') {
+            return false;
+        }
+        for (int i = 2; i < code.length - 1; i++) {
+            if ((code[i] < '0' || code[i] > '9') && code[i] != ';') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void appendSelectGraphicRendition(final StringBuilder escape, final StringBuilder params) {
+        if (params.length() > 0) {
+            escape.append((char) 27).append('[').append(params).append('m');
+            params.setLength(0);
+        }
     }
 
     /**
@@ -246,6 +324,7 @@ public class Style implements StyleIF {
         if (Objects.nonNull(point)) {
             this.getPoints().remove(point);
             this.getPointMap().remove(point.getCode());
+            this.escapeCache.invalidate();
         }
     }
 
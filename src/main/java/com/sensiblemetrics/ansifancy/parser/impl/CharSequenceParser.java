@@ -27,19 +27,23 @@ import com.sensiblemetrics.ansifancy.config.iface.ConfigurationIF;
 import com.sensiblemetrics.ansifancy.parser.iface.ParserIF;
 import com.sensiblemetrics.ansifancy.exception.ParserException;
 import com.sensiblemetrics.ansifancy.model.iface.MarkerIF;
-import com.sensiblemetrics.ansifancy.model.iface.StyleIF;
 import com.sensiblemetrics.ansifancy.processor.iface.ProcessorIF;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.ToString;
 import org.apache.commons.lang3.StringUtils;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Objects;
 
 /**
- * Default {@link ParserIF} implementation
+ * Default {@link ParserIF} implementation: markup source is compiled into {@link MarkupTemplate}
+ * with style names resolved by {@link ConfigurationIF} once, and compiled templates are kept
+ * in a bounded least recently used cache, so repeated parsing of the same source is a cache lookup
  *
  * @param <R> type of element to be parsed
  * @author Alexander Rogalskiy
@@ -54,9 +58,13 @@ public class CharSequenceParser<R extends CharSequence> implements ParserIF<Char
     /**
      * Default character escape symbols
      */
-    private static final char DEFAULT_CHAR_ESCAPE_SYMBOL = '`';
-    private static final char DEFAULT_CHAR_ESCAPE_CLASS_BEGIN_SYMBOL = '{';
-    private static final char DEFAULT_CHAR_ESCAPE_CLASS_END_SYMBOL = '}';
+    public static final char DEFAULT_CHAR_ESCAPE_SYMBOL = '`';
+    public static final char DEFAULT_CHAR_ESCAPE_CLASS_BEGIN_SYMBOL = '{';
+    public static final char DEFAULT_CHAR_ESCAPE_CLASS_END_SYMBOL = '}';
+    /**
+     * Default maximum number of cached compiled templates
+     */
+    public static final int DEFAULT_TEMPLATE_CACHE_SIZE = 1024;
 
     /**
      * Default configuration {@link ConfigurationIF}
@@ -67,6 +75,16 @@ public class CharSequenceParser<R extends CharSequence> implements ParserIF<Char
      */
     private final ProcessorIF<CharSequence, MarkerIF> processor;
 
+    /**
+     * Compiled markup templates cache keyed by source
+     */
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final transient Cache<String, MarkupTemplate> templates = CacheBuilder.newBuilder()
+        .maximumSize(DEFAULT_TEMPLATE_CACHE_SIZE)
+        .build();
+
     /**
      * Returns parsed value {@code R} by input argument value {@code T}
      *
@@ -75,36 +93,33 @@ public class CharSequenceParser<R extends CharSequence> implements ParserIF<Char
      */
     @Override
     public R parse(final CharSequence value) {
+        return (R) compile(value).toString();
+    }
+
+    /**
+     * Returns {@link MarkupTemplate} compiled by input markup source, cached by the source
+     * (cached templates are not invalidated on {@link ConfigurationIF} update, see {@link #clearTemplates()})
+     *
+     * @param value - initial input markup source {@link CharSequence}
+     * @return compiled {@link MarkupTemplate}
+     */
+    public MarkupTemplate compile(final CharSequence value) {
         if (StringUtils.isEmpty(value)) {
             throw ParserException.throwInvalidSource();
         }
-        final StringBuilder buff = new StringBuilder();
-        final List<MarkerIF> markers = getProcessor().process(value);
-        final LinkedList<StyleIF> ansiClasses = new LinkedList<>();
-//        for (final MarkerIF marker : markers) {
-//            if (marker instanceof EscapeClassBegin) {
-//                // Verify if the escape class is registered in the context
-//                EscapeClassBegin begin = (EscapeClassBegin) token;
-//                String escapeClassName = begin.getEscapeClassName();
-//                AnsiClass ansiClass = ansiScapeContext.get(escapeClassName);
-//                if (null == ansiClass) {
-//                    throw unknownEscapeClass(escapeClassName);
-//                }
-//                buff.append(ansiClass.getCharSequences());
-//                ansiClasses.ADD(ansiClass);
-//            } else if (token instanceof FreeText) {
-//                buff.append(((FreeText) token).getText());
-//            } else if (token instanceof EscapeClassEnd) {
-//                if (ansiClasses.isEmpty()) {
-//                    throw invalidBracketSerquence(token.getStartIndex());
-//                }
-//                ansiClasses.removeLast();
-//                buff.append(AnsiSequence.RESET.getSequence());
-//                for (AnsiClass ansiClass : ansiClasses) {
-//                    buff.append(ansiClass.getCharSequences());
-//                }
-//            }
-//        }
-        return (R) buff.toString();
+        final String source = value.toString();
+        MarkupTemplate template = this.templates.getIfPresent(source);
+        if (Objects.isNull(template)) {
+            template = MarkupTemplate.compile(source, getConfiguration());
+            this.templates.put(source, template);
+        }
+        return template;
+    }
+
+    /**
+     * Removes all cached {@link MarkupTemplate}s
+     */
+    public void clearTemplates() {
+        this.templates.invalidateAll();
     }
 }
@@ -0,0 +1,306 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 SensibleMetrics Labs, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.sensiblemetrics.ansifancy.parser.impl;
+
+import com.sensiblemetrics.ansifancy.config.iface.ConfigurationIF;
+import com.sensiblemetrics.ansifancy.config.impl.FrozenConfiguration;
+import com.sensiblemetrics.ansifancy.exception.ParserException;
+import com.sensiblemetrics.ansifancy.processor.impl.MarkerProcessor;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+import static com.sensiblemetrics.ansifancy.parser.impl.CharSequenceParser.*;
+import static com.sensiblemetrics.ansifancy.processor.impl.MarkerProcessor.DEFAULT_CHAR_ESCAPE_CLASS_NAME_END_SYMBOL;
+
+/**
+ * Streaming markup parser: markup is read from {@link Reader} (or {@link ReadableByteChannel}) in fixed-size
+ * chunks and rendered into {@link Writer} (or {@link WritableByteChannel}) chunk by chunk with the same syntax
+ * and errors as {@link MarkupTemplate}. Only the open classes stack and a partial escape or class name are kept
+ * across chunk boundaries, so memory use does not depend on the document size
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+public class MarkupStreamParser {
+
+    /**
+     * Default chunk size
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+    /**
+     * Chars of {@link MarkerProcessor#RESET_CODE}
+     */
+    private static final char[] RESET_CODE = MarkerProcessor.RESET_CODE.toCharArray();
+    private static final char[] ESCAPE = {DEFAULT_CHAR_ESCAPE_SYMBOL};
+
+    /**
+     * Parser states between chunks
+     */
+    private static final int STATE_TEXT = 0;
+    private static final int STATE_ESCAPE = 1;
+    private static final int STATE_NAME = 2;
+
+    private final ConfigurationIF configuration;
+    private final int bufferSize;
+
+    public MarkupStreamParser(final ConfigurationIF configuration) {
+        this(configuration, DEFAULT_BUFFER_SIZE);
+    }
+
+    public MarkupStreamParser(final ConfigurationIF configuration, int bufferSize) {
+        Objects.requireNonNull(configuration, "Configuration should not be null");
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException(String.format("ERROR: invalid buffer size = {%s}, should be positive", bufferSize));
+        }
+        this.configuration = configuration;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Renders markup of input {@link Reader} into input {@link Writer}, the writer is flushed but not closed
+     *
+     * @param in  - initial input markup {@link Reader}
+     * @param out - initial input rendered output {@link Writer}
+     * @return number of read chars
+     * @throws IOException     IOException
+     * @throws ParserException if markup contains unknown class or unbalanced class end
+     */
+    public long parse(final Reader in, final Writer out) throws IOException {
+        Objects.requireNonNull(in, "Reader should not be null");
+        Objects.requireNonNull(out, "Writer should not be null");
+        return new Session(out).parse(in);
+    }
+
+    /**
+     * Renders UTF-8 markup of input {@link ReadableByteChannel} into input {@link WritableByteChannel}
+     *
+     * @param in  - initial input markup {@link ReadableByteChannel}
+     * @param out - initial input rendered output {@link WritableByteChannel}
+     * @return number of read chars
+     * @throws IOException     IOException
+     * @throws ParserException if markup contains unknown class or unbalanced class end
+     */
+    public long parse(final ReadableByteChannel in, final WritableByteChannel out) throws IOException {
+        return parse(in, out, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Renders markup of input {@link ReadableByteChannel} into input {@link WritableByteChannel} by input {@link Charset}
+     *
+     * @param in      - initial input markup {@link ReadableByteChannel}
+     * @param out     - initial input rendered output {@link WritableByteChannel}
+     * @param charset - initial input {@link Charset}
+     * @return number of read chars
+     * @throws IOException     IOException
+     * @throws ParserException if markup contains unknown class or unbalanced class end
+     */
+    public long parse(final ReadableByteChannel in, final WritableByteChannel out, final Charset charset) throws IOException {
+        Objects.requireNonNull(in, "Channel should not be null");
+        Objects.requireNonNull(out, "Channel should not be null");
+        Objects.requireNonNull(charset, "Charset should not be null");
+        return parse(Channels.newReader(in, charset.newDecoder(), this.bufferSize), Channels.newWriter(out, charset.newEncoder(), this.bufferSize));
+    }
+
+    /**
+     * Single document parsing state: class names are resolved by the {@link FrozenConfiguration} snapshot
+     * taken at parse start, names longer than the longest marker name of the snapshot are rejected without buffering them
+     */
+    private final class Session {
+
+        private final FrozenConfiguration snapshot = FrozenConfiguration.of(configuration);
+        private final Writer out;
+        private final char[] buffer = new char[bufferSize];
+        private final char[] output = new char[bufferSize];
+        private int outputSize = 0;
+
+        private int state = STATE_TEXT;
+        private final char[] name = new char[maxNameLength(this.snapshot)];
+        private final CharBuffer nameChars = CharBuffer.wrap(this.name);
+        private int nameLength = 0;
+        private long position = 0;
+
+        /**
+         * Open classes escape codes and escape codes resolved by snapshot marker indexes
+         */
+        private char[][] classes = new char[8][];
+        private int depth = 0;
+        private final char[][] codes = new char[this.snapshot.size()][];
+
+        Session(final Writer out) {
+            this.out = out;
+        }
+
+        long parse(final Reader in) throws IOException {
+            int length;
+            while ((length = in.read(this.buffer, 0, this.buffer.length)) >= 0) {
+                parse(this.buffer, length);
+                this.position += length;
+            }
+            if (this.state == STATE_ESCAPE) {
+                // trailing escape symbol escapes nothing and is kept
+                append(ESCAPE, 0, 1);
+            } else if (this.state == STATE_NAME) {
+                openClass();
+            }
+            if (this.depth > 0) {
+                this.depth = 0;
+                append(RESET_CODE, 0, RESET_CODE.length);
+            }
+            flushOutput();
+            this.out.flush();
+            return this.position;
+        }
+
+        private void parse(final char[] buf, int length) throws IOException {
+            int i = 0;
+            if (this.state == STATE_ESCAPE && length > 0) {
+                append(buf, 0, 1);
+                this.state = STATE_TEXT;
+                i = 1;
+            }
+            if (this.state == STATE_NAME) {
+                i = readName(buf, i, length);
+            }
+            int start = i;
+            while (i < length) {
+                final char c = buf[i];
+                if (c == DEFAULT_CHAR_ESCAPE_SYMBOL) {
+                    append(buf, start, i);
+                    if (i + 1 == length) {
+                        this.state = STATE_ESCAPE;
+                        return;
+                    }
+                    start = i + 1;
+                    i += 2;
+                } else if (c == DEFAULT_CHAR_ESCAPE_CLASS_BEGIN_SYMBOL) {
+                    append(buf, start, i);
+                    this.state = STATE_NAME;
+                    this.nameLength = 0;
+                    i = start = readName(buf, i + 1, length);
+                } else if (c == DEFAULT_CHAR_ESCAPE_CLASS_END_SYMBOL) {
+                    append(buf, start, i);
+                    closeClass(this.position + i);
+                    i = start = i + 1;
+                } else {
+                    i++;
+                }
+            }
+            append(buf, start, length);
+        }
+
+        /**
+         * Returns index following the class name part of input range, the class is opened if its name ends there
+         */
+        private int readName(final char[] buf, int from, int length) throws IOException {
+            int i = from;
+            while (i < length && !MarkerProcessor.isNameEnd(buf[i])) {
+                if (this.nameLength == this.name.length) {
+                    throw ParserException.throwUnknownClass(new String(this.name, 0, this.nameLength) + buf[i] + "...");
+                }
+                this.name[this.nameLength++] = buf[i++];
+            }
+            if (i == length) {
+                return i;
+            }
+            openClass();
+            return buf[i] == DEFAULT_CHAR_ESCAPE_CLASS_NAME_END_SYMBOL ? i + 1 : i;
+        }
+
+        private void openClass() throws IOException {
+            final char[] code = getCode();
+            this.state = STATE_TEXT;
+            if (this.depth == this.classes.length) {
+                this.classes = Arrays.copyOf(this.classes, this.depth * 2);
+            }
+            this.classes[this.depth++] = code;
+            append(code, 0, code.length);
+        }
+
+        private void closeClass(long index) throws IOException {
+            if (this.depth == 0) {
+                throw ParserException.throwInvalidBracket(index);
+            }
+            this.classes[--this.depth] = null;
+            append(RESET_CODE, 0, RESET_CODE.length);
+            for (int i = 0; i < this.depth; i++) {
+                append(this.classes[i], 0, this.classes[i].length);
+            }
+        }
+
+        /**
+         * Returns escape codes of the current class name resolved once per document
+         */
+        private char[] getCode() {
+            final int index = this.snapshot.indexOf(this.nameChars, 0, this.nameLength);
+            if (index < 0) {
+                throw ParserException.throwUnknownClass(new String(this.name, 0, this.nameLength));
+            }
+            if (Objects.isNull(this.codes[index])) {
+                this.codes[index] = this.snapshot.getCode(index).toCharArray();
+            }
+            return this.codes[index];
+        }
+
+        private void append(final char[] buf, int from, int to) throws IOException {
+            final int length = to - from;
+            if (length <= 0) {
+                return;
+            }
+            if (this.outputSize + length > this.output.length) {
+                flushOutput();
+                if (length > this.output.length) {
+                    this.out.write(buf, from, length);
+                    return;
+                }
+            }
+            System.arraycopy(buf, from, this.output, this.outputSize, length);
+            this.outputSize += length;
+        }
+
+        private void flushOutput() throws IOException {
+            if (this.outputSize > 0) {
+                this.out.write(this.output, 0, this.outputSize);
+                this.outputSize = 0;
+            }
+        }
+    }
+
+    private static int maxNameLength(final FrozenConfiguration snapshot) {
+        int length = 0;
+        for (final CharSequence name : snapshot.getMarkerNames()) {
+            length = Math.max(length, name.length());
+        }
+        return length;
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 SensibleMetrics Labs, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.sensiblemetrics.ansifancy.parser.impl;
+
+import com.sensiblemetrics.ansifancy.config.iface.ConfigurationIF;
+import com.sensiblemetrics.ansifancy.config.impl.Configuration;
+import com.sensiblemetrics.ansifancy.config.impl.FrozenConfiguration;
+import com.sensiblemetrics.ansifancy.exception.ParserException;
+import com.sensiblemetrics.ansifancy.model.iface.MarkerIF;
+import com.sensiblemetrics.ansifancy.processor.impl.MarkerProcessor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable markup program compiled from a markup source: text runs interleaved with escape codes
+ * of {@link ConfigurationIF} markers pre-rendered for every class begin (marker codes) and class end
+ * (reset followed by codes of enclosing classes). Class names are resolved once at compile time, so rendering
+ * is a copy of the pre-rendered chars / UTF-8 bytes. Classes left open at the end of the source are reset
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+public final class MarkupTemplate implements CharSequence {
+
+    /**
+     * Default segment kinds
+     */
+    public static final int SEGMENT_TEXT = 0;
+    public static final int SEGMENT_CLASS_BEGIN = 1;
+    public static final int SEGMENT_CLASS_END = 2;
+    private static final MarkerProcessor<CharSequence> LEXER = new MarkerProcessor<>();
+
+    private final String source;
+    /**
+     * Rendered program and (kind, start, end) triples of its segments
+     */
+    private final String text;
+    private final int[] segments;
+    private final byte[] bytes;
+
+    private MarkupTemplate(final String source, final String text, final int[] segments) {
+        this.source = source;
+        this.text = text;
+        this.segments = segments;
+        this.bytes = text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns {@link MarkupTemplate} compiled by input markup source and {@link ConfigurationIF} markers
+     *
+     * @param source        - initial input markup source {@link CharSequence}
+     * @param configuration - initial input {@link ConfigurationIF}
+     * @return compiled {@link MarkupTemplate}
+     * @throws ParserException if source contains unknown class or unbalanced class end
+     */
+    public static MarkupTemplate compile(final CharSequence source, final ConfigurationIF configuration) {
+        Objects.requireNonNull(source, "Source should not be null");
+        Objects.requireNonNull(configuration, "Configuration should not be null");
+
+        final MarkerProcessor.Tokens tokens = LEXER.tokenize(source, new MarkerProcessor.Tokens());
+        final StringBuilder text = new StringBuilder(source.length() + 16);
+        final int[] segments = new int[tokens.size() * 3 + 3];
+        final int size = render(source, configuration, tokens, text, segments);
+        return new MarkupTemplate(source.toString(), text.toString(), Arrays.copyOf(segments, size));
+    }
+
+    /**
+     * Renders input source into {@link StringBuilder} without compiling a template
+     * (used by batch renderers reusing the tokens and the buffer)
+     *
+     * @throws ParserException if source contains unknown class or unbalanced class end
+     */
+    static StringBuilder render(final CharSequence source, final ConfigurationIF configuration, final MarkerProcessor.Tokens tokens, final StringBuilder text) {
+        render(source, configuration, LEXER.tokenize(source, tokens), text, null);
+        return text;
+    }
+
+    /**
+     * Renders input tokens into {@link StringBuilder} and returns number of filled (kind, start, end) segment
+     * values, segments are skipped if input array is {@code null}. Class names are resolved by the sorted index
+     * of {@link FrozenConfiguration} snapshot if it is available, so one source is rendered by one snapshot
+     */
+    private static int render(final CharSequence source, final ConfigurationIF configuration, final MarkerProcessor.Tokens tokens, final StringBuilder text, final int[] segments) {
+        final FrozenConfiguration snapshot = configuration instanceof FrozenConfiguration || configuration instanceof Configuration
+            ? FrozenConfiguration.of(configuration) : null;
+        final Map<String, String> codes = Objects.isNull(snapshot) ? new HashMap<>() : null;
+        final int offset = text.length();
+        String[] classes = null;
+        int size = 0;
+        int depth = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            final int start = text.length();
+            final int kind;
+            if (tokens.kind(i) == MarkerProcessor.TOKEN_TEXT) {
+                kind = SEGMENT_TEXT;
+                text.append(source, tokens.start(i), tokens.end(i));
+            } else if (tokens.kind(i) == MarkerProcessor.TOKEN_CLASS_BEGIN) {
+                kind = SEGMENT_CLASS_BEGIN;
+                if (Objects.isNull(classes)) {
+                    classes = new String[tokens.size()];
+                }
+                if (Objects.nonNull(snapshot)) {
+                    final int index = snapshot.indexOf(source, tokens.start(i), tokens.end(i));
+                    if (index < 0) {
+                        throw ParserException.throwUnknownClass(source.subSequence(tokens.start(i), tokens.end(i)).toString());
+                    }
+                    classes[depth] = snapshot.getCode(index);
+                } else {
+                    final String name = source.subSequence(tokens.start(i), tokens.end(i)).toString();
+                    classes[depth] = codes.computeIfAbsent(name, key -> getCode(configuration, key));
+                }
+                text.append(classes[depth++]);
+            } else {
+                if (depth == 0) {
+                    throw ParserException.throwInvalidBracket(tokens.start(i));
+                }
+                kind = SEGMENT_CLASS_END;
+                classes[--depth] = null;
+                appendEnd(text, classes, depth);
+            }
+            if (Objects.isNull(segments)) {
+                continue;
+            }
+            if (kind == SEGMENT_TEXT && size > 0 && segments[size - 3] == SEGMENT_TEXT) {
+                // text runs split by escape symbols are joined
+                segments[size - 1] = text.length() - offset;
+            } else if (text.length() > start) {
+                segments[size++] = kind;
+                segments[size++] = start - offset;
+                segments[size++] = text.length() - offset;
+            }
+        }
+        if (depth > 0) {
+            final int start = text.length();
+            appendEnd(text, classes, 0);
+            if (Objects.nonNull(segments)) {
+                segments[size++] = SEGMENT_CLASS_END;
+                segments[size++] = start - offset;
+                segments[size++] = text.length() - offset;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns escape codes of the {@link ConfigurationIF} marker named by input name
+     *
+     * @throws ParserException if there is no such marker
+     */
+    static String getCode(final ConfigurationIF configuration, final String name) {
+        final MarkerIF<?> marker = configuration.get(name);
+        if (Objects.isNull(marker)) {
+            throw ParserException.throwUnknownClass(name);
+        }
+        return FrozenConfiguration.getCode(marker);
+    }
+
+    private static void appendEnd(final StringBuilder text, final String[] classes, int depth) {
+        text.append(MarkerProcessor.RESET_CODE);
+        for (int i = 0; i < depth; i++) {
+            text.append(classes[i]);
+        }
+    }
+
+    /**
+     * Returns markup source {@link String}
+     *
+     * @return markup source {@link String}
+     */
+    public String getSource() {
+        return this.source;
+    }
+
+    /**
+     * Returns number of segments
+     *
+     * @return number of segments
+     */
+    public int size() {
+        return this.segments.length / 3;
+    }
+
+    /**
+     * Returns kind of the segment at input index
+     *
+     * @param index - initial input segment index
+     * @return segment kind
+     */
+    public int kind(int index) {
+        return this.segments[Objects.checkIndex(index, size()) * 3];
+    }
+
+    /**
+     * Returns rendered program start index of the segment at input index
+     *
+     * @param index - initial input segment index
+     * @return segment start index
+     */
+    public int start(int index) {
+        return this.segments[Objects.checkIndex(index, size()) * 3 + 1];
+    }
+
+    /**
+     * Returns rendered program end index (exclusive) of the segment at input index
+     *
+     * @param index - initial input segment index
+     * @return segment end index
+     */
+    public int end(int index) {
+        return this.segments[Objects.checkIndex(index, size()) * 3 + 2];
+    }
+
+    /**
+     * Returns input {@link StringBuilder} with appended rendered program
+     *
+     * @param buffer - initial input {@link StringBuilder}
+     * @return input {@link StringBuilder}
+     */
+    public StringBuilder appendTo(final StringBuilder buffer) {
+        return buffer.append(this.text);
+    }
+
+    /**
+     * Returns input {@link Appendable} with appended rendered program
+     *
+     * @param out - initial input {@link Appendable}
+     * @param <A> type of appendable
+     * @return input {@link Appendable}
+     * @throws IOException IOException
+     */
+    public <A extends Appendable> A appendTo(final A out) throws IOException {
+        out.append(this.text);
+        return out;
+    }
+
+    /**
+     * Writes UTF-8 encoded rendered program into input {@link OutputStream}
+     *
+     * @param out - initial input {@link OutputStream}
+     * @throws IOException IOException
+     */
+    public void writeTo(final OutputStream out) throws IOException {
+        out.write(this.bytes);
+    }
+
+    /**
+     * Returns input {@link ByteBuffer} with put UTF-8 encoded rendered program
+     *
+     * @param buffer - initial input {@link ByteBuffer}
+     * @return input {@link ByteBuffer}
+     */
+    public ByteBuffer writeTo(final ByteBuffer buffer) {
+        return buffer.put(this.bytes);
+    }
+
+    /**
+     * Returns number of UTF-8 encoded rendered program bytes
+     *
+     * @return number of bytes
+     */
+    public int byteLength() {
+        return this.bytes.length;
+    }
+
+    @Override
+    public int length() {
+        return this.text.length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return this.text.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return this.text.subSequence(start, end);
+    }
+
+    /**
+     * Returns rendered program {@link String}
+     *
+     * @return rendered program {@link String}
+     */
+    @Override
+    public String toString() {
+        return this.text;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 SensibleMetrics Labs, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.sensiblemetrics.ansifancy.parser.impl;
+
+import com.sensiblemetrics.ansifancy.config.iface.ConfigurationIF;
+import com.sensiblemetrics.ansifancy.config.impl.FrozenConfiguration;
+import com.sensiblemetrics.ansifancy.exception.ParserException;
+import com.sensiblemetrics.ansifancy.processor.impl.MarkerProcessor;
+import com.sensiblemetrics.ansifancy.utils.ValidationUtils;
+import lombok.experimental.UtilityClass;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parallel markup batch renderer: sources are rendered by {@link MarkupTemplate} rules on a {@link ForkJoinPool}
+ * in ranges of at least the batch size, every range reusing its tokens and buffer, against one
+ * {@link FrozenConfiguration} snapshot taken at the start, so markers added during rendering do not affect the batch.
+ * Results are returned in the source order
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+@UtilityClass
+public class ParallelMarkupRenderer {
+
+    /**
+     * Default minimum number of sources rendered by one task
+     */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    /**
+     * Returns rendered sources in the source order by common {@link ForkJoinPool}
+     *
+     * @param sources       - initial input {@link List} of markup sources
+     * @param configuration - initial input {@link ConfigurationIF}
+     * @return {@link List} of rendered sources
+     * @throws ParserException if any source contains unknown class or unbalanced class end
+     */
+    public static List<String> render(final List<? extends CharSequence> sources, final ConfigurationIF configuration) {
+        return render(sources, configuration, ForkJoinPool.commonPool(), DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Returns rendered sources in the source order by input {@link ForkJoinPool} and batch size
+     *
+     * @param sources       - initial input {@link List} of markup sources
+     * @param configuration - initial input {@link ConfigurationIF}
+     * @param pool          - initial input {@link ForkJoinPool}
+     * @param batchSize     - initial input minimum number of sources rendered by one task
+     * @return {@link List} of rendered sources
+     * @throws ParserException if any source contains unknown class or unbalanced class end
+     */
+    public static List<String> render(final List<? extends CharSequence> sources, final ConfigurationIF configuration, final ForkJoinPool pool, int batchSize) {
+        Objects.requireNonNull(sources, "Sources should not be null");
+        Objects.requireNonNull(configuration, "Configuration should not be null");
+        Objects.requireNonNull(pool, "Pool should not be null");
+        ValidationUtils.isTrue(batchSize > 0, "Batch size should be positive");
+
+        final CharSequence[] source = sources.toArray(new CharSequence[0]);
+        final String[] result = new String[source.length];
+        if (source.length > 0) {
+            try {
+                pool.invoke(new RenderTask(source, result, 0, source.length, FrozenConfiguration.of(configuration), batchSize));
+            } catch (ParserException e) {
+                // exceptions thrown by pool workers are rethrown wrapped into the same type
+                throw e.getCause() instanceof ParserException ? (ParserException) e.getCause() : e;
+            }
+        }
+        return Collections.unmodifiableList(Arrays.asList(result));
+    }
+
+    /**
+     * Range rendering task splitting its range in halves down to the batch size
+     */
+    private static final class RenderTask extends RecursiveAction {
+
+        /**
+         * Default explicit serialVersionUID for interoperability
+         */
+        private static final long serialVersionUID = 3267640995178747240L;
+
+        private final CharSequence[] source;
+        private final String[] result;
+        private final int from;
+        private final int to;
+        private final FrozenConfiguration snapshot;
+        private final int batchSize;
+
+        RenderTask(final CharSequence[] source, final String[] result, int from, int to, final FrozenConfiguration snapshot, int batchSize) {
+            this.source = source;
+            this.result = result;
+            this.from = from;
+            this.to = to;
+            this.snapshot = snapshot;
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > batchSize) {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new RenderTask(source, result, from, middle, snapshot, batchSize),
+                    new RenderTask(source, result, middle, to, snapshot, batchSize));
+                return;
+            }
+            final MarkerProcessor.Tokens tokens = new MarkerProcessor.Tokens();
+            final StringBuilder buffer = new StringBuilder();
+            for (int i = from; i < to; i++) {
+                Objects.requireNonNull(source[i], "Source should not be null");
+                buffer.setLength(0);
+                result[i] = MarkupTemplate.render(source[i], snapshot, tokens, buffer).toString();
+            }
+        }
+    }
+}
@@ -24,14 +24,24 @@
 package com.sensiblemetrics.ansifancy.processor.impl;
 
 import com.sensiblemetrics.ansifancy.model.iface.MarkerIF;
+import com.sensiblemetrics.ansifancy.model.impl.Marker;
+import com.sensiblemetrics.ansifancy.model.impl.MetaData;
+import com.sensiblemetrics.ansifancy.model.impl.Position;
 import com.sensiblemetrics.ansifancy.processor.iface.ProcessorIF;
 import lombok.NoArgsConstructor;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
+
+import static com.sensiblemetrics.ansifancy.parser.impl.CharSequenceParser.*;
 
 /**
- * {@link MarkerIF} {@link ProcessorIF} implementation
+ * {@link MarkerIF} {@link ProcessorIF} implementation: markup is split by a single-pass lexer into
+ * {@link Tokens} of text runs, escape class begins (<code>&#123;name </code>) and escape class ends (<code>&#125;</code>),
+ * which refer to the source by offsets instead of copying it. Class name ends at a space (which is skipped)
+ * or at a markup symbol, and escape symbol makes the next character part of a text run
  *
  * @param <T> type of element to be parsed
  * @author Alexander Rogalskiy
@@ -41,51 +51,193 @@ import java.util.List;
 public class MarkerProcessor<T> implements ProcessorIF<T, MarkerIF> {
 
     /**
-     * Returns {@link Iterable} collection of processed values {@link MarkerIF} by input argument value {@code T}
+     * Default token kinds
+     */
+    public static final int TOKEN_TEXT = 0;
+    public static final int TOKEN_CLASS_BEGIN = 1;
+    public static final int TOKEN_CLASS_END = 2;
+    /**
+     * Default escape class name end symbol
+     */
+    public static final char DEFAULT_CHAR_ESCAPE_CLASS_NAME_END_SYMBOL = ' ';
+    /**
+     * Default reset code appended by markup renderers at escape class ends
+     */
+    public static final String RESET_CODE = "\u001b[0m";
+    private static final long MARKUP_MASK = 1L << (DEFAULT_CHAR_ESCAPE_SYMBOL & 0x3F)
+        | 1L << (DEFAULT_CHAR_ESCAPE_CLASS_BEGIN_SYMBOL & 0x3F)
+        | 1L << (DEFAULT_CHAR_ESCAPE_CLASS_END_SYMBOL & 0x3F);
+
+    /**
+     * Returns {@link Iterable} collection of processed values {@link MarkerIF} by input argument value {@code T}:
+     * escape class begin markers positioned at the class name offset
      *
      * @param value - initial input argument value {@code T}
      * @return {@link Iterable} collection of processed values {@link MarkerIF}
      */
     @Override
     public <R extends Iterable<? extends MarkerIF>> R process(final T value) {
-        final List<MarkerIF> tokens = new LinkedList<>();
-//        int i = 0;
-//        char now;
-//        final StringBuilder freeText = new StringBuilder();
-//        while (i < source.length()) {
-//            now = source.charAt(i);
-//            // Escape char detected - ignoring next character
-//            if (now == CHR_ESCAPE) {
-//                freeText.append(source.charAt(i + 1));
-//                i++;
-//            } else if (now == CHR_ESCAPE_CLASS_BEGIN) {
-//                // This is where we exit from potential FreeText so everything we collected
-//                // so far is going to be added in the final list of tokens
-//                appendExistingFreeText(tokens, freeText, i);
-//                // We obtain the ascii escape class name
-//                String escapeClassName = ParserUtils.getUntilSpaceOrEnd(source, i + 1);
-//                tokens.ADD(new EscapeClassBegin(i, escapeClassName));
-//                // We skip to the character where the class name ends.
-//                i += escapeClassName.length() + 1;
-//            } else if (now == CHR_ESCAPE_CLASS_END) {
-//                // This is where we exit from potential FreeText so everything we collected
-//                // so far is going to be added in the final list of tokens
-//                appendExistingFreeText(tokens, freeText, i);
-//                tokens.ADD(new EscapeClassEnd(i));
-//            } else {
-//                freeText.append(now);
-//            }
-//            i++;
-//        }
-//        // If there was anything in the freetext buffer we ADD it to the list of tokens
-//        appendExistingFreeText(tokens, freeText, i);
-        return (R) tokens;
+        final CharSequence source = value instanceof CharSequence ? (CharSequence) value : String.valueOf(value);
+        final Tokens tokens = tokenize(source, new Tokens());
+        final List<MarkerIF> markers = new ArrayList<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.kind(i) == TOKEN_CLASS_BEGIN) {
+                final String name = source.subSequence(tokens.start(i), tokens.end(i)).toString();
+                markers.add(Marker.create(Position.create(0, tokens.start(i)), MetaData.create(name, name)));
+            }
+        }
+        return (R) markers;
+    }
+
+    /**
+     * Returns input {@link Tokens} filled by markup tokens of input source
+     *
+     * @param source - initial input source {@link CharSequence}
+     * @param tokens - initial input {@link Tokens} to reuse
+     * @return input {@link Tokens}
+     */
+    public Tokens tokenize(final CharSequence source, final Tokens tokens) {
+        Objects.requireNonNull(source, "Source should not be null");
+        Objects.requireNonNull(tokens, "Tokens should not be null");
+
+        tokens.clear();
+        final int length = source.length();
+        int start = 0;
+        int i = 0;
+        while (i < length) {
+            char c = source.charAt(i);
+            while (!isMarkup(c) && ++i < length) {
+                c = source.charAt(i);
+            }
+            if (i == length) {
+                break;
+            }
+            if (c == DEFAULT_CHAR_ESCAPE_SYMBOL) {
+                if (i + 1 < length) {
+                    // escaped character starts the next text run
+                    tokens.add(TOKEN_TEXT, start, i);
+                    start = i + 1;
+                }
+                i += 2;
+            } else if (c == DEFAULT_CHAR_ESCAPE_CLASS_BEGIN_SYMBOL) {
+                tokens.add(TOKEN_TEXT, start, i);
+                int nameEnd = i + 1;
+                while (nameEnd < length && !isNameEnd(source.charAt(nameEnd))) {
+                    nameEnd++;
+                }
+                tokens.add(TOKEN_CLASS_BEGIN, i + 1, nameEnd);
+                i = start = nameEnd < length && source.charAt(nameEnd) == DEFAULT_CHAR_ESCAPE_CLASS_NAME_END_SYMBOL ? nameEnd + 1 : nameEnd;
+            } else {
+                tokens.add(TOKEN_TEXT, start, i);
+                tokens.add(TOKEN_CLASS_END, i, i + 1);
+                i = start = i + 1;
+            }
+        }
+        tokens.add(TOKEN_TEXT, start, length);
+        return tokens;
     }
 
-//    public void appendExistingFreeText(final List<MarkerIF> tokens, StringBuilder freeTextBuff, int idx) {
-//        if (freeTextBuff.length() != 0) {
-//            tokens.ADD(new FreeText(idx, freeTextBuff.toString()));
-//            freeTextBuff.setLength(0);
-//        }
-//    }
+    /**
+     * Returns binary flag whether input character is a markup symbol (escape, escape class begin or end)
+     *
+     * @param c - initial input character
+     * @return true - if character is a markup symbol, false - otherwise
+     */
+    public static boolean isMarkup(char c) {
+        // all markup symbols are in the 0x40-0x7F block
+        return (c & ~0x3F) == 0x40 && (MARKUP_MASK >>> (c & 0x3F) & 1L) != 0;
+    }
+
+    /**
+     * Returns binary flag whether input character ends an escape class name (name end or markup symbol)
+     *
+     * @param c - initial input character
+     * @return true - if character ends a class name, false - otherwise
+     */
+    public static boolean isNameEnd(char c) {
+        return c == DEFAULT_CHAR_ESCAPE_CLASS_NAME_END_SYMBOL || isMarkup(c);
+    }
+
+    /**
+     * Reusable markup tokens buffer of (kind, start, end) triples,
+     * where start and end are offsets of the token text in the source
+     */
+    public static final class Tokens {
+
+        private int[] data = new int[48];
+        private int size = 0;
+
+        /**
+         * Returns number of tokens
+         *
+         * @return number of tokens
+         */
+        public int size() {
+            return this.size;
+        }
+
+        /**
+         * Returns kind of the token by index
+         *
+         * @param index - initial input token index
+         * @return token kind
+         */
+        public int kind(int index) {
+            return this.data[checkIndex(index) * 3];
+        }
+
+        /**
+         * Returns source start offset (inclusive) of the token by index
+         *
+         * @param index - initial input token index
+         * @return token start offset
+         */
+        public int start(int index) {
+            return this.data[checkIndex(index) * 3 + 1];
+        }
+
+        /**
+         * Returns source end offset (exclusive) of the token by index
+         *
+         * @param index - initial input token index
+         * @return token end offset
+         */
+        public int end(int index) {
+            return this.data[checkIndex(index) * 3 + 2];
+        }
+
+        /**
+         * Removes all tokens
+         */
+        public void clear() {
+            this.size = 0;
+        }
+
+        /**
+         * Adds token, skipping empty text runs and merging adjacent ones
+         */
+        void add(int kind, int start, int end) {
+            if (kind == TOKEN_TEXT) {
+                if (start >= end) {
+                    return;
+                }
+                final int last = (this.size - 1) * 3;
+                if (this.size > 0 && this.data[last] == TOKEN_TEXT && this.data[last + 2] == start) {
+                    this.data[last + 2] = end;
+                    return;
+                }
+            }
+            if ((this.size + 1) * 3 > this.data.length) {
+                this.data = Arrays.copyOf(this.data, this.data.length * 2);
+            }
+            final int offset = this.size++ * 3;
+            this.data[offset] = kind;
+            this.data[offset + 1] = start;
+            this.data[offset + 2] = end;
+        }
+
+        private int checkIndex(int index) {
+            return Objects.checkIndex(index, this.size);
+        }
+    }
 }
@@ -0,0 +1,362 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 SensibleMetrics Labs, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.sensiblemetrics.ansifancy.stream;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Objects;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Asynchronous batched output stream backed by a bounded ring buffer: callers only copy bytes in,
+ * while a background flusher coalesces them into large chunks written to the underlying (slow) stream.
+ * Intended to be wrapped by {@link FancyOutputStream} to take terminal I/O latency off caller threads:
+ * <pre>
+ *     new FancyOutputStream(new AsyncOutputStream(System.out, 1 &lt;&lt; 16, OverflowPolicy.BLOCK))
+ * </pre>
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+public class AsyncOutputStream extends OutputStream {
+
+    /**
+     * Default overflow policy enumeration
+     */
+    public enum OverflowPolicy {
+        /**
+         * Block caller until the flusher frees enough space
+         */
+        BLOCK,
+        /**
+         * Discard oldest buffered bytes to make room for the new ones
+         */
+        DROP_OLDEST,
+        /**
+         * Discard new bytes that do not fit into the buffer
+         */
+        DROP_NEWEST
+    }
+
+    /**
+     * Default ring buffer capacity
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    /**
+     * Default flusher chunk size
+     */
+    private static final int DEFAULT_CHUNK_SIZE = 1 << 13;
+
+    private final OutputStream out;
+    private final OverflowPolicy policy;
+    private final byte[] ring;
+    private final byte[] chunk;
+    private final Thread flusher;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+
+    /**
+     * Total number of bytes consumed from the ring buffer (written or dropped)
+     */
+    private long headPosition = 0;
+    /**
+     * Total number of bytes put into the ring buffer
+     */
+    private long tailPosition = 0;
+    /**
+     * Position up to which the underlying stream has been written and flushed
+     */
+    private long flushedPosition = 0;
+    /**
+     * Position up to which flush has been requested
+     */
+    private long flushRequestPosition = 0;
+    private long droppedCount = 0;
+    private boolean closed = false;
+    private IOException failure;
+
+    public AsyncOutputStream(final OutputStream out) {
+        this(out, DEFAULT_CAPACITY, OverflowPolicy.BLOCK);
+    }
+
+    public AsyncOutputStream(final OutputStream out, int capacity, final OverflowPolicy policy) {
+        Objects.requireNonNull(out, "Output stream should not be null");
+        Objects.requireNonNull(policy, "Overflow policy should not be null");
+        if (capacity <= 0) {
+            throw new IllegalArgumentException(String.format("ERROR: invalid capacity={%s}, should be positive", capacity));
+        }
+        this.out = out;
+        this.policy = policy;
+        this.ring = new byte[capacity];
+        this.chunk = new byte[Math.min(capacity, DEFAULT_CHUNK_SIZE)];
+        this.flusher = new Thread(this::run, "fancy-output-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    @Override
+    public void write(int data) throws IOException {
+        lock.lock();
+        try {
+            ensureOpen();
+            while (tailPosition - headPosition == ring.length) {
+                if (policy == OverflowPolicy.DROP_NEWEST) {
+                    droppedCount++;
+                    return;
+                } else if (policy == OverflowPolicy.DROP_OLDEST) {
+                    headPosition++;
+                    droppedCount++;
+                } else {
+                    await(notFull);
+                    ensureOpen();
+                }
+            }
+            ring[(int) (tailPosition % ring.length)] = (byte) data;
+            tailPosition++;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void write(final byte[] data, int offset, int length) throws IOException {
+        Objects.checkFromIndexSize(offset, length, data.length);
+        lock.lock();
+        try {
+            ensureOpen();
+            if (policy == OverflowPolicy.DROP_OLDEST && length > ring.length) {
+                droppedCount += length - ring.length;
+                offset += length - ring.length;
+                length = ring.length;
+            }
+            while (length > 0) {
+                int space = ring.length - (int) (tailPosition - headPosition);
+                if (space == 0 || (policy == OverflowPolicy.DROP_OLDEST && space < length)) {
+                    if (policy == OverflowPolicy.DROP_NEWEST) {
+                        droppedCount += length;
+                        return;
+                    } else if (policy == OverflowPolicy.DROP_OLDEST) {
+                        final int discard = length - space;
+                        headPosition += discard;
+                        droppedCount += discard;
+                        space += discard;
+                    } else {
+                        await(notFull);
+                        ensureOpen();
+                        continue;
+                    }
+                }
+                final int count = Math.min(space, length);
+                put(data, offset, count);
+                offset += count;
+                length -= count;
+                notEmpty.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until all bytes written so far are written and flushed to the underlying stream
+     *
+     * @throws IOException IOException
+     */
+    @Override
+    public void flush() throws IOException {
+        lock.lock();
+        try {
+            ensureOpen();
+            final long ticket = tailPosition;
+            flushRequestPosition = Math.max(flushRequestPosition, ticket);
+            notEmpty.signal();
+            while (flushedPosition < ticket && failure == null) {
+                await(flushed);
+            }
+            checkFailure();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drains buffered bytes to the underlying stream, stops the flusher and closes the underlying stream
+     *
+     * @throws IOException IOException
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notEmpty.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while draining output");
+        }
+        out.close();
+        lock.lock();
+        try {
+            checkFailure();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns number of bytes dropped by the overflow policy
+     *
+     * @return number of dropped bytes
+     */
+    public long getDroppedCount() {
+        lock.lock();
+        try {
+            return droppedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns number of bytes currently buffered
+     *
+     * @return number of buffered bytes
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return (int) (tailPosition - headPosition);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void put(final byte[] data, int offset, int length) {
+        final int tail = (int) (tailPosition % ring.length);
+        final int first = Math.min(length, ring.length - tail);
+        System.arraycopy(data, offset, ring, tail, first);
+        System.arraycopy(data, offset + first, ring, 0, length - first);
+        tailPosition += length;
+    }
+
+    private int take() {
+        final int length = (int) Math.min(tailPosition - headPosition, chunk.length);
+        final int head = (int) (headPosition % ring.length);
+        final int first = Math.min(length, ring.length - head);
+        System.arraycopy(ring, head, chunk, 0, first);
+        System.arraycopy(ring, 0, chunk, first, length - first);
+        headPosition += length;
+        return length;
+    }
+
+    private void run() {
+        while (true) {
+            final int length;
+            final long position;
+            final boolean flush;
+            final boolean failed;
+            lock.lock();
+            try {
+                while (tailPosition == headPosition && !closed && flushRequestPosition <= flushedPosition) {
+                    notEmpty.awaitUninterruptibly();
+                }
+                if (tailPosition == headPosition && closed) {
+                    flushedPosition = headPosition;
+                    flushed.signalAll();
+                    return;
+                }
+                length = take();
+                position = headPosition;
+                flush = tailPosition == headPosition || flushRequestPosition > flushedPosition;
+                failed = failure != null;
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            if (failed) {
+                continue;
+            }
+            IOException error = null;
+            try {
+                if (length > 0) {
+                    out.write(chunk, 0, length);
+                }
+                if (flush) {
+                    out.flush();
+                }
+            } catch (IOException e) {
+                error = e;
+            }
+            lock.lock();
+            try {
+                if (error != null && failure == null) {
+                    failure = error;
+                }
+                if (flush || error != null) {
+                    flushedPosition = error != null ? Long.MAX_VALUE : position;
+                    flushed.signalAll();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void await(final Condition condition) throws IOException {
+        try {
+            condition.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for buffer space");
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        checkFailure();
+    }
+
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("Failed to write to the underlying stream", failure);
+        }
+    }
+}
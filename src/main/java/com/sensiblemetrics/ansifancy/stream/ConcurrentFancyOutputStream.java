@@ -0,0 +1,342 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 SensibleMetrics Labs, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.sensiblemetrics.ansifancy.stream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Concurrent fancy output stream front end for {@link FancyOutputStream}: each writer thread owns its own
+ * parser state and line buffer, complete translated lines are handed off through a lock-free queue
+ * and written to the underlying stream by a single drain thread, so escape sequences
+ * of different threads never interleave. Buffers of writer threads that have terminated are
+ * handed off and released by the drain thread, so thread pools with churn do not accumulate them
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+public class ConcurrentFancyOutputStream extends OutputStream {
+
+    /**
+     * Default maximum line length buffered before forced hand off
+     */
+    public static final int DEFAULT_MAX_LINE_LENGTH = 8192;
+    /**
+     * Default drain thread idle park interval
+     */
+    private static final long DEFAULT_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final OutputStream out;
+    private final Function<OutputStream, ? extends FancyOutputStream> factory;
+    private final int maxLineLength;
+
+    private final Queue<byte[]> queue = new ConcurrentLinkedQueue<>();
+    private final Set<LineBuffer> buffers = ConcurrentHashMap.newKeySet();
+    private final ThreadLocal<LineBuffer> localBuffer = ThreadLocal.withInitial(this::createBuffer);
+    private final Thread drainThread;
+
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    private final AtomicLong enqueuedCount = new AtomicLong();
+    private final AtomicLong contendedCount = new AtomicLong();
+    private volatile long flushedCount = 0;
+    private volatile boolean closed = false;
+    private volatile IOException failure;
+
+    public ConcurrentFancyOutputStream(final OutputStream out) {
+        this(out, FancyOutputStream::new, DEFAULT_MAX_LINE_LENGTH);
+    }
+
+    public ConcurrentFancyOutputStream(final OutputStream out, final Function<OutputStream, ? extends FancyOutputStream> factory) {
+        this(out, factory, DEFAULT_MAX_LINE_LENGTH);
+    }
+
+    public ConcurrentFancyOutputStream(final OutputStream out, final Function<OutputStream, ? extends FancyOutputStream> factory, int maxLineLength) {
+        Objects.requireNonNull(out, "Output stream should not be null");
+        Objects.requireNonNull(factory, "Stream factory should not be null");
+        if (maxLineLength <= 0) {
+            throw new IllegalArgumentException(String.format("ERROR: invalid max line length={%s}, should be positive", maxLineLength));
+        }
+        this.out = out;
+        this.factory = factory;
+        this.maxLineLength = maxLineLength;
+        this.drainThread = new Thread(this::drain, "fancy-output-drain");
+        this.drainThread.setDaemon(true);
+        this.drainThread.start();
+    }
+
+    @Override
+    public void write(int data) throws IOException {
+        ensureOpen();
+        final LineBuffer buffer = localBuffer.get();
+        synchronized (buffer) {
+            buffer.stream.write(data);
+            if (data == '\n' || buffer.size() >= maxLineLength) {
+                handOff(buffer);
+            }
+        }
+    }
+
+    @Override
+    public void write(final byte[] data, int offset, int length) throws IOException {
+        Objects.checkFromIndexSize(offset, length, data.length);
+        ensureOpen();
+        final LineBuffer buffer = localBuffer.get();
+        synchronized (buffer) {
+            final int end = offset + length;
+            int start = offset;
+            for (int i = offset; i < end; i++) {
+                if (data[i] == '\n') {
+                    buffer.stream.write(data, start, i + 1 - start);
+                    handOff(buffer);
+                    start = i + 1;
+                }
+            }
+            if (end > start) {
+                buffer.stream.write(data, start, end - start);
+                if (buffer.size() >= maxLineLength) {
+                    handOff(buffer);
+                }
+            }
+        }
+    }
+
+    /**
+     * Hands off current thread's partial line and waits until all lines queued so far are written
+     * and the underlying stream is flushed
+     *
+     * @throws IOException IOException
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        final LineBuffer buffer = localBuffer.get();
+        synchronized (buffer) {
+            handOff(buffer);
+        }
+        awaitDrained(enqueuedCount.get());
+    }
+
+    /**
+     * Hands off partial lines of all writer threads, drains the queue and closes the underlying stream.
+     * Writer threads are expected to be quiescent at this point.
+     *
+     * @throws IOException IOException
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        for (final LineBuffer buffer : buffers) {
+            synchronized (buffer) {
+                if (buffers.remove(buffer)) {
+                    buffer.stream.close();
+                    handOff(buffer);
+                }
+            }
+        }
+        closed = true;
+        LockSupport.unpark(drainThread);
+        try {
+            drainThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while draining output", e);
+        }
+        buffers.clear();
+        out.close();
+        checkFailure();
+    }
+
+    /**
+     * Returns current number of lines waiting in the queue
+     *
+     * @return current queue depth
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * Returns maximum observed number of lines waiting in the queue
+     *
+     * @return maximum queue depth
+     */
+    public int getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    /**
+     * Returns total number of lines handed off to the queue
+     *
+     * @return number of handed off lines
+     */
+    public long getLineCount() {
+        return enqueuedCount.get();
+    }
+
+    /**
+     * Returns number of hand offs that found lines of other writers still pending in the queue,
+     * i.e. writes that would have contended on a shared stream monitor
+     *
+     * @return number of contended hand offs
+     */
+    public long getContendedCount() {
+        return contendedCount.get();
+    }
+
+    private LineBuffer createBuffer() {
+        final LineBuffer buffer = new LineBuffer();
+        buffer.stream = factory.apply(buffer);
+        buffer.owner = Thread.currentThread();
+        buffers.add(buffer);
+        return buffer;
+    }
+
+    private void handOff(final LineBuffer buffer) {
+        if (buffer.size() == 0) {
+            return;
+        }
+        final byte[] line = buffer.toByteArray();
+        buffer.reset();
+        final int depth = queueDepth.getAndIncrement();
+        if (depth > 0) {
+            contendedCount.incrementAndGet();
+        }
+        maxQueueDepth.accumulateAndGet(depth + 1, Math::max);
+        queue.offer(line);
+        enqueuedCount.incrementAndGet();
+        LockSupport.unpark(drainThread);
+    }
+
+    private void drain() {
+        long drainedCount = 0;
+        long releasedAt = System.nanoTime();
+        boolean dirty = false;
+        while (true) {
+            final byte[] line = queue.poll();
+            if (line != null) {
+                queueDepth.decrementAndGet();
+                if (failure == null) {
+                    try {
+                        out.write(line);
+                        dirty = true;
+                    } catch (IOException e) {
+                        failure = e;
+                    }
+                }
+                drainedCount++;
+                continue;
+            }
+            if (dirty && failure == null) {
+                try {
+                    out.flush();
+                } catch (IOException e) {
+                    failure = e;
+                }
+                dirty = false;
+            }
+            flushedCount = drainedCount;
+            if (closed && queue.isEmpty()) {
+                return;
+            }
+            if (System.nanoTime() - releasedAt >= DEFAULT_PARK_NANOS) {
+                releasedAt = System.nanoTime();
+                if (releaseTerminated()) {
+                    continue;
+                }
+            }
+            LockSupport.parkNanos(this, DEFAULT_PARK_NANOS);
+        }
+    }
+
+    /**
+     * Finishes and hands off buffers of terminated writer threads and releases them,
+     * returns true if any lines were handed off
+     */
+    private boolean releaseTerminated() {
+        boolean released = false;
+        for (final LineBuffer buffer : buffers) {
+            if (buffer.owner.isAlive()) {
+                continue;
+            }
+            synchronized (buffer) {
+                if (buffers.remove(buffer)) {
+                    try {
+                        buffer.stream.close();
+                    } catch (IOException e) {
+                        failure = e;
+                    }
+                    released |= buffer.size() > 0;
+                    handOff(buffer);
+                }
+            }
+        }
+        return released;
+    }
+
+    private void awaitDrained(long ticket) throws IOException {
+        while (flushedCount < ticket) {
+            checkFailure();
+            LockSupport.unpark(drainThread);
+            LockSupport.parkNanos(DEFAULT_PARK_NANOS / 10);
+        }
+        checkFailure();
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        checkFailure();
+    }
+
+    private void checkFailure() throws IOException {
+        final IOException e = failure;
+        if (e != null) {
+            throw new IOException("Failed to write to the underlying stream", e);
+        }
+    }
+
+    /**
+     * Per-thread translated line buffer
+     */
+    private static final class LineBuffer extends ByteArrayOutputStream {
+
+        private FancyOutputStream stream;
+        private Thread owner;
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 SensibleMetrics Labs, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.sensiblemetrics.ansifancy.stream;
+
+import com.sensiblemetrics.ansifancy.enumeration.ColorCapabilityType;
+import com.sensiblemetrics.ansifancy.utils.ConsoleUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Fancy output stream writer {@link FancyOutputStream} downgrading colors to the target {@link ColorCapabilityType}:
+ * 24-bit ({@code 38;2;r;g;b}) and 256-color ({@code 38;5;n}) SGR parameters are rewritten into the nearest color
+ * supported by the target by precomputed lookup tables (24-bit colors are looked up in a 32x32x32 RGB cube index),
+ * SGR sequences are dropped entirely for {@link ColorCapabilityType#MONO} target, and all other output is written
+ * through as is. Conversion does not allocate per sequence
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+public class DowngradingFancyOutputStream extends PassThroughFancyOutputStream {
+
+    /**
+     * Default RGB cube index bits per channel
+     */
+    private static final int CUBE_BITS = 5;
+    private static final int CUBE_SHIFT = 8 - CUBE_BITS;
+    /**
+     * Default RGB cube index to the nearest 256-color palette index (color cube and grayscale entries only,
+     * since system colors differ between terminals)
+     */
+    private static final byte[] CUBE_TO_256 = new byte[1 << 3 * CUBE_BITS];
+    /**
+     * Default RGB cube index to the nearest system color index
+     */
+    private static final byte[] CUBE_TO_16 = new byte[1 << 3 * CUBE_BITS];
+    /**
+     * Default 256-color palette index to the nearest system color index
+     */
+    private static final byte[] PALETTE_TO_16 = new byte[HtmlFancyOutputStream.PALETTE.length];
+
+    static {
+        final int half = 1 << CUBE_SHIFT - 1;
+        for (int i = 0; i < CUBE_TO_256.length; i++) {
+            final int r = (i >> 2 * CUBE_BITS << CUBE_SHIFT) + half;
+            final int g = ((i >> CUBE_BITS & (1 << CUBE_BITS) - 1) << CUBE_SHIFT) + half;
+            final int b = ((i & (1 << CUBE_BITS) - 1) << CUBE_SHIFT) + half;
+            CUBE_TO_256[i] = (byte) nearest(r, g, b, 16, HtmlFancyOutputStream.PALETTE.length);
+            CUBE_TO_16[i] = (byte) nearest(r, g, b, 0, 16);
+        }
+        for (int i = 0; i < PALETTE_TO_16.length; i++) {
+            final int color = HtmlFancyOutputStream.PALETTE[i];
+            PALETTE_TO_16[i] = (byte) (i < 16 ? i : nearest(color >> 16 & 0xFF, color >> 8 & 0xFF, color & 0xFF, 0, 16));
+        }
+    }
+
+    private final ColorCapabilityType capability;
+
+    private byte[] parameters = new byte[128];
+    private int parametersLength = 0;
+    private boolean graphicRendition = false;
+
+    public DowngradingFancyOutputStream(final OutputStream os) {
+        this(os, ConsoleUtils.getColorCapability());
+    }
+
+    public DowngradingFancyOutputStream(final OutputStream os, final ColorCapabilityType capability) {
+        super(os);
+        this.capability = Objects.requireNonNull(capability, "Color capability should not be null");
+    }
+
+    /**
+     * Returns target {@link ColorCapabilityType}
+     *
+     * @return target {@link ColorCapabilityType}
+     */
+    public ColorCapabilityType getCapability() {
+        return this.capability;
+    }
+
+    /**
+     * Returns the nearest xterm 256-color palette index of input RGB color
+     *
+     * @param r - initial input red component
+     * @param g - initial input green component
+     * @param b - initial input blue component
+     * @return 256-color palette index
+     */
+    public static int toPaletteIndex(int r, int g, int b) {
+        return CUBE_TO_256[cubeIndex(r, g, b)] & 0xFF;
+    }
+
+    /**
+     * Returns the nearest system color index (0-7 normal, 8-15 bright) of input RGB color
+     *
+     * @param r - initial input red component
+     * @param g - initial input green component
+     * @param b - initial input blue component
+     * @return system color index
+     */
+    public static int toSystemIndex(int r, int g, int b) {
+        return CUBE_TO_16[cubeIndex(r, g, b)];
+    }
+
+    /**
+     * Returns the nearest system color index (0-7 normal, 8-15 bright) of input 256-color palette index
+     *
+     * @param paletteIndex - initial input 256-color palette index
+     * @return system color index
+     */
+    public static int toSystemIndex(int paletteIndex) {
+        return PALETTE_TO_16[paletteIndex];
+    }
+
+    @Override
+    void beginSequence() {
+        parametersLength = 0;
+        graphicRendition = false;
+    }
+
+    /**
+     * Writes out completed escape sequence: SGR sequence with rewritten parameters (if any), other ones as is
+     */
+    @Override
+    void finishSequence(final byte[] sequence, int length) throws IOException {
+        if (!graphicRendition || capability == ColorCapabilityType.TRUECOLOR) {
+            this.out.write(sequence, 0, length);
+        } else if (capability != ColorCapabilityType.MONO) {
+            appendByte('m');
+            this.out.write(parameters, 0, parametersLength);
+        }
+    }
+
+    @Override
+    protected void processSetAttribute(int attribute) throws IOException {
+        appendParameter(attribute);
+    }
+
+    @Override
+    protected void processAttributeRest() throws IOException {
+        appendParameter(0);
+    }
+
+    @Override
+    protected void processSetForegroundColor(int color, boolean bright) throws IOException {
+        appendParameter(bright ? 90 + color : 30 + color);
+    }
+
+    @Override
+    protected void processSetBackgroundColor(int color, boolean bright) throws IOException {
+        appendParameter(bright ? 100 + color : 40 + color);
+    }
+
+    @Override
+    protected void processSetForegroundColorExt(int paletteIndex) throws IOException {
+        appendPaletteColor(paletteIndex, 30);
+    }
+
+    @Override
+    protected void processSetForegroundColorExt(int r, int g, int b) throws IOException {
+        appendRgbColor(r, g, b, 30);
+    }
+
+    @Override
+    protected void processSetBackgroundColorExt(int paletteIndex) throws IOException {
+        appendPaletteColor(paletteIndex, 40);
+    }
+
+    @Override
+    protected void processSetBackgroundColorExt(int r, int g, int b) throws IOException {
+        appendRgbColor(r, g, b, 40);
+    }
+
+    @Override
+    protected void processDefaultTextColor() throws IOException {
+        appendParameter(39);
+    }
+
+    @Override
+    protected void processDefaultBackgroundColor() throws IOException {
+        appendParameter(49);
+    }
+
+    private void appendPaletteColor(int paletteIndex, int base) {
+        if (capability == ColorCapabilityType.ANSI_16) {
+            appendSystemColor(PALETTE_TO_16[paletteIndex], base);
+        } else {
+            appendParameter(base + 8);
+            appendParameter(5);
+            appendParameter(paletteIndex);
+        }
+    }
+
+    private void appendRgbColor(int r, int g, int b, int base) {
+        if (capability == ColorCapabilityType.ANSI_16) {
+            appendSystemColor(CUBE_TO_16[cubeIndex(r, g, b)], base);
+        } else if (capability == ColorCapabilityType.ANSI_256) {
+            appendParameter(base + 8);
+            appendParameter(5);
+            appendParameter(CUBE_TO_256[cubeIndex(r, g, b)] & 0xFF);
+        } else {
+            appendParameter(base + 8);
+            appendParameter(2);
+            appendParameter(r);
+            appendParameter(g);
+            appendParameter(b);
+        }
+    }
+
+    private void appendSystemColor(int color, int base) {
+        appendParameter(color < 8 ? base + color : base + 60 + color - 8);
+    }
+
+    private void appendParameter(int value) {
+        graphicRendition = true;
+        if (parametersLength == 0) {
+            appendByte(27);
+            appendByte('[');
+        } else {
+            appendByte(';');
+        }
+        int divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            appendByte('0' + value / divisor % 10);
+        }
+    }
+
+    private void appendByte(int value) {
+        if (parametersLength == parameters.length) {
+            parameters = Arrays.copyOf(parameters, parametersLength * 2);
+        }
+        parameters[parametersLength++] = (byte) value;
+    }
+
+    private static int cubeIndex(int r, int g, int b) {
+        return (r >> CUBE_SHIFT) << 2 * CUBE_BITS | (g >> CUBE_SHIFT) << CUBE_BITS | b >> CUBE_SHIFT;
+    }
+
+    private static int nearest(int r, int g, int b, int from, int to) {
+        int result = from;
+        int best = Integer.MAX_VALUE;
+        for (int i = from; i < to; i++) {
+            final int color = HtmlFancyOutputStream.PALETTE[i];
+            final int dr = (color >> 16 & 0xFF) - r;
+            final int dg = (color >> 8 & 0xFF) - g;
+            final int db = (color & 0xFF) - b;
+            // weighted euclidean distance approximating perceived difference
+            final int distance = 2 * dr * dr + 4 * dg * dg + 3 * db * db;
+            if (distance < best) {
+                best = distance;
+                result = i;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 SensibleMetrics Labs, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.sensiblemetrics.ansifancy.stream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Fancy byte channel writer with ANSI color rendering support: {@link ByteBuffer} based sibling
+ * of {@link FancyOutputStream} that runs the same parser and process callbacks, passes plain text
+ * spans through as buffer slices without copying and writes them by gathering writes
+ * to the underlying {@link WritableByteChannel}.
+ * The underlying channel is expected to be in blocking mode.
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+public class FancyByteChannel implements GatheringByteChannel {
+
+    /**
+     * Default maximum number of buffers per gathering write
+     */
+    private static final int DEFAULT_MAX_SEGMENTS = 64;
+    /**
+     * Default staging buffer size for translated escape output
+     */
+    private static final int DEFAULT_STAGING_SIZE = 1024;
+
+    private final WritableByteChannel channel;
+    private final FancyOutputStream parser;
+    /**
+     * Plain text spans are passed through only if the parser does not transform them (see {@link FancyOutputStream#writePlain})
+     */
+    private final boolean passThrough;
+
+    private final ByteBuffer[] segments = new ByteBuffer[DEFAULT_MAX_SEGMENTS];
+    private int segmentCount = 0;
+    private byte[] staging = new byte[DEFAULT_STAGING_SIZE];
+    private int stagingStart = 0;
+    private int stagingEnd = 0;
+    private byte[] plain;
+    private boolean open = true;
+
+    public FancyByteChannel(final WritableByteChannel channel) {
+        this(channel, FancyOutputStream::new);
+    }
+
+    public FancyByteChannel(final WritableByteChannel channel, final Function<OutputStream, ? extends FancyOutputStream> factory) {
+        Objects.requireNonNull(channel, "Channel should not be null");
+        Objects.requireNonNull(factory, "Stream factory should not be null");
+        this.channel = channel;
+        this.parser = factory.apply(new StagingOutputStream());
+        this.passThrough = isPassThrough(this.parser.getClass());
+    }
+
+    @Override
+    public synchronized int write(final ByteBuffer src) throws IOException {
+        ensureOpen();
+        final int start = src.position();
+        final int end = src.limit();
+        int i = start;
+        while (i < end) {
+            if (parser.isPlain()) {
+                final int from = i;
+                while (i < end && src.get(i) != 27) {
+                    i++;
+                }
+                if (i > from) {
+                    writePlain(src, from, i);
+                }
+                if (i == end) {
+                    break;
+                }
+            }
+            parser.process(src.get(i++) & 0xFF);
+        }
+        src.position(end);
+        drain();
+        return end - start;
+    }
+
+    @Override
+    public synchronized long write(final ByteBuffer[] srcs, int offset, int length) throws IOException {
+        Objects.checkFromIndexSize(offset, length, srcs.length);
+        long count = 0;
+        for (int i = offset; i < offset + length; i++) {
+            count += write(srcs[i]);
+        }
+        return count;
+    }
+
+    @Override
+    public long write(final ByteBuffer[] srcs) throws IOException {
+        return write(srcs, 0, srcs.length);
+    }
+
+    @Override
+    public synchronized boolean isOpen() {
+        return open && channel.isOpen();
+    }
+
+    /**
+     * Finishes parser output (e.g. closing attributes), writes it out and closes the underlying channel
+     *
+     * @throws IOException IOException
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!open) {
+            return;
+        }
+        try {
+            parser.close();
+            drain();
+        } finally {
+            open = false;
+            channel.close();
+        }
+    }
+
+    private void writePlain(final ByteBuffer src, int from, int to) throws IOException {
+        if (passThrough) {
+            commitStaging();
+            addSegment(src.duplicate().limit(to).position(from).slice());
+        } else if (src.hasArray()) {
+            parser.writePlain(src.array(), src.arrayOffset() + from, to - from);
+        } else {
+            if (plain == null || plain.length < to - from) {
+                plain = new byte[Math.max(to - from, DEFAULT_STAGING_SIZE)];
+            }
+            src.duplicate().limit(to).position(from).get(plain, 0, to - from);
+            parser.writePlain(plain, 0, to - from);
+        }
+    }
+
+    private void stage(final byte[] data, int offset, int length) throws IOException {
+        if (stagingEnd + length > staging.length) {
+            drain();
+            if (length > staging.length) {
+                staging = new byte[Math.max(length, staging.length * 2)];
+            }
+        }
+        System.arraycopy(data, offset, staging, stagingEnd, length);
+        stagingEnd += length;
+    }
+
+    private void commitStaging() throws IOException {
+        if (stagingEnd > stagingStart) {
+            addSegment(ByteBuffer.wrap(staging, stagingStart, stagingEnd - stagingStart));
+            stagingStart = stagingEnd;
+        }
+    }
+
+    private void addSegment(final ByteBuffer segment) throws IOException {
+        if (segmentCount == segments.length) {
+            drainSegments();
+        }
+        segments[segmentCount++] = segment;
+    }
+
+    private void drain() throws IOException {
+        commitStaging();
+        drainSegments();
+        stagingStart = stagingEnd = 0;
+    }
+
+    private void drainSegments() throws IOException {
+        if (segmentCount == 0) {
+            return;
+        }
+        if (channel instanceof GatheringByteChannel) {
+            final GatheringByteChannel gathering = (GatheringByteChannel) channel;
+            int first = 0;
+            while (first < segmentCount) {
+                gathering.write(segments, first, segmentCount - first);
+                while (first < segmentCount && !segments[first].hasRemaining()) {
+                    first++;
+                }
+            }
+        } else {
+            for (int i = 0; i < segmentCount; i++) {
+                while (segments[i].hasRemaining()) {
+                    channel.write(segments[i]);
+                }
+            }
+        }
+        Arrays.fill(segments, 0, segmentCount, null);
+        segmentCount = 0;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    private static boolean isPassThrough(final Class<?> type) {
+        for (Class<?> current = type; current != FancyOutputStream.class; current = current.getSuperclass()) {
+            try {
+                current.getDeclaredMethod("writePlain", byte[].class, int.class, int.class);
+                return false;
+            } catch (NoSuchMethodException ignore) {
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parser output sink collecting translated escape output into the staging buffer
+     */
+    private final class StagingOutputStream extends OutputStream {
+
+        private final byte[] single = new byte[1];
+
+        @Override
+        public void write(int data) throws IOException {
+            single[0] = (byte) data;
+            stage(single, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] data, int offset, int length) throws IOException {
+            stage(data, offset, length);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 SensibleMetrics Labs, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.sensiblemetrics.ansifancy.stream;
+
+import com.sensiblemetrics.ansifancy.utils.ValidationUtils;
+import lombok.experimental.UtilityClass;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * File level ANSI stripping / conversion utilities: input file is memory-mapped in fixed-size windows
+ * and streamed through {@link FancyByteChannel}, so parser state is carried across window boundaries
+ * and memory use does not depend on the file size
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+@UtilityClass
+public class FancyFiles {
+
+    /**
+     * Default mapped window size
+     */
+    public static final long DEFAULT_WINDOW_SIZE = 64L << 20;
+
+    /**
+     * Strips ANSI escape sequences from source file into target file
+     *
+     * @param source - initial input source file {@link Path}
+     * @param target - initial input target file {@link Path}
+     * @return number of processed source bytes
+     * @throws IOException IOException
+     */
+    public static long strip(final Path source, final Path target) throws IOException {
+        return translate(source, target, FancyOutputStream::new);
+    }
+
+    /**
+     * Translates source file into target file by {@link FancyOutputStream} created by input factory
+     *
+     * @param source  - initial input source file {@link Path}
+     * @param target  - initial input target file {@link Path}
+     * @param factory - initial input {@link FancyOutputStream} factory
+     * @return number of processed source bytes
+     * @throws IOException IOException
+     */
+    public static long translate(final Path source, final Path target, final Function<OutputStream, ? extends FancyOutputStream> factory) throws IOException {
+        return translate(source, target, factory, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Translates source file into target file by {@link FancyOutputStream} created by input factory
+     * with input mapped window size
+     *
+     * @param source     - initial input source file {@link Path}
+     * @param target     - initial input target file {@link Path}
+     * @param factory    - initial input {@link FancyOutputStream} factory
+     * @param windowSize - initial input mapped window size
+     * @return number of processed source bytes
+     * @throws IOException IOException
+     */
+    public static long translate(final Path source, final Path target, final Function<OutputStream, ? extends FancyOutputStream> factory, long windowSize) throws IOException {
+        Objects.requireNonNull(source, "Source should not be null");
+        Objects.requireNonNull(target, "Target should not be null");
+        Objects.requireNonNull(factory, "Factory should not be null");
+        ValidationUtils.isTrue(windowSize > 0 && windowSize <= Integer.MAX_VALUE, "Window size should be positive int");
+
+        try (final FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             final FancyByteChannel out = new FancyByteChannel(FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), factory)) {
+            final long size = in.size();
+            for (long position = 0; position < size; position += windowSize) {
+                final MappedByteBuffer window = in.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowSize, size - position));
+                out.write(window);
+            }
+            return size;
+        }
+    }
+}
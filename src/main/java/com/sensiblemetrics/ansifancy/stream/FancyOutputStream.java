@@ -28,8 +28,10 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Fancy output stream writer with ANSI color rendering support {@link FilterOutputStream}
@@ -49,7 +51,15 @@ public class FancyOutputStream extends FilterOutputStream {
     private final byte[] buffer = new byte[MAX_ESCAPE_SEQUENCE_LENGTH];
     private int pos = 0;
     private int startOfValue;
-    private final List<Object> options = new ArrayList<>();
+    /**
+     * Reusable escape sequence arguments: integer values, "present" flags (unset for empty
+     * default slots like <code>;;</code>) and non-integer values (prefixes and strings)
+     */
+    private final int[] args = new int[MAX_ESCAPE_SEQUENCE_LENGTH];
+    private final BitSet present = new BitSet(MAX_ESCAPE_SEQUENCE_LENGTH);
+    private final Object[] objects = new Object[MAX_ESCAPE_SEQUENCE_LENGTH];
+    private int argCount = 0;
+    private int argValue = 0;
 
     private static final int LOOKING_FOR_FIRST_ESC_CHAR = 0;
     private static final int LOOKING_FOR_SECOND_ESC_CHAR = 1;
@@ -78,6 +88,69 @@ public class FancyOutputStream extends FilterOutputStream {
 
     @Override
     public synchronized void write(int data) throws IOException { // expected diff with AnsiPrintStream.java
+        process(data);
+    }
+
+    /**
+     * Writes array of bytes by scanning plain text runs up to the next escape character
+     * and delegating only escape sequences to the parsing state machine
+     *
+     * @param data   the data
+     * @param offset the start offset in the data
+     * @param length the number of bytes to write
+     * @throws IOException IOException
+     */
+    @Override
+    public synchronized void write(final byte[] data, int offset, int length) throws IOException {
+        Objects.checkFromIndexSize(offset, length, data.length);
+        final int end = offset + length;
+        int i = offset;
+        while (i < end) {
+            if (state == LOOKING_FOR_FIRST_ESC_CHAR) {
+                final int start = i;
+                while (i < end && data[i] != FIRST_ESC_CHAR) {
+                    i++;
+                }
+                if (i > start) {
+                    writePlain(data, start, i - start);
+                }
+                if (i == end) {
+                    break;
+                }
+            }
+            process(data[i++] & 0xFF);
+        }
+    }
+
+    /**
+     * Writes plain text run (containing no escape characters, or an aborted escape sequence
+     * written through as is) to the underlying stream
+     *
+     * @param data   the data
+     * @param offset the start offset in the data
+     * @param length the number of bytes to write
+     * @throws IOException IOException
+     */
+    protected void writePlain(final byte[] data, int offset, int length) throws IOException {
+        out.write(data, offset, length);
+    }
+
+    /**
+     * Returns binary flag whether parser is outside of any escape sequence
+     *
+     * @return true - if next byte is plain text unless it is an escape character, false - otherwise
+     */
+    boolean isPlain() {
+        return state == LOOKING_FOR_FIRST_ESC_CHAR;
+    }
+
+    /**
+     * Processes single byte by the escape sequence parsing state machine
+     *
+     * @param data the byte to process
+     * @throws IOException IOException
+     */
+    void process(int data) throws IOException {
         switch (state) {
             case LOOKING_FOR_FIRST_ESC_CHAR:
                 if (data == FIRST_ESC_CHAR) {
@@ -95,10 +168,10 @@ public class FancyOutputStream extends FilterOutputStream {
                 } else if (data == SECOND_OSC_CHAR) {
                     state = LOOKING_FOR_OSC_COMMAND;
                 } else if (data == SECOND_CHARSET0_CHAR) {
-                    options.add(Integer.valueOf(0));
+                    addIntArg(0);
                     state = LOOKING_FOR_CHARSET;
                 } else if (data == SECOND_CHARSET1_CHAR) {
-                    options.add(Integer.valueOf(1));
+                    addIntArg(1);
                     state = LOOKING_FOR_CHARSET;
                 } else {
                     reset(false);
@@ -111,16 +184,16 @@ public class FancyOutputStream extends FilterOutputStream {
                     startOfValue = pos - 1;
                     state = LOOKING_FOR_STR_ARG_END;
                 } else if ('0' <= data && data <= '9') {
-                    startOfValue = pos - 1;
+                    argValue = data - '0';
                     state = LOOKING_FOR_INT_ARG_END;
                 } else if (';' == data) {
-                    options.add(null);
+                    addDefaultArg();
                 } else if ('?' == data) {
-                    options.add('?');
+                    addObjectArg('?');
                 } else if ('=' == data) {
-                    options.add('=');
+                    addObjectArg('=');
                 } else {
-                    reset(processEscapeCommand(options, data));
+                    reset(processEscapeCommand(data));
                 }
                 break;
             default:
@@ -128,14 +201,14 @@ public class FancyOutputStream extends FilterOutputStream {
 
             case LOOKING_FOR_INT_ARG_END:
                 buffer[pos++] = (byte) data;
-                if (!('0' <= data && data <= '9')) {
-                    String strValue = new String(buffer, startOfValue, (pos - 1) - startOfValue, Charset.defaultCharset());
-                    Integer value = Integer.valueOf(strValue);
-                    options.add(value);
+                if ('0' <= data && data <= '9') {
+                    argValue = accumulate(argValue, data);
+                } else {
+                    addIntArg(argValue);
                     if (data == ';') {
                         state = LOOKING_FOR_NEXT_ARG;
                     } else {
-                        reset(processEscapeCommand(options, data));
+                        reset(processEscapeCommand(data));
                     }
                 }
                 break;
@@ -143,12 +216,11 @@ public class FancyOutputStream extends FilterOutputStream {
             case LOOKING_FOR_STR_ARG_END:
                 buffer[pos++] = (byte) data;
                 if ('"' != data) {
-                    String value = new String(buffer, startOfValue, (pos - 1) - startOfValue, Charset.defaultCharset());
-                    options.add(value);
+                    addObjectArg(new String(buffer, startOfValue, (pos - 1) - startOfValue, Charset.defaultCharset()));
                     if (data == ';') {
                         state = LOOKING_FOR_NEXT_ARG;
                     } else {
-                        reset(processEscapeCommand(options, data));
+                        reset(processEscapeCommand(data));
                     }
                 }
                 break;
@@ -156,7 +228,7 @@ public class FancyOutputStream extends FilterOutputStream {
             case LOOKING_FOR_OSC_COMMAND:
                 buffer[pos++] = (byte) data;
                 if ('0' <= data && data <= '9') {
-                    startOfValue = pos - 1;
+                    argValue = data - '0';
                     state = LOOKING_FOR_OSC_COMMAND_END;
                 } else {
                     reset(false);
@@ -166,13 +238,11 @@ public class FancyOutputStream extends FilterOutputStream {
             case LOOKING_FOR_OSC_COMMAND_END:
                 buffer[pos++] = (byte) data;
                 if (';' == data) {
-                    String strValue = new String(buffer, startOfValue, (pos - 1) - startOfValue, Charset.defaultCharset());
-                    Integer value = Integer.valueOf(strValue);
-                    options.add(value);
+                    addIntArg(argValue);
                     startOfValue = pos;
                     state = LOOKING_FOR_OSC_PARAM;
                 } else if ('0' <= data && data <= '9') {
-                    // already pushed digit to buffer, just keep looking
+                    argValue = accumulate(argValue, data);
                 } else {
                     // oops, did not expect this
                     reset(false);
@@ -182,9 +252,8 @@ public class FancyOutputStream extends FilterOutputStream {
             case LOOKING_FOR_OSC_PARAM:
                 buffer[pos++] = (byte) data;
                 if (BEL == data) {
-                    String value = new String(buffer, startOfValue, (pos - 1) - startOfValue, Charset.defaultCharset());
-                    options.add(value);
-                    reset(processOperatingSystemCommand(options));
+                    addObjectArg(new String(buffer, startOfValue, (pos - 1) - startOfValue, Charset.defaultCharset()));
+                    reset(processOperatingSystemCommand());
                 } else if (FIRST_ESC_CHAR == data) {
                     state = LOOKING_FOR_ST;
                 } else {
@@ -195,17 +264,15 @@ public class FancyOutputStream extends FilterOutputStream {
             case LOOKING_FOR_ST:
                 buffer[pos++] = (byte) data;
                 if (SECOND_ST_CHAR == data) {
-                    String value = new String(buffer, startOfValue, (pos - 2) - startOfValue, Charset.defaultCharset());
-                    options.add(value);
-                    reset(processOperatingSystemCommand(options));
+                    addObjectArg(new String(buffer, startOfValue, (pos - 2) - startOfValue, Charset.defaultCharset()));
+                    reset(processOperatingSystemCommand());
                 } else {
                     state = LOOKING_FOR_OSC_PARAM;
                 }
                 break;
 
             case LOOKING_FOR_CHARSET:
-                options.add(Character.valueOf((char) data));
-                reset(processCharsetSelect(options));
+                reset(processCharsetSelect((char) data));
                 break;
         }
 
@@ -218,100 +285,140 @@ public class FancyOutputStream extends FilterOutputStream {
     /**
      * Resets all state to continue with regular parsing
      *
-     * @param skipBuffer if current buffer should be skipped or written to out
+     * @param skipBuffer if current buffer should be skipped or written out as plain text
      * @throws IOException
      */
     private void reset(boolean skipBuffer) throws IOException { // expected diff with AnsiPrintStream.java
-        if (!skipBuffer) {
-            out.write(buffer, 0, pos); // expected diff with AnsiPrintStream.java
+        if (!skipBuffer && pos > 0) {
+            writePlain(buffer, 0, pos); // expected diff with AnsiPrintStream.java
         }
         pos = 0;
         startOfValue = 0;
-        options.clear();
+        argValue = 0;
+        Arrays.fill(objects, 0, argCount, null);
+        present.clear();
+        argCount = 0;
         state = LOOKING_FOR_FIRST_ESC_CHAR;
     }
 
     /**
-     * Helper for processEscapeCommand() to iterate over integer options
+     * Appends integer argument to the current escape sequence
      *
-     * @param optionsIterator the underlying iterator
+     * @param arg the argument value
      */
-    private int getNextOptionInt(final Iterator<Object> optionsIterator) {
-        for (; ; ) {
-            if (!optionsIterator.hasNext())
-                throw new IllegalArgumentException();
-            Object arg = optionsIterator.next();
-            if (arg != null)
-                return (Integer) arg;
+    private void addIntArg(int arg) {
+        args[argCount] = arg;
+        present.set(argCount);
+        argCount++;
+    }
+
+    /**
+     * Appends empty (default) argument to the current escape sequence
+     */
+    private void addDefaultArg() {
+        argCount++;
+    }
+
+    /**
+     * Appends non-integer argument (prefix character or string) to the current escape sequence
+     *
+     * @param arg the argument value
+     */
+    private void addObjectArg(final Object arg) {
+        objects[argCount] = arg;
+        argCount++;
+    }
+
+    /**
+     * Accumulates next decimal digit into the argument value, saturating on overflow
+     *
+     * @param current the current value
+     * @param digit   the next digit character
+     * @return accumulated value
+     */
+    private static int accumulate(int current, int digit) {
+        if (current > (Integer.MAX_VALUE - 9) / 10) {
+            return Integer.MAX_VALUE;
         }
+        return current * 10 + (digit - '0');
+    }
+
+    /**
+     * Helper for processEscapeCommand() to iterate over integer options
+     *
+     * @param index the index to search from
+     * @return index of the next present integer argument
+     */
+    private int nextOptionIndex(int index) {
+        int next = present.nextSetBit(index);
+        if (next < 0 || next >= argCount)
+            throw new IllegalArgumentException();
+        return next;
     }
 
     /**
-     * @param options
      * @param command
      * @return true if the escape command was processed.
      */
-    private boolean processEscapeCommand(final List<Object> options, int command) throws IOException {
+    private boolean processEscapeCommand(int command) throws IOException {
         try {
             switch (command) {
                 case 'A':
-                    processCursorUp(optionInt(options, 0, 1));
+                    processCursorUp(optionInt(0, 1));
                     return true;
                 case 'B':
-                    processCursorDown(optionInt(options, 0, 1));
+                    processCursorDown(optionInt(0, 1));
                     return true;
                 case 'C':
-                    processCursorRight(optionInt(options, 0, 1));
+                    processCursorRight(optionInt(0, 1));
                     return true;
                 case 'D':
-                    processCursorLeft(optionInt(options, 0, 1));
+                    processCursorLeft(optionInt(0, 1));
                     return true;
                 case 'E':
-                    processCursorDownLine(optionInt(options, 0, 1));
+                    processCursorDownLine(optionInt(0, 1));
                     return true;
                 case 'F':
-                    processCursorUpLine(optionInt(options, 0, 1));
+                    processCursorUpLine(optionInt(0, 1));
                     return true;
                 case 'G':
-                    processCursorToColumn(optionInt(options, 0));
+                    processCursorToColumn(optionInt(0));
                     return true;
                 case 'H':
                 case 'f':
-                    processCursorTo(optionInt(options, 0, 1), optionInt(options, 1, 1));
+                    processCursorTo(optionInt(0, 1), optionInt(1, 1));
                     return true;
                 case 'J':
-                    processEraseScreen(optionInt(options, 0, 0));
+                    processEraseScreen(optionInt(0, 0));
                     return true;
                 case 'K':
-                    processEraseLine(optionInt(options, 0, 0));
+                    processEraseLine(optionInt(0, 0));
                     return true;
                 case 'L':
-                    processInsertLine(optionInt(options, 0, 1));
+                    processInsertLine(optionInt(0, 1));
                     return true;
                 case 'M':
-                    processDeleteLine(optionInt(options, 0, 1));
+                    processDeleteLine(optionInt(0, 1));
                     return true;
                 case 'S':
-                    processScrollUp(optionInt(options, 0, 1));
+                    processScrollUp(optionInt(0, 1));
                     return true;
                 case 'T':
-                    processScrollDown(optionInt(options, 0, 1));
+                    processScrollDown(optionInt(0, 1));
                     return true;
                 case 'm':
                     // Validate all options are ints...
-                    for (Object next : options) {
-                        if (next != null && next.getClass() != Integer.class) {
+                    for (int i = 0; i < argCount; i++) {
+                        if (objects[i] != null) {
                             throw new IllegalArgumentException();
                         }
                     }
 
                     int count = 0;
-                    Iterator<Object> optionsIterator = options.iterator();
-                    while (optionsIterator.hasNext()) {
-                        Object next = optionsIterator.next();
-                        if (next != null) {
+                    for (int i = 0; i < argCount; i++) {
+                        if (present.get(i)) {
                             count++;
-                            int value = (Integer) next;
+                            int value = args[i];
                             if (30 <= value && value <= 37) {
                                 processSetForegroundColor(value - 30);
                             } else if (40 <= value && value <= 47) {
@@ -322,12 +429,16 @@ public class FancyOutputStream extends FilterOutputStream {
                                 processSetBackgroundColor(value - 100, true);
                             } else if (value == 38 || value == 48) {
                                 // extended color like `esc[38;5;<index>m` or `esc[38;2;<r>;<g>;<b>m`
-                                int arg2or5 = getNextOptionInt(optionsIterator);
+                                i = nextOptionIndex(i + 1);
+                                int arg2or5 = args[i];
                                 if (arg2or5 == 2) {
                                     // 24 bit color style like `esc[38;2;<r>;<g>;<b>m`
-                                    int r = getNextOptionInt(optionsIterator);
-                                    int g = getNextOptionInt(optionsIterator);
-                                    int b = getNextOptionInt(optionsIterator);
+                                    i = nextOptionIndex(i + 1);
+                                    int r = args[i];
+                                    i = nextOptionIndex(i + 1);
+                                    int g = args[i];
+                                    i = nextOptionIndex(i + 1);
+                                    int b = args[i];
                                     if (r >= 0 && r <= 255 && g >= 0 && g <= 255 && b >= 0 && b <= 255) {
                                         if (value == 38)
                                             processSetForegroundColorExt(r, g, b);
@@ -338,7 +449,8 @@ public class FancyOutputStream extends FilterOutputStream {
                                     }
                                 } else if (arg2or5 == 5) {
                                     // 256 color style like `esc[38;5;<index>m`
-                                    int paletteIndex = getNextOptionInt(optionsIterator);
+                                    i = nextOptionIndex(i + 1);
+                                    int paletteIndex = args[i];
                                     if (paletteIndex >= 0 && paletteIndex <= 255) {
                                         if (value == 38)
                                             processSetForegroundColorExt(paletteIndex);
@@ -379,12 +491,9 @@ public class FancyOutputStream extends FilterOutputStream {
                     return true;
 
                 default:
-                    if ('a' <= command && 'z' <= command) {
-                        processUnknownExtension(options, command);
-                        return true;
-                    }
-                    if ('A' <= command && 'Z' <= command) {
-                        processUnknownExtension(options, command);
+                    // lowercase finals (and 'Z', '{'..'~') go to the extension hook, other unhandled uppercase ones are written through
+                    if ('Z' <= command) {
+                        processUnknownExtension(optionList(), command);
                         return true;
                     }
                     return false;
@@ -395,12 +504,11 @@ public class FancyOutputStream extends FilterOutputStream {
     }
 
     /**
-     * @param options
      * @return true if the operating system command was processed.
      */
-    private boolean processOperatingSystemCommand(final List<Object> options) {
-        int command = optionInt(options, 0);
-        String label = (String) options.get(1);
+    private boolean processOperatingSystemCommand() {
+        int command = optionInt(0);
+        String label = (String) objects[1];
         // for command > 2 label could be composed (i.e. contain ';'), but we'll leave
         // it to processUnknownOperatingSystemCommand implementations to handle that
         try {
@@ -778,12 +886,11 @@ public class FancyOutputStream extends FilterOutputStream {
     /**
      * Process character set sequence.
      *
-     * @param options set of options
+     * @param seq the character set sequence
      * @return true if the charcter set select command was processed.
      */
-    private boolean processCharsetSelect(final List<Object> options) {
-        int set = optionInt(options, 0);
-        char seq = ((Character) options.get(1)).charValue();
+    private boolean processCharsetSelect(char seq) {
+        int set = optionInt(0);
         processCharsetSelect(set, seq);
         return true;
     }
@@ -791,28 +898,45 @@ public class FancyOutputStream extends FilterOutputStream {
     protected void processCharsetSelect(int set, char seq) {
     }
 
-    private int optionInt(final List<Object> options, int index) {
-        if (options.size() <= index)
-            throw new IllegalArgumentException();
-        Object value = options.get(index);
-        if (value == null)
+    private int optionInt(int index) {
+        if (argCount <= index)
             throw new IllegalArgumentException();
-        if (!value.getClass().equals(Integer.class))
+        if (!present.get(index))
             throw new IllegalArgumentException();
-        return (Integer) value;
+        return args[index];
     }
 
-    private int optionInt(final List<Object> options, int index, int defaultValue) {
-        if (options.size() > index) {
-            Object value = options.get(index);
-            if (value == null) {
+    private int optionInt(int index, int defaultValue) {
+        if (argCount > index) {
+            if (objects[index] != null)
+                throw new IllegalArgumentException();
+            if (!present.get(index)) {
                 return defaultValue;
             }
-            return (Integer) value;
+            return args[index];
         }
         return defaultValue;
     }
 
+    /**
+     * Returns boxed {@link List} view of the current arguments for extension callbacks
+     *
+     * @return {@link List} of arguments
+     */
+    private List<Object> optionList() {
+        final List<Object> options = new ArrayList<>(argCount);
+        for (int i = 0; i < argCount; i++) {
+            if (objects[i] != null) {
+                options.add(objects[i]);
+            } else if (present.get(i)) {
+                options.add(args[i]);
+            } else {
+                options.add(null);
+            }
+        }
+        return options;
+    }
+
     @Override
     public void close() throws IOException {
         write(RESET_CODE);
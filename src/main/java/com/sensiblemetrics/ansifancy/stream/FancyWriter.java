@@ -23,41 +23,104 @@
  */
 package com.sensiblemetrics.ansifancy.stream;
 
+import com.sensiblemetrics.ansifancy.config.iface.ConfigurationIF;
+import com.sensiblemetrics.ansifancy.config.impl.Configuration;
+
 import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.io.Writer;
+import java.util.Arrays;
+import java.util.Formatter;
 import java.util.Locale;
 
+import static com.sensiblemetrics.ansifancy.parser.impl.CharSequenceParser.*;
+import static com.sensiblemetrics.ansifancy.processor.impl.MarkerProcessor.RESET_CODE;
+import static com.sensiblemetrics.ansifancy.processor.impl.MarkerProcessor.isMarkup;
+
 /**
- * Fancy print writer which supports automatic ANSI color rendering via {@link FancyWriter}
+ * Fancy print writer which supports automatic ANSI color rendering via {@link FancyWriter}:
+ * markup classes {@code {name text}} of the {@link ConfigurationIF} markers are translated
+ * into marker escape codes directly on {@code char[]} (closing a nested class resets style
+ * and restores enclosing classes), {@code `} escapes the next markup symbol, and everything
+ * else (including raw ANSI escape sequences) is written through. Text without markup symbols
+ * is detected by a single scan and written to the underlying writer as is.
+ * Class names are expected not to be split between write calls
  *
  * @author Alexander Rogalskiy
  * @version 1.0
  */
 public class FancyWriter extends PrintWriter {
 
+    /**
+     * Marker escape codes of the configuration
+     */
+    private final MarkerCodes markerCodes;
+    /**
+     * Open markup classes escape codes
+     */
+    private char[][] classes = new char[8][];
+    private int depth = 0;
+
+    private char[] buffer = new char[256];
+    private final StringBuilder formatted = new StringBuilder();
+    private final Formatter formatter = new Formatter(this.formatted);
+
     public FancyWriter(final OutputStream out) {
-        super(out);
+        this(out, false);
     }
 
     public FancyWriter(final OutputStream out, final boolean autoFlush) {
+        this(out, autoFlush, new Configuration());
+    }
+
+    public FancyWriter(final OutputStream out, final boolean autoFlush, final ConfigurationIF configuration) {
         super(out, autoFlush);
+        this.markerCodes = new MarkerCodes(configuration);
     }
 
     public FancyWriter(final Writer out) {
-        super(out);
+        this(out, false);
     }
 
     public FancyWriter(final Writer out, final boolean autoFlush) {
+        this(out, autoFlush, new Configuration());
+    }
+
+    public FancyWriter(final Writer out, final boolean autoFlush, final ConfigurationIF configuration) {
         super(out, autoFlush);
+        this.markerCodes = new MarkerCodes(configuration);
+    }
+
+    @Override
+    public void write(final char[] buf, int off, int len) {
+        final int first = indexOfMarkup(buf, off, off + len);
+        if (first < 0) {
+            super.write(buf, off, len);
+            return;
+        }
+        synchronized (this.lock) {
+            if (first > off) {
+                super.write(buf, off, first - off);
+            }
+            render(buf, first, off + len);
+        }
     }
 
     @Override
-    public void write(final String value) {
-        if (test(value)) {
-            super.write(render(value));
-        } else {
-            super.write(value);
+    public void write(final String s, int off, int len) {
+        final int first = indexOfMarkup(s, off, off + len);
+        if (first < 0) {
+            super.write(s, off, len);
+            return;
+        }
+        synchronized (this.lock) {
+            if (first > off) {
+                super.write(s, off, first - off);
+            }
+            final int length = off + len - first;
+            ensureBuffer(length);
+            s.getChars(first, off + len, this.buffer, 0);
+            render(this.buffer, 0, length);
         }
     }
 
@@ -67,17 +130,115 @@ public class FancyWriter extends PrintWriter {
         return this;
     }
 
+    /**
+     * Formats input arguments into a reused buffer and writes the result at once,
+     * so markup produced by the format is rendered as a whole
+     */
     @Override
     public PrintWriter format(final Locale locale, final String format, final Object... args) {
-        print(String.format(locale, format, args));
+        synchronized (this.lock) {
+            this.formatted.setLength(0);
+            this.formatter.format(locale, format, args);
+            final int length = this.formatted.length();
+            ensureBuffer(length);
+            this.formatted.getChars(0, length, this.buffer, 0);
+            write(this.buffer, 0, length);
+        }
+        return this;
+    }
+
+    /**
+     * Writes arguments formatted by input {@link FormatTemplate} (its markup is already rendered)
+     *
+     * @param template - initial input {@link FormatTemplate}
+     * @param args     - initial input array of arguments
+     * @return current writer
+     */
+    public PrintWriter format(final FormatTemplate template, final Object... args) {
+        synchronized (this.lock) {
+            this.formatted.setLength(0);
+            template.appendTo(this.formatted, args);
+            final int length = this.formatted.length();
+            ensureBuffer(length);
+            this.formatted.getChars(0, length, this.buffer, 0);
+            super.write(this.buffer, 0, length);
+        }
         return this;
     }
 
-    private boolean test(final String value) {
-        return true;
+    /**
+     * Renders markup of input range starting at markup symbol (caller holds the lock)
+     */
+    private void render(final char[] buf, int from, int to) {
+        int start = from;
+        for (int i = from; i < to; i++) {
+            final char c = buf[i];
+            if (c == DEFAULT_CHAR_ESCAPE_SYMBOL) {
+                if (i + 1 < to && isMarkup(buf[i + 1])) {
+                    writeRange(buf, start, i);
+                    start = ++i;
+                }
+            } else if (c == DEFAULT_CHAR_ESCAPE_CLASS_BEGIN_SYMBOL) {
+                final int nameEnd = MarkerCodes.indexOfNameEnd(buf, i + 1, to);
+                final char[] code = nameEnd < 0 ? null : this.markerCodes.find(buf, i + 1, nameEnd);
+                if (code != null) {
+                    writeRange(buf, start, i);
+                    openClass(code);
+                    i = nameEnd;
+                    start = nameEnd + 1;
+                }
+            } else if (c == DEFAULT_CHAR_ESCAPE_CLASS_END_SYMBOL && this.depth > 0) {
+                writeRange(buf, start, i);
+                closeClass();
+                start = i + 1;
+            }
+        }
+        writeRange(buf, start, to);
+    }
+
+    private void openClass(final char[] code) {
+        if (this.depth == this.classes.length) {
+            this.classes = Arrays.copyOf(this.classes, this.depth * 2);
+        }
+        this.classes[this.depth++] = code;
+        super.write(code, 0, code.length);
+    }
+
+    private void closeClass() {
+        this.classes[--this.depth] = null;
+        super.write(RESET_CODE, 0, RESET_CODE.length());
+        for (int i = 0; i < this.depth; i++) {
+            super.write(this.classes[i], 0, this.classes[i].length);
+        }
+    }
+
+    private void writeRange(final char[] buf, int from, int to) {
+        if (to > from) {
+            super.write(buf, from, to - from);
+        }
+    }
+
+    private void ensureBuffer(int length) {
+        if (this.buffer.length < length) {
+            this.buffer = new char[Math.max(length, this.buffer.length * 2)];
+        }
     }
 
-    private String render(final String value) {
-        return null;
+    private static int indexOfMarkup(final char[] buf, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (isMarkup(buf[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOfMarkup(final String s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (isMarkup(s.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
     }
 }
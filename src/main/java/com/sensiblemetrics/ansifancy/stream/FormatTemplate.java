@@ -0,0 +1,499 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 SensibleMetrics Labs, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.sensiblemetrics.ansifancy.stream;
+
+import com.sensiblemetrics.ansifancy.config.iface.ConfigurationIF;
+import com.sensiblemetrics.ansifancy.config.impl.Configuration;
+import com.sensiblemetrics.ansifancy.enumeration.ConversionMarkerType;
+import com.sensiblemetrics.ansifancy.utils.FormatUtils;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.Formattable;
+import java.util.Formatter;
+import java.util.IllegalFormatException;
+import java.util.List;
+import java.util.Locale;
+import java.util.MissingFormatArgumentException;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.sensiblemetrics.ansifancy.parser.impl.CharSequenceParser.*;
+import static com.sensiblemetrics.ansifancy.processor.impl.MarkerProcessor.RESET_CODE;
+import static com.sensiblemetrics.ansifancy.processor.impl.MarkerProcessor.isMarkup;
+
+/**
+ * Precompiled format template: format string is parsed once into literal segments (with markup classes
+ * {@code {name text}} of the {@link ConfigurationIF} markers already rendered into escape codes) and
+ * conversion segments validated by {@link FormatUtils#formatParameterCategories(String)}.
+ * Plain {@code %s}, {@code %d} and {@code %c} conversions are appended directly into the target
+ * {@link StringBuilder} (primitive overloads do not box arguments), all other conversions are delegated
+ * to {@link Formatter}. Note that {@code char} arguments of the two-argument primitive overloads are widened
+ * to {@code long} (pass {@link Character} instead), and {@code %c} of a {@code long} argument fails
+ * as for {@link Formatter}. Templates are immutable and thread-safe
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+public final class FormatTemplate {
+
+    /**
+     * Default format specifier pattern: %[argument_index$][flags][width][.precision][t]conversion
+     */
+    private static final Pattern FORMAT_SPECIFIER_PATTERN = Pattern.compile("%(\\d+\\$)?([-#+ 0,(<]*)?(\\d+)?(\\.\\d+)?([tT])?([a-zA-Z%])");
+    /**
+     * Default segment kinds
+     */
+    private static final byte KIND_LITERAL = 0;
+    private static final byte KIND_STRING = 1;
+    private static final byte KIND_DECIMAL = 2;
+    private static final byte KIND_CHAR = 3;
+    private static final byte KIND_FORMATTER = 4;
+
+    private final String format;
+    private final Locale locale;
+    private final ConversionMarkerType[] categories;
+    /**
+     * Segments: kind, literal text or conversion specifier (without argument index) and argument index
+     */
+    private final byte[] kinds;
+    private final String[] texts;
+    private final int[] arguments;
+
+    private FormatTemplate(final String format, final Locale locale, final ConversionMarkerType[] categories,
+                           final byte[] kinds, final String[] texts, final int[] arguments) {
+        this.format = format;
+        this.locale = locale;
+        this.categories = categories;
+        this.kinds = kinds;
+        this.texts = texts;
+        this.arguments = arguments;
+    }
+
+    /**
+     * Returns {@link FormatTemplate} compiled by input format with default format locale and markers
+     *
+     * @param format - initial input format {@link String}
+     * @return compiled {@link FormatTemplate}
+     * @throws IllegalFormatException if format is not valid
+     */
+    public static FormatTemplate compile(final String format) {
+        return compile(format, Locale.getDefault(Locale.Category.FORMAT), new Configuration());
+    }
+
+    /**
+     * Returns {@link FormatTemplate} compiled by input format, {@link Locale} and {@link ConfigurationIF} markers
+     *
+     * @param format        - initial input format {@link String}
+     * @param locale        - initial input {@link Locale}
+     * @param configuration - initial input {@link ConfigurationIF}
+     * @return compiled {@link FormatTemplate}
+     * @throws IllegalFormatException if format is not valid
+     */
+    public static FormatTemplate compile(final String format, final Locale locale, final ConfigurationIF configuration) {
+        Objects.requireNonNull(format, "Format should not be null");
+        Objects.requireNonNull(locale, "Locale should not be null");
+
+        final ConversionMarkerType[] categories = FormatUtils.formatParameterCategories(format);
+        final MarkerCodes markerCodes = new MarkerCodes(configuration);
+        final boolean asciiDigits = DecimalFormatSymbols.getInstance(locale).getZeroDigit() == '0';
+        final char[] chars = format.toCharArray();
+        final Matcher matcher = FORMAT_SPECIFIER_PATTERN.matcher(format);
+
+        final List<Object[]> segments = new ArrayList<>();
+        final StringBuilder literal = new StringBuilder();
+        final List<char[]> classes = new ArrayList<>();
+        int ordinary = -1;
+        int last = -1;
+        for (int i = 0; i < chars.length; i++) {
+            final char c = chars[i];
+            if (c == DEFAULT_CHAR_ESCAPE_SYMBOL && i + 1 < chars.length && isMarkup(chars[i + 1])) {
+                literal.append(chars[++i]);
+            } else if (c == DEFAULT_CHAR_ESCAPE_CLASS_BEGIN_SYMBOL) {
+                final int nameEnd = MarkerCodes.indexOfNameEnd(chars, i + 1, chars.length);
+                final char[] code = nameEnd < 0 ? null : markerCodes.find(chars, i + 1, nameEnd);
+                if (code != null) {
+                    classes.add(code);
+                    literal.append(code);
+                    i = nameEnd;
+                } else {
+                    literal.append(c);
+                }
+            } else if (c == DEFAULT_CHAR_ESCAPE_CLASS_END_SYMBOL && !classes.isEmpty()) {
+                classes.remove(classes.size() - 1);
+                literal.append(RESET_CODE);
+                classes.forEach(literal::append);
+            } else if (c == '%' && matcher.find(i) && matcher.start() == i) {
+                final char conversion = matcher.group(6).charAt(0);
+                if (conversion == '%') {
+                    literal.append('%');
+                } else if (conversion == 'n') {
+                    literal.append(System.lineSeparator());
+                } else {
+                    final String flags = Objects.toString(matcher.group(2), "");
+                    if (matcher.group(1) != null) {
+                        last = Integer.parseInt(matcher.group(1).substring(0, matcher.group(1).length() - 1)) - 1;
+                    } else if (flags.indexOf('<') < 0) {
+                        last = ++ordinary;
+                    }
+                    final boolean simple = flags.isEmpty() && matcher.group(3) == null && matcher.group(4) == null && matcher.group(5) == null;
+                    final byte kind = !simple ? KIND_FORMATTER
+                        : conversion == 's' ? KIND_STRING
+                        : conversion == 'd' && asciiDigits ? KIND_DECIMAL
+                        : conversion == 'c' ? KIND_CHAR
+                        : KIND_FORMATTER;
+                    if (literal.length() > 0) {
+                        segments.add(new Object[]{KIND_LITERAL, literal.toString(), -1});
+                        literal.setLength(0);
+                    }
+                    final String specifier = "%" + flags.replace("<", "") + Objects.toString(matcher.group(3), "")
+                        + Objects.toString(matcher.group(4), "") + Objects.toString(matcher.group(5), "") + conversion;
+                    segments.add(new Object[]{kind, specifier, last});
+                }
+                i = matcher.end() - 1;
+            } else {
+                literal.append(c);
+            }
+        }
+        if (literal.length() > 0) {
+            segments.add(new Object[]{KIND_LITERAL, literal.toString(), -1});
+        }
+
+        final byte[] kinds = new byte[segments.size()];
+        final String[] texts = new String[segments.size()];
+        final int[] arguments = new int[segments.size()];
+        for (int i = 0; i < kinds.length; i++) {
+            kinds[i] = (byte) segments.get(i)[0];
+            texts[i] = (String) segments.get(i)[1];
+            arguments[i] = (int) segments.get(i)[2];
+        }
+        return new FormatTemplate(format, locale, categories, kinds, texts, arguments);
+    }
+
+    /**
+     * Returns source format
+     *
+     * @return source format {@link String}
+     */
+    public String getFormat() {
+        return this.format;
+    }
+
+    /**
+     * Returns {@link ConversionMarkerType} of every format parameter
+     *
+     * @return array of {@link ConversionMarkerType}
+     */
+    public ConversionMarkerType[] getParameterCategories() {
+        return this.categories.clone();
+    }
+
+    /**
+     * Returns formatted {@link String} by input arguments
+     *
+     * @param args - initial input array of arguments
+     * @return formatted {@link String}
+     */
+    public String format(final Object... args) {
+        return appendTo(new StringBuilder(), args).toString();
+    }
+
+    /**
+     * Appends formatted arguments to input {@link Appendable}
+     *
+     * @param target - initial input {@link Appendable}
+     * @param args   - initial input array of arguments
+     * @return input {@link Appendable}
+     * @throws IOException IOException
+     */
+    public Appendable appendTo(final Appendable target, final Object... args) throws IOException {
+        if (target instanceof StringBuilder) {
+            return appendTo((StringBuilder) target, args);
+        }
+        return target.append(appendTo(new StringBuilder(), args));
+    }
+
+    /**
+     * Appends formatted arguments to input {@link StringBuilder}
+     *
+     * @param target - initial input {@link StringBuilder}
+     * @param args   - initial input array of arguments
+     * @return input {@link StringBuilder}
+     */
+    public StringBuilder appendTo(final StringBuilder target, final Object... args) {
+        for (int i = 0; i < this.kinds.length; i++) {
+            if (this.kinds[i] == KIND_LITERAL) {
+                target.append(this.texts[i]);
+            } else {
+                // null arguments array means null for every conversion, as for Formatter
+                appendObject(target, i, args == null ? null : argument(args, i));
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Appends formatted argument to input {@link StringBuilder}
+     *
+     * @param target - initial input {@link StringBuilder}
+     * @param arg0   - initial input argument
+     * @return input {@link StringBuilder}
+     */
+    public StringBuilder appendTo(final StringBuilder target, final Object arg0) {
+        for (int i = 0; i < this.kinds.length; i++) {
+            if (this.kinds[i] == KIND_LITERAL) {
+                target.append(this.texts[i]);
+            } else {
+                checkArgument(i, 1);
+                appendObject(target, i, arg0);
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Appends formatted argument to input {@link StringBuilder}
+     *
+     * @param target - initial input {@link StringBuilder}
+     * @param arg0   - initial input argument
+     * @return input {@link StringBuilder}
+     */
+    public StringBuilder appendTo(final StringBuilder target, long arg0) {
+        for (int i = 0; i < this.kinds.length; i++) {
+            if (this.kinds[i] == KIND_LITERAL) {
+                target.append(this.texts[i]);
+            } else {
+                checkArgument(i, 1);
+                appendLong(target, i, arg0);
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Appends formatted argument to input {@link StringBuilder}
+     *
+     * @param target - initial input {@link StringBuilder}
+     * @param arg0   - initial input argument
+     * @return input {@link StringBuilder}
+     */
+    public StringBuilder appendTo(final StringBuilder target, double arg0) {
+        for (int i = 0; i < this.kinds.length; i++) {
+            if (this.kinds[i] == KIND_LITERAL) {
+                target.append(this.texts[i]);
+            } else {
+                checkArgument(i, 1);
+                appendDouble(target, i, arg0);
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Appends formatted argument to input {@link StringBuilder}
+     *
+     * @param target - initial input {@link StringBuilder}
+     * @param arg0   - initial input argument
+     * @return input {@link StringBuilder}
+     */
+    public StringBuilder appendTo(final StringBuilder target, float arg0) {
+        for (int i = 0; i < this.kinds.length; i++) {
+            if (this.kinds[i] == KIND_LITERAL) {
+                target.append(this.texts[i]);
+            } else {
+                checkArgument(i, 1);
+                if (this.kinds[i] == KIND_STRING) {
+                    target.append(arg0);
+                } else {
+                    new Formatter(target, this.locale).format(this.texts[i], arg0);
+                }
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Appends formatted argument to input {@link StringBuilder}
+     *
+     * @param target - initial input {@link StringBuilder}
+     * @param arg0   - initial input argument
+     * @return input {@link StringBuilder}
+     */
+    public StringBuilder appendTo(final StringBuilder target, char arg0) {
+        for (int i = 0; i < this.kinds.length; i++) {
+            if (this.kinds[i] == KIND_LITERAL) {
+                target.append(this.texts[i]);
+            } else {
+                checkArgument(i, 1);
+                if (this.kinds[i] == KIND_STRING || this.kinds[i] == KIND_CHAR) {
+                    target.append(arg0);
+                } else {
+                    new Formatter(target, this.locale).format(this.texts[i], arg0);
+                }
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Appends formatted arguments to input {@link StringBuilder}
+     *
+     * @param target - initial input {@link StringBuilder}
+     * @param arg0   - initial input first argument
+     * @param arg1   - initial input second argument
+     * @return input {@link StringBuilder}
+     */
+    public StringBuilder appendTo(final StringBuilder target, final Object arg0, final Object arg1) {
+        for (int i = 0; i < this.kinds.length; i++) {
+            if (this.kinds[i] == KIND_LITERAL) {
+                target.append(this.texts[i]);
+            } else {
+                checkArgument(i, 2);
+                appendObject(target, i, this.arguments[i] == 0 ? arg0 : arg1);
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Appends formatted arguments to input {@link StringBuilder}
+     *
+     * @param target - initial input {@link StringBuilder}
+     * @param arg0   - initial input first argument
+     * @param arg1   - initial input second argument
+     * @return input {@link StringBuilder}
+     */
+    public StringBuilder appendTo(final StringBuilder target, final Object arg0, long arg1) {
+        for (int i = 0; i < this.kinds.length; i++) {
+            if (this.kinds[i] == KIND_LITERAL) {
+                target.append(this.texts[i]);
+            } else {
+                checkArgument(i, 2);
+                if (this.arguments[i] == 0) {
+                    appendObject(target, i, arg0);
+                } else {
+                    appendLong(target, i, arg1);
+                }
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Appends formatted arguments to input {@link StringBuilder}
+     *
+     * @param target - initial input {@link StringBuilder}
+     * @param arg0   - initial input first argument
+     * @param arg1   - initial input second argument
+     * @return input {@link StringBuilder}
+     */
+    public StringBuilder appendTo(final StringBuilder target, long arg0, long arg1) {
+        for (int i = 0; i < this.kinds.length; i++) {
+            if (this.kinds[i] == KIND_LITERAL) {
+                target.append(this.texts[i]);
+            } else {
+                checkArgument(i, 2);
+                appendLong(target, i, this.arguments[i] == 0 ? arg0 : arg1);
+            }
+        }
+        return target;
+    }
+
+    @Override
+    public String toString() {
+        return this.format;
+    }
+
+    private void appendObject(final StringBuilder target, int segment, final Object value) {
+        switch (this.kinds[segment]) {
+            case KIND_STRING:
+                if (value instanceof CharSequence) {
+                    target.append((CharSequence) value);
+                    return;
+                }
+                if (!(value instanceof Formattable)) {
+                    target.append(value);
+                    return;
+                }
+                break;
+            case KIND_DECIMAL:
+                if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                    target.append(((Number) value).longValue());
+                    return;
+                }
+                if (value == null || value instanceof BigInteger) {
+                    target.append(value);
+                    return;
+                }
+                break;
+            case KIND_CHAR:
+                if (value instanceof Character) {
+                    target.append(((Character) value).charValue());
+                    return;
+                }
+                if (value == null) {
+                    target.append(value);
+                    return;
+                }
+                break;
+            default:
+                break;
+        }
+        new Formatter(target, this.locale).format(this.texts[segment], value);
+    }
+
+    private void appendLong(final StringBuilder target, int segment, long value) {
+        switch (this.kinds[segment]) {
+            case KIND_STRING:
+            case KIND_DECIMAL:
+                target.append(value);
+                return;
+            default:
+                break;
+        }
+        new Formatter(target, this.locale).format(this.texts[segment], value);
+    }
+
+    private void appendDouble(final StringBuilder target, int segment, double value) {
+        if (this.kinds[segment] == KIND_STRING) {
+            target.append(value);
+            return;
+        }
+        new Formatter(target, this.locale).format(this.texts[segment], value);
+    }
+
+    private Object argument(final Object[] values, int segment) {
+        checkArgument(segment, values.length);
+        return values[this.arguments[segment]];
+    }
+
+    private void checkArgument(int segment, int count) {
+        if (this.arguments[segment] < 0 || this.arguments[segment] >= count) {
+            throw new MissingFormatArgumentException(this.texts[segment]);
+        }
+    }
+}
@@ -0,0 +1,442 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 SensibleMetrics Labs, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.sensiblemetrics.ansifancy.stream;
+
+import com.sensiblemetrics.ansifancy.model.iface.MatrixIF;
+import com.sensiblemetrics.ansifancy.model.iface.PointIF;
+import com.sensiblemetrics.ansifancy.model.iface.StyleIF;
+import com.sensiblemetrics.ansifancy.utils.ValidationUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Frame diff renderer: computes dirty spans between two screen {@link Frame}s and emits the shortest
+ * ANSI output transforming one into the other, choosing between relative (<code>CUU / CUD / CUF / CUB</code>,
+ * carriage return) and absolute (<code>CUP</code>) cursor moves and emitting only SGR deltas between
+ * cell styles. Renderer keeps track of the terminal cursor and style, so it is expected to be used
+ * for a single output and to see every frame written to it
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+public class FrameDiffRenderer {
+
+    private static final char ESC = 27;
+    private static final String[] NO_PARAMS = new String[0];
+    /**
+     * Default maximum number of cached styles, the cache is cleared when it is reached
+     */
+    private static final int DEFAULT_MAX_CACHED_STYLES = 4096;
+
+    /**
+     * Cached SGR parameters of seen styles (null style means default rendition)
+     */
+    private final Map<StyleIF, CachedParams> paramsCache = new IdentityHashMap<>();
+    private final SgrParams defaultParams = new SgrParams(NO_PARAMS);
+
+    private int cursorRow = -1;
+    private int cursorColumn = -1;
+    private SgrParams currentParams;
+
+    /**
+     * Returns ANSI output transforming previous frame into the next one
+     *
+     * @param previous - initial input previous {@link Frame} (null if nothing has been drawn yet)
+     * @param next     - initial input next {@link Frame}
+     * @return ANSI output {@link String}
+     */
+    public String diff(final Frame previous, final Frame next) {
+        return diff(previous, next, new StringBuilder()).toString();
+    }
+
+    /**
+     * Appends ANSI output transforming previous frame into the next one to the target {@link StringBuilder}.
+     * Falls back to {@link #redraw(Frame, StringBuilder)} if there is no previous frame or frame sizes differ
+     *
+     * @param previous - initial input previous {@link Frame} (null if nothing has been drawn yet)
+     * @param next     - initial input next {@link Frame}
+     * @param target   - initial input target {@link StringBuilder}
+     * @return target {@link StringBuilder}
+     */
+    public StringBuilder diff(final Frame previous, final Frame next, final StringBuilder target) {
+        Objects.requireNonNull(next, "Frame should not be null");
+        Objects.requireNonNull(target, "Target should not be null");
+        if (previous == null || previous.rows != next.rows || previous.columns != next.columns) {
+            return redraw(next, target);
+        }
+        final int columns = next.columns;
+        for (int row = 0; row < next.rows; row++) {
+            int column = nextDirty(previous, next, row, 0);
+            while (column < columns) {
+                moveTo(row, column, target);
+                int end = column;
+                while (true) {
+                    writeCell(next, row, end++, target);
+                    final int dirty = nextDirty(previous, next, row, end);
+                    if (dirty == columns || !isCheapGap(next, row, end, dirty)) {
+                        column = dirty;
+                        break;
+                    }
+                }
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Appends ANSI output drawing the whole frame from the home position to the target {@link StringBuilder}
+     *
+     * @param next   - initial input {@link Frame}
+     * @param target - initial input target {@link StringBuilder}
+     * @return target {@link StringBuilder}
+     */
+    public StringBuilder redraw(final Frame next, final StringBuilder target) {
+        Objects.requireNonNull(next, "Frame should not be null");
+        Objects.requireNonNull(target, "Target should not be null");
+        for (int row = 0; row < next.rows; row++) {
+            moveTo(row, 0, target);
+            for (int column = 0; column < next.columns; column++) {
+                writeCell(next, row, column, target);
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Forgets tracked cursor position and style, e.g. after output was written to the terminal bypassing the renderer
+     */
+    public void invalidate() {
+        cursorRow = cursorColumn = -1;
+        currentParams = null;
+    }
+
+    private int nextDirty(final Frame previous, final Frame next, int row, int from) {
+        int index = row * next.columns + from;
+        for (int column = from; column < next.columns; column++, index++) {
+            if (previous.characters[index] != next.characters[index] || !sameStyle(previous.styles[index], next.styles[index])) {
+                return column;
+            }
+        }
+        return next.columns;
+    }
+
+    /**
+     * Returns true if rewriting unchanged cells of the gap is not longer than moving the cursor over it
+     */
+    private boolean isCheapGap(final Frame next, int row, int from, int to) {
+        if (to - from > moveCost(to - from)) {
+            return false;
+        }
+        final int offset = row * next.columns;
+        for (int column = from; column < to; column++) {
+            if (!params(next.styles[offset + column]).equals(currentParams)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeCell(final Frame frame, int row, int column, final StringBuilder target) {
+        final int index = row * frame.columns + column;
+        writeStyle(params(frame.styles[index]), target);
+        target.append(frame.characters[index]);
+        if (column + 1 < frame.columns) {
+            cursorColumn = column + 1;
+        } else {
+            // pending wrap handling differs between terminals
+            cursorRow = cursorColumn = -1;
+        }
+    }
+
+    private void writeStyle(final SgrParams next, final StringBuilder target) {
+        final SgrParams current = currentParams;
+        currentParams = next;
+        if (next.equals(current)) {
+            return;
+        }
+        final int resetCost = 4 + (next.params.length == 0 ? 0 : 1 + next.length);
+        // parameters are applied in order, so only appending the rest of the next ones keeps the same state
+        if (current != null && current.isPrefixOf(next)) {
+            final int deltaLength = next.length - current.length - (current.params.length == 0 ? 0 : 1);
+            if (3 + deltaLength <= resetCost) {
+                target.append(ESC).append('[');
+                for (int i = current.params.length; i < next.params.length; i++) {
+                    if (i > current.params.length) {
+                        target.append(';');
+                    }
+                    target.append(next.params[i]);
+                }
+                target.append('m');
+                return;
+            }
+        }
+        target.append(ESC).append('[').append('0');
+        for (final String param : next.params) {
+            target.append(';').append(param);
+        }
+        target.append('m');
+    }
+
+    private void moveTo(int row, int column, final StringBuilder target) {
+        if (row == cursorRow && column == cursorColumn) {
+            return;
+        }
+        final int absoluteCost = row == 0 && column == 0 ? 3 : column == 0 ? 3 + digits(row + 1) : 4 + digits(row + 1) + digits(column + 1);
+        if (cursorRow >= 0) {
+            final int verticalCost = moveCost(row - cursorRow);
+            final int backCost = column < cursorColumn ? moveCost(cursorColumn - column) : Integer.MAX_VALUE;
+            final int returnCost = 1 + moveCost(column);
+            final int horizontalCost = column >= cursorColumn ? moveCost(column - cursorColumn) : Math.min(backCost, returnCost);
+            if (verticalCost + horizontalCost < absoluteCost) {
+                appendMove(row - cursorRow, 'B', 'A', target);
+                if (column >= cursorColumn) {
+                    appendMove(column - cursorColumn, 'C', 'D', target);
+                } else if (backCost <= returnCost) {
+                    appendMove(column - cursorColumn, 'C', 'D', target);
+                } else {
+                    target.append('\r');
+                    appendMove(column, 'C', 'D', target);
+                }
+                cursorRow = row;
+                cursorColumn = column;
+                return;
+            }
+        }
+        target.append(ESC).append('[');
+        if (row != 0 || column != 0) {
+            target.append(row + 1);
+            if (column != 0) {
+                target.append(';').append(column + 1);
+            }
+        }
+        target.append('H');
+        cursorRow = row;
+        cursorColumn = column;
+    }
+
+    private static void appendMove(int delta, char forward, char backward, final StringBuilder target) {
+        if (delta == 0) {
+            return;
+        }
+        target.append(ESC).append('[');
+        if (Math.abs(delta) != 1) {
+            target.append(Math.abs(delta));
+        }
+        target.append(delta > 0 ? forward : backward);
+    }
+
+    private static int moveCost(int delta) {
+        final int count = Math.abs(delta);
+        return count == 0 ? 0 : count == 1 ? 3 : 3 + digits(count);
+    }
+
+    private static int digits(int value) {
+        int result = 1;
+        while (value >= 10) {
+            value /= 10;
+            result++;
+        }
+        return result;
+    }
+
+    private boolean sameStyle(final StyleIF first, final StyleIF second) {
+        return first == second || params(first).equals(params(second));
+    }
+
+    private SgrParams params(final StyleIF style) {
+        if (style == null) {
+            return defaultParams;
+        }
+        // entries are validated against the style escape sequence, so mutated styles are recomputed
+        final char[] escape = style.getEscapeChars();
+        final CachedParams cached = paramsCache.get(style);
+        if (cached != null && (cached.escape == escape || Arrays.equals(cached.escape, escape))) {
+            return cached.params;
+        }
+        SgrParams result = SgrParams.of(style);
+        if (result.params.length == 0) {
+            result = defaultParams;
+        }
+        if (cached == null && paramsCache.size() >= DEFAULT_MAX_CACHED_STYLES) {
+            paramsCache.clear();
+        }
+        paramsCache.put(style, new CachedParams(escape, result));
+        return result;
+    }
+
+    /**
+     * SGR parameters of a style along with the escape sequence they were computed from
+     */
+    private static final class CachedParams {
+
+        private final char[] escape;
+        private final SgrParams params;
+
+        private CachedParams(final char[] escape, final SgrParams params) {
+            this.escape = escape;
+            this.params = params;
+        }
+    }
+
+    /**
+     * SGR parameters of a style in declaration order: later parameters override earlier ones
+     * (e.g. <code>31;32</code> is green, <code>32;31</code> is red), so parameter lists are equal only in the same order
+     */
+    private static final class SgrParams {
+
+        private final String[] params;
+        private final int length;
+
+        private SgrParams(final String[] params) {
+            this.params = params;
+            int total = 0;
+            for (final String param : params) {
+                total += param.length();
+            }
+            this.length = total + Math.max(0, params.length - 1);
+        }
+
+        private static SgrParams of(final StyleIF style) {
+            final List<String> result = new ArrayList<>();
+            for (final PointIF point : style.<Iterable<PointIF>>getPoints()) {
+                final CharSequence code = point.getCode();
+                if (code != null && code.length() > 3 && code.charAt(0) == ESC && code.charAt(1) == '[' && code.charAt(code.length() - 1) == 'm') {
+                    final String param = code.subSequence(2, code.length() - 1).toString();
+                    // only the last occurrence of a repeated parameter takes effect
+                    result.remove(param);
+                    result.add(param);
+                }
+            }
+            return new SgrParams(result.toArray(NO_PARAMS));
+        }
+
+        private boolean isPrefixOf(final SgrParams other) {
+            if (params.length > other.params.length) {
+                return false;
+            }
+            for (int i = 0; i < params.length; i++) {
+                if (!params[i].equals(other.params[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return this == other || other instanceof SgrParams && Arrays.equals(params, ((SgrParams) other).params);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(params);
+        }
+    }
+
+    /**
+     * Screen frame of characters and {@link StyleIF} per cell (null style means default rendition)
+     */
+    public static final class Frame {
+
+        private final int rows;
+        private final int columns;
+        private final char[] characters;
+        private final StyleIF[] styles;
+
+        public Frame(int rows, int columns) {
+            ValidationUtils.isTrue(rows > 0 && columns > 0, "Frame size should be positive");
+            this.rows = rows;
+            this.columns = columns;
+            this.characters = new char[rows * columns];
+            this.styles = new StyleIF[rows * columns];
+            Arrays.fill(this.characters, ' ');
+        }
+
+        /**
+         * Returns new {@link Frame} instance by input lines and styles matrix of the same size
+         *
+         * @param lines  - initial input lines {@link CharSequence} (shorter lines are padded with blanks)
+         * @param styles - initial input styles {@link MatrixIF}
+         * @return new {@link Frame} instance
+         */
+        public static Frame of(final CharSequence[] lines, final MatrixIF<StyleIF> styles) {
+            Objects.requireNonNull(lines, "Lines should not be null");
+            Objects.requireNonNull(styles, "Styles should not be null");
+            final Frame frame = new Frame(styles.height(), styles.width());
+            for (int row = 0; row < frame.rows; row++) {
+                final CharSequence line = row < lines.length ? lines[row] : null;
+                for (int column = 0; column < frame.columns; column++) {
+                    frame.set(row, column, line != null && column < line.length() ? line.charAt(column) : ' ', styles.get(row, column));
+                }
+            }
+            return frame;
+        }
+
+        public int getRows() {
+            return rows;
+        }
+
+        public int getColumns() {
+            return columns;
+        }
+
+        public char getCharacter(int row, int column) {
+            return characters[index(row, column)];
+        }
+
+        public StyleIF getStyle(int row, int column) {
+            return styles[index(row, column)];
+        }
+
+        public void set(int row, int column, char character, final StyleIF style) {
+            final int index = index(row, column);
+            characters[index] = character;
+            styles[index] = style;
+        }
+
+        /**
+         * Returns copy of current {@link Frame}
+         *
+         * @return copy of current {@link Frame}
+         */
+        public Frame copy() {
+            final Frame frame = new Frame(rows, columns);
+            System.arraycopy(characters, 0, frame.characters, 0, characters.length);
+            System.arraycopy(styles, 0, frame.styles, 0, styles.length);
+            return frame;
+        }
+
+        private int index(int row, int column) {
+            if (row < 0 || row >= rows || column < 0 || column >= columns) {
+                throw new IndexOutOfBoundsException(String.format("ERROR: invalid cell={%s, %s}", row, column));
+            }
+            return row * columns + column;
+        }
+    }
+}
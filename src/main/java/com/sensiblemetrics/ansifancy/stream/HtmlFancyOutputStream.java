@@ -25,99 +25,323 @@ package com.sensiblemetrics.ansifancy.stream;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 /**
- * Html fancy output stream writer with ANSI color rendering support {@link FancyOutputStream}
+ * Html fancy output stream writer with ANSI color rendering support {@link FancyOutputStream}:
+ * current style is kept as an attribute bitmask plus foreground / background colors (xterm 256-color
+ * palette indexes or 24-bit RGB values), and a single {@code <span class="...">} referencing the shared
+ * {@link #getStyleSheet()} palette (with inline style for 24-bit colors) is emitted before visible text
+ * only when the effective style has actually changed
  *
  * @author Alexander Rogalskiy
  * @version 1.0
  */
 public class HtmlFancyOutputStream extends FancyOutputStream {
 
-    private final List<String> closingAttributes = new ArrayList<>();
-    private boolean concealOn = false;
+    /**
+     * Default style attribute bits
+     */
+    private static final int STYLE_BOLD = 1;
+    private static final int STYLE_FAINT = 1 << 1;
+    private static final int STYLE_ITALIC = 1 << 2;
+    private static final int STYLE_UNDERLINE = 1 << 3;
+    private static final int STYLE_BLINK = 1 << 4;
+    private static final int STYLE_NEGATIVE = 1 << 5;
+    private static final int STYLE_CONCEAL = 1 << 6;
+    /**
+     * Default style attribute CSS class names (by attribute bit order)
+     */
+    private static final String[] STYLE_CLASSES = {"bold", "faint", "italic", "underline", "blink", "negative", "conceal"};
+    /**
+     * Default style attribute CSS declarations (by attribute bit order)
+     */
+    private static final String[] STYLE_DECLARATIONS = {
+        "font-weight: bold;", "opacity: 0.5;", "font-style: italic;", "text-decoration: underline;",
+        "text-decoration: blink;", "color: #000000; background-color: #e5e5e5;", "visibility: hidden;"
+    };
+    /**
+     * Default italic off attribute ({@link FancyOutputStream} declares no constant for it)
+     */
+    private static final int ATTRIBUTE_ITALIC_OFF = 23;
+    /**
+     * Default (terminal defined) color
+     */
+    private static final int COLOR_DEFAULT = -1;
+    /**
+     * Default 24-bit color flag, set on top of the RGB value
+     */
+    private static final int COLOR_TRUECOLOR = 1 << 24;
+    /**
+     * Default CSS class name prefix
+     */
+    private static final String CLASS_PREFIX = "ansi-";
+    /**
+     * Default xterm system colors: 8 normal followed by 8 bright ones
+     */
+    private static final int[] ANSI_COLOR_MAP = {
+        0x000000, 0xcd0000, 0x00cd00, 0xcdcd00, 0x0000ee, 0xcd00cd, 0x00cdcd, 0xe5e5e5,
+        0x7f7f7f, 0xff0000, 0x00ff00, 0xffff00, 0x5c5cff, 0xff00ff, 0x00ffff, 0xffffff
+    };
+    /**
+     * Default xterm 6x6x6 color cube levels
+     */
+    private static final int[] CUBE_LEVELS = {0x00, 0x5f, 0x87, 0xaf, 0xd7, 0xff};
+    /**
+     * Default xterm 256-color palette: system colors, 6x6x6 color cube and 24 grayscale steps
+     * (shared with other stream writers of the package)
+     */
+    static final int[] PALETTE = new int[256];
+    /**
+     * Default palette colors hex strings
+     */
+    private static final String[] PALETTE_HEX = new String[PALETTE.length];
+    /**
+     * Default byte value to two lowercase hex digits table
+     */
+    private static final byte[] HEX_TABLE = new byte[512];
 
-    @Override
-    public void close() throws IOException {
-        closeAttributes();
-        super.close();
-    }
+    private static final byte[][] STYLE_TOKENS = new byte[STYLE_CLASSES.length][];
+    private static final byte[][] FOREGROUND_TOKENS = new byte[PALETTE.length][];
+    private static final byte[][] BACKGROUND_TOKENS = new byte[PALETTE.length][];
 
-    private static final String[] ANSI_COLOR_MAP = {"black", "red", "green", "yellow", "blue", "magenta", "cyan", "white",};
+    static {
+        System.arraycopy(ANSI_COLOR_MAP, 0, PALETTE, 0, ANSI_COLOR_MAP.length);
+        for (int i = 0; i < 216; i++) {
+            PALETTE[16 + i] = CUBE_LEVELS[i / 36] << 16 | CUBE_LEVELS[i / 6 % 6] << 8 | CUBE_LEVELS[i % 6];
+        }
+        for (int i = 0; i < 24; i++) {
+            final int level = 8 + i * 10;
+            PALETTE[232 + i] = level << 16 | level << 8 | level;
+        }
+        final byte[] digits = toBytes("0123456789abcdef");
+        for (int i = 0; i < 256; i++) {
+            HEX_TABLE[i << 1] = digits[i >>> 4];
+            HEX_TABLE[(i << 1) + 1] = digits[i & 0xF];
+        }
+        for (int i = 0; i < PALETTE.length; i++) {
+            PALETTE_HEX[i] = String.format("%06x", PALETTE[i]);
+            FOREGROUND_TOKENS[i] = toBytes(" " + CLASS_PREFIX + "fg-" + i);
+            BACKGROUND_TOKENS[i] = toBytes(" " + CLASS_PREFIX + "bg-" + i);
+        }
+        for (int i = 0; i < STYLE_CLASSES.length; i++) {
+            STYLE_TOKENS[i] = toBytes(" " + CLASS_PREFIX + STYLE_CLASSES[i]);
+        }
+    }
 
     private static final byte[] BYTES_QUOT = "&quot;".getBytes();
     private static final byte[] BYTES_AMP = "&amp;".getBytes();
     private static final byte[] BYTES_LT = "&lt;".getBytes();
     private static final byte[] BYTES_GT = "&gt;".getBytes();
+    private static final byte[] BYTES_SPAN_OPEN = toBytes("<span");
+    private static final byte[] BYTES_SPAN_OPEN_END = toBytes(">");
+    private static final byte[] BYTES_SPAN_CLOSE = toBytes("</span>");
+    private static final byte[] BYTES_CLASS_OPEN = toBytes(" class=\"");
+    private static final byte[] BYTES_STYLE_OPEN = toBytes(" style=\"");
+    private static final byte[] BYTES_ATTRIBUTE_CLOSE = toBytes("\"");
+    private static final byte[] BYTES_COLOR = toBytes("color: #");
+    private static final byte[] BYTES_BACKGROUND_COLOR = toBytes(" background-color: #");
+
+    /**
+     * Current style, applied to the next visible character
+     */
+    private int attributes = 0;
+    private int foreground = COLOR_DEFAULT;
+    private int background = COLOR_DEFAULT;
+    /**
+     * Rendered style, i.e. style of the currently open span
+     */
+    private int renderedAttributes = 0;
+    private int renderedForeground = COLOR_DEFAULT;
+    private int renderedBackground = COLOR_DEFAULT;
+
+    private byte[] spanBuffer = new byte[128];
+    private int spanLength = 0;
 
     public HtmlFancyOutputStream(final OutputStream os) {
         super(os);
     }
 
-    private void write(final String s) throws IOException {
-        this.out.write(s.getBytes());
+    /**
+     * Returns CSS style sheet with the class palette referenced by rendered spans
+     *
+     * @return CSS style sheet {@link String}
+     */
+    public static String getStyleSheet() {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < STYLE_CLASSES.length; i++) {
+            sb.append('.').append(CLASS_PREFIX).append(STYLE_CLASSES[i]).append(" { ").append(STYLE_DECLARATIONS[i]).append(" }\n");
+        }
+        for (int i = 0; i < PALETTE.length; i++) {
+            sb.append('.').append(CLASS_PREFIX).append("fg-").append(i).append(" { color: #").append(PALETTE_HEX[i]).append("; }\n");
+        }
+        for (int i = 0; i < PALETTE.length; i++) {
+            sb.append('.').append(CLASS_PREFIX).append("bg-").append(i).append(" { background-color: #").append(PALETTE_HEX[i]).append("; }\n");
+        }
+        return sb.toString();
     }
 
-    private void writeAttribute(final String s) throws IOException {
-        write("<" + s + ">");
-        this.closingAttributes.add(0, s.split(" ", 2)[0]);
+    @Override
+    public void close() throws IOException {
+        resetStyle();
+        renderStyle();
+        super.close();
     }
 
-    private void closeAttributes() throws IOException {
-        for (String attr : closingAttributes) {
-            write("</" + attr + ">");
+    @Override
+    public void write(int data) throws IOException {
+        if (isPlain() && (data & 0xFF) != 27) {
+            renderStyle();
+            final byte[] entity = toEntity(data & 0xFF);
+            if (entity != null) {
+                this.out.write(entity);
+            } else {
+                this.out.write(data);
+            }
+        } else {
+            super.write(data);
         }
-        this.closingAttributes.clear();
     }
 
-    public void write(int data) throws IOException {
-        switch (data) {
-            case 34: // "
-                this.out.write(BYTES_QUOT);
-                break;
-            case 38: // &
-                this.out.write(BYTES_AMP);
-                break;
-            case 60: // <
-                this.out.write(BYTES_LT);
-                break;
-            case 62: // >
-                this.out.write(BYTES_GT);
-                break;
-            default:
-                super.write(data);
+    @Override
+    protected void writePlain(final byte[] data, int offset, int length) throws IOException {
+        if (length > 0) {
+            renderStyle();
+        }
+        final int end = offset + length;
+        int start = offset;
+        for (int i = offset; i < end; i++) {
+            final byte[] entity = toEntity(data[i]);
+            if (entity != null) {
+                if (i > start) {
+                    this.out.write(data, start, i - start);
+                }
+                this.out.write(entity);
+                start = i + 1;
+            }
+        }
+        if (end > start) {
+            this.out.write(data, start, end - start);
         }
     }
 
     public void writeLine(byte[] buf, int offset, int len) throws IOException {
         write(buf, offset, len);
-        closeAttributes();
+        resetStyle();
+        renderStyle();
+    }
+
+    /**
+     * Copies current and rendered style from input stream
+     *
+     * @param source the stream to copy state from
+     */
+    void copyStateFrom(final HtmlFancyOutputStream source) {
+        this.attributes = source.attributes;
+        this.foreground = source.foreground;
+        this.background = source.background;
+        this.renderedAttributes = source.renderedAttributes;
+        this.renderedForeground = source.renderedForeground;
+        this.renderedBackground = source.renderedBackground;
+    }
+
+    /**
+     * Closes the open span and opens a new one if current style differs from the rendered one
+     *
+     * @throws IOException IOException
+     */
+    void renderStyle() throws IOException {
+        if (attributes == renderedAttributes && foreground == renderedForeground && background == renderedBackground) {
+            return;
+        }
+        spanLength = 0;
+        if (!isDefault(renderedAttributes, renderedForeground, renderedBackground)) {
+            append(BYTES_SPAN_CLOSE, 0);
+        }
+        if (!isDefault(attributes, foreground, background)) {
+            append(BYTES_SPAN_OPEN, 0);
+            final int mark = spanLength;
+            for (int i = 0; i < STYLE_TOKENS.length; i++) {
+                if ((attributes & (1 << i)) != 0) {
+                    appendClass(STYLE_TOKENS[i], mark);
+                }
+            }
+            final boolean negative = (attributes & STYLE_NEGATIVE) != 0;
+            final int fg = negative ? background : foreground;
+            final int bg = negative ? foreground : background;
+            if (fg != COLOR_DEFAULT && fg < COLOR_TRUECOLOR) {
+                appendClass(FOREGROUND_TOKENS[fg], mark);
+            }
+            if (bg != COLOR_DEFAULT && bg < COLOR_TRUECOLOR) {
+                appendClass(BACKGROUND_TOKENS[bg], mark);
+            }
+            if (spanLength > mark) {
+                append(BYTES_ATTRIBUTE_CLOSE, 0);
+            }
+            if (fg >= COLOR_TRUECOLOR || bg >= COLOR_TRUECOLOR) {
+                append(BYTES_STYLE_OPEN, 0);
+                if (fg >= COLOR_TRUECOLOR) {
+                    append(BYTES_COLOR, 0);
+                    appendHex(fg);
+                }
+                if (bg >= COLOR_TRUECOLOR) {
+                    append(BYTES_BACKGROUND_COLOR, fg >= COLOR_TRUECOLOR ? 0 : 1);
+                    appendHex(bg);
+                }
+                append(BYTES_ATTRIBUTE_CLOSE, 0);
+            }
+            append(BYTES_SPAN_OPEN_END, 0);
+        }
+        this.out.write(spanBuffer, 0, spanLength);
+        renderedAttributes = attributes;
+        renderedForeground = foreground;
+        renderedBackground = background;
     }
 
     @Override
     protected void processSetAttribute(int attribute) throws IOException {
         switch (attribute) {
-            case ATTRIBUTE_CONCEAL_ON:
-                write("\u001B[8m");
-                concealOn = true;
-                break;
             case ATTRIBUTE_INTENSITY_BOLD:
-                writeAttribute("b");
+                attributes = (attributes & ~STYLE_FAINT) | STYLE_BOLD;
+                break;
+            case ATTRIBUTE_INTENSITY_FAINT:
+                attributes = (attributes & ~STYLE_BOLD) | STYLE_FAINT;
                 break;
             case ATTRIBUTE_INTENSITY_NORMAL:
-                closeAttributes();
+                attributes &= ~(STYLE_BOLD | STYLE_FAINT);
+                break;
+            case ATTRIBUTE_ITALIC:
+                attributes |= STYLE_ITALIC;
+                break;
+            case ATTRIBUTE_ITALIC_OFF:
+                attributes &= ~STYLE_ITALIC;
                 break;
             case ATTRIBUTE_UNDERLINE:
-                writeAttribute("u");
+            case ATTRIBUTE_UNDERLINE_DOUBLE:
+                attributes |= STYLE_UNDERLINE;
                 break;
             case ATTRIBUTE_UNDERLINE_OFF:
-                closeAttributes();
+                attributes &= ~STYLE_UNDERLINE;
+                break;
+            case ATTRIBUTE_BLINK_SLOW:
+            case ATTRIBUTE_BLINK_FAST:
+                attributes |= STYLE_BLINK;
+                break;
+            case ATTRIBUTE_BLINK_OFF:
+                attributes &= ~STYLE_BLINK;
                 break;
             case ATTRIBUTE_NEGATIVE_ON:
+                attributes |= STYLE_NEGATIVE;
                 break;
             case ATTRIBUTE_NEGATIVE_OFF:
+                attributes &= ~STYLE_NEGATIVE;
+                break;
+            case ATTRIBUTE_CONCEAL_ON:
+                attributes |= STYLE_CONCEAL;
+                break;
+            case ATTRIBUTE_CONCEAL_OFF:
+                attributes &= ~STYLE_CONCEAL;
                 break;
             default:
                 break;
@@ -126,20 +350,109 @@ public class HtmlFancyOutputStream extends FancyOutputStream {
 
     @Override
     protected void processAttributeRest() throws IOException {
-        if (concealOn) {
-            write("\u001B[0m");
-            concealOn = false;
-        }
-        closeAttributes();
+        resetStyle();
     }
 
     @Override
     protected void processSetForegroundColor(int color, boolean bright) throws IOException {
-        writeAttribute("span style=\"color: " + ANSI_COLOR_MAP[color] + ";\"");
+        foreground = bright ? color + 8 : color;
     }
 
     @Override
     protected void processSetBackgroundColor(int color, boolean bright) throws IOException {
-        writeAttribute("span style=\"background-color: " + ANSI_COLOR_MAP[color] + ";\"");
+        background = bright ? color + 8 : color;
+    }
+
+    @Override
+    protected void processSetForegroundColorExt(int paletteIndex) throws IOException {
+        foreground = paletteIndex;
+    }
+
+    @Override
+    protected void processSetForegroundColorExt(int r, int g, int b) throws IOException {
+        foreground = COLOR_TRUECOLOR | r << 16 | g << 8 | b;
+    }
+
+    @Override
+    protected void processSetBackgroundColorExt(int paletteIndex) throws IOException {
+        background = paletteIndex;
+    }
+
+    @Override
+    protected void processSetBackgroundColorExt(int r, int g, int b) throws IOException {
+        background = COLOR_TRUECOLOR | r << 16 | g << 8 | b;
+    }
+
+    @Override
+    protected void processDefaultTextColor() throws IOException {
+        foreground = COLOR_DEFAULT;
+    }
+
+    @Override
+    protected void processDefaultBackgroundColor() throws IOException {
+        background = COLOR_DEFAULT;
+    }
+
+    private void resetStyle() {
+        attributes = 0;
+        foreground = COLOR_DEFAULT;
+        background = COLOR_DEFAULT;
+    }
+
+    private void appendClass(final byte[] token, int mark) {
+        if (spanLength == mark) {
+            append(BYTES_CLASS_OPEN, 0);
+            append(token, 1);
+        } else {
+            append(token, 0);
+        }
+    }
+
+    /**
+     * Appends 24-bit color as six hex digits followed by semicolon
+     */
+    private void appendHex(int color) {
+        ensureCapacity(7);
+        System.arraycopy(HEX_TABLE, (color >>> 15) & 0x1FE, spanBuffer, spanLength, 2);
+        System.arraycopy(HEX_TABLE, (color >>> 7) & 0x1FE, spanBuffer, spanLength + 2, 2);
+        System.arraycopy(HEX_TABLE, (color << 1) & 0x1FE, spanBuffer, spanLength + 4, 2);
+        spanBuffer[spanLength + 6] = ';';
+        spanLength += 7;
+    }
+
+    private void append(final byte[] data, int offset) {
+        final int length = data.length - offset;
+        ensureCapacity(length);
+        System.arraycopy(data, offset, spanBuffer, spanLength, length);
+        spanLength += length;
+    }
+
+    private void ensureCapacity(int length) {
+        if (spanLength + length > spanBuffer.length) {
+            spanBuffer = Arrays.copyOf(spanBuffer, Math.max(spanLength + length, spanBuffer.length * 2));
+        }
+    }
+
+    private static boolean isDefault(int attributes, int foreground, int background) {
+        return attributes == 0 && foreground == COLOR_DEFAULT && background == COLOR_DEFAULT;
+    }
+
+    private static byte[] toBytes(final String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] toEntity(int data) {
+        switch (data) {
+            case 34: // "
+                return BYTES_QUOT;
+            case 38: // &
+                return BYTES_AMP;
+            case 60: // <
+                return BYTES_LT;
+            case 62: // >
+                return BYTES_GT;
+            default:
+                return null;
+        }
     }
 }
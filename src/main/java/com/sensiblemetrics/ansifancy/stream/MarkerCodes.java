@@ -0,0 +1,95 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 SensibleMetrics Labs, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.sensiblemetrics.ansifancy.stream;
+
+import com.sensiblemetrics.ansifancy.config.iface.ConfigurationIF;
+import com.sensiblemetrics.ansifancy.config.impl.FrozenConfiguration;
+import com.sensiblemetrics.ansifancy.model.iface.MarkerIF;
+import com.sensiblemetrics.ansifancy.processor.impl.MarkerProcessor;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * {@link ConfigurationIF} marker name to escape codes table shared by markup renderers
+ * (markup symbols are tested by {@link MarkerProcessor}, escape codes are rendered by {@link FrozenConfiguration})
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+final class MarkerCodes {
+
+    /**
+     * Marker names and escape codes of the same indexes
+     */
+    private final char[][] names;
+    private final char[][] codes;
+
+    MarkerCodes(final ConfigurationIF configuration) {
+        Objects.requireNonNull(configuration, "Configuration should not be null");
+        this.names = new char[configuration.getMarkers().size()][];
+        this.codes = new char[this.names.length][];
+        int i = 0;
+        for (final MarkerIF<?> marker : configuration.getMarkers()) {
+            this.names[i] = marker.getMetaData().getName().toCharArray();
+            this.codes[i++] = FrozenConfiguration.getCode(marker).toCharArray();
+        }
+    }
+
+    /**
+     * Returns escape codes of the marker named by input range or {@code null} if there is no such marker
+     *
+     * @param buf  the characters
+     * @param from the start index of the name
+     * @param to   the end index of the name
+     * @return escape codes or {@code null}
+     */
+    char[] find(final char[] buf, int from, int to) {
+        final int length = to - from;
+        for (int i = 0; i < this.names.length; i++) {
+            final char[] name = this.names[i];
+            if (name.length == length && Arrays.equals(name, 0, length, buf, from, to)) {
+                return this.codes[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns end index of the class name starting at input index: index of the name end symbol
+     * if the name is terminated by it or -1 otherwise
+     *
+     * @param buf  the characters
+     * @param from the start index of the name
+     * @param to   the end index of the characters
+     * @return class name end index or -1
+     */
+    static int indexOfNameEnd(final char[] buf, int from, int to) {
+        int i = from;
+        while (i < to && !MarkerProcessor.isNameEnd(buf[i])) {
+            i++;
+        }
+        return i < to && buf[i] == MarkerProcessor.DEFAULT_CHAR_ESCAPE_CLASS_NAME_END_SYMBOL ? i : -1;
+    }
+}
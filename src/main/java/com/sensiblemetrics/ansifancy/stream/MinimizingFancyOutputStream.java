@@ -0,0 +1,405 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 SensibleMetrics Labs, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.sensiblemetrics.ansifancy.stream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Pass-through fancy output stream writer {@link FancyOutputStream} that minimizes SGR (select graphic
+ * rendition) output: effective style (intensity, italic, underline, blink, negative, conceal, strike-through
+ * and 8 / 256 / 24-bit foreground / background colors) is tracked, SGR sequences only update it, and
+ * a single merged {@code ESC[...m} is emitted before the next visible character - as a delta from the
+ * rendered style or as a reset plus full style, whichever is shorter - so no-op and superseded
+ * attribute changes are dropped. Non-SGR sequences are written through as is (with the pending style
+ * emitted first), as well as SGR sequences containing attributes that are not tracked
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+public class MinimizingFancyOutputStream extends PassThroughFancyOutputStream {
+
+    /**
+     * Default style attribute bits
+     */
+    private static final int STYLE_BOLD = 1;
+    private static final int STYLE_FAINT = 1 << 1;
+    private static final int STYLE_ITALIC = 1 << 2;
+    private static final int STYLE_UNDERLINE = 1 << 3;
+    private static final int STYLE_BLINK = 1 << 4;
+    private static final int STYLE_NEGATIVE = 1 << 5;
+    private static final int STYLE_CONCEAL = 1 << 6;
+    private static final int STYLE_STRIKE = 1 << 7;
+    private static final int STYLE_INTENSITY = STYLE_BOLD | STYLE_FAINT;
+    /**
+     * Default attribute codes not declared by {@link FancyOutputStream}
+     */
+    private static final int ATTRIBUTE_RESET = 0;
+    private static final int ATTRIBUTE_STRIKE = 9;
+    private static final int ATTRIBUTE_ITALIC_OFF = 23;
+    private static final int ATTRIBUTE_STRIKE_OFF = 29;
+    /**
+     * Default on / off attribute codes of the style bits from {@link #STYLE_ITALIC}
+     */
+    private static final int[] STYLE_ON = {ATTRIBUTE_ITALIC, ATTRIBUTE_UNDERLINE, ATTRIBUTE_BLINK_SLOW, ATTRIBUTE_NEGATIVE_ON, ATTRIBUTE_CONCEAL_ON, ATTRIBUTE_STRIKE};
+    private static final int[] STYLE_OFF = {ATTRIBUTE_ITALIC_OFF, ATTRIBUTE_UNDERLINE_OFF, ATTRIBUTE_BLINK_OFF, ATTRIBUTE_NEGATIVE_OFF, ATTRIBUTE_CONCEAL_OFF, ATTRIBUTE_STRIKE_OFF};
+    private static final int STYLE_ON_OFF_SHIFT = 2;
+    /**
+     * Default color values: palette indexes, default color or 24-bit color flag plus RGB value
+     */
+    private static final int COLOR_DEFAULT = -1;
+    private static final int COLOR_TRUECOLOR = 1 << 24;
+    /**
+     * Default maximum length of a merged SGR sequence (reset, all attributes and two 24-bit colors)
+     */
+    private static final int MAX_SGR_LENGTH = 96;
+
+    /**
+     * Current (pending) style
+     */
+    private int attributes = 0;
+    private int foreground = COLOR_DEFAULT;
+    private int background = COLOR_DEFAULT;
+    /**
+     * Binary flag whether untracked attributes may be set since the last reset
+     */
+    private boolean untrackedActive = false;
+    /**
+     * Rendered style, i.e. style the terminal has after the written output
+     */
+    private int renderedAttributes = 0;
+    private int renderedForeground = COLOR_DEFAULT;
+    private int renderedBackground = COLOR_DEFAULT;
+    private boolean renderedUntracked = false;
+    /**
+     * Style at the start of the current escape sequence
+     */
+    private int sequenceAttributes = 0;
+    private int sequenceForeground = COLOR_DEFAULT;
+    private int sequenceBackground = COLOR_DEFAULT;
+    private boolean sequenceUntracked = false;
+
+    private boolean graphicRendition = false;
+    private boolean untracked = false;
+
+    private final byte[] delta = new byte[MAX_SGR_LENGTH];
+    private final byte[] full = new byte[MAX_SGR_LENGTH];
+
+    public MinimizingFancyOutputStream(final OutputStream os) {
+        super(os);
+        this.delta[0] = this.full[0] = 27;
+        this.delta[1] = this.full[1] = '[';
+    }
+
+    @Override
+    public void close() throws IOException {
+        write(RESET_CODE);
+        renderStyle();
+        super.close();
+    }
+
+    @Override
+    void beforeText() throws IOException {
+        renderStyle();
+    }
+
+    @Override
+    void beginSequence() {
+        sequenceAttributes = attributes;
+        sequenceForeground = foreground;
+        sequenceBackground = background;
+        sequenceUntracked = untrackedActive;
+        graphicRendition = untracked = false;
+    }
+
+    /**
+     * Aborted escape sequence is written through as is, so partially applied attributes are rolled back
+     */
+    @Override
+    void abortSequence() {
+        attributes = sequenceAttributes;
+        foreground = sequenceForeground;
+        background = sequenceBackground;
+        untrackedActive = sequenceUntracked;
+    }
+
+    /**
+     * Writes out completed escape sequence unless it is fully represented by the tracked style
+     */
+    @Override
+    void finishSequence(final byte[] sequence, int length) throws IOException {
+        if (graphicRendition && !untracked) {
+            return;
+        }
+        if (graphicRendition) {
+            // untracked attributes: render style preceding the sequence and write the sequence through
+            final int currentAttributes = attributes;
+            final int currentForeground = foreground;
+            final int currentBackground = background;
+            attributes = sequenceAttributes;
+            foreground = sequenceForeground;
+            background = sequenceBackground;
+            untrackedActive = sequenceUntracked;
+            renderStyle();
+            this.out.write(sequence, 0, length);
+            attributes = renderedAttributes = currentAttributes;
+            foreground = renderedForeground = currentForeground;
+            background = renderedBackground = currentBackground;
+            untrackedActive = renderedUntracked = true;
+            return;
+        }
+        // erase, insert and scroll sequences fill cells with the current background, so style is rendered first
+        renderStyle();
+        this.out.write(sequence, 0, length);
+    }
+
+    /**
+     * Writes out a single SGR sequence switching rendered style to the current one if they differ.
+     * Rendered untracked attributes are kept by a delta until the next reset, which is then always rendered
+     *
+     * @throws IOException IOException
+     */
+    void renderStyle() throws IOException {
+        if (attributes == renderedAttributes && foreground == renderedForeground && background == renderedBackground
+            && untrackedActive == renderedUntracked) {
+            return;
+        }
+        int deltaLength = 2;
+        final int renderedIntensity = renderedAttributes & STYLE_INTENSITY;
+        final int intensity = attributes & STYLE_INTENSITY;
+        if (renderedIntensity != intensity) {
+            if (renderedIntensity != 0) {
+                deltaLength = appendParameter(delta, deltaLength, ATTRIBUTE_INTENSITY_NORMAL);
+            }
+            deltaLength = appendIntensity(delta, deltaLength, intensity);
+        }
+        final int changed = renderedAttributes ^ attributes;
+        for (int i = 0; i < STYLE_ON.length; i++) {
+            final int bit = 1 << (i + STYLE_ON_OFF_SHIFT);
+            if ((changed & bit) != 0) {
+                deltaLength = appendParameter(delta, deltaLength, (attributes & bit) != 0 ? STYLE_ON[i] : STYLE_OFF[i]);
+            }
+        }
+        if (foreground != renderedForeground) {
+            deltaLength = appendColor(delta, deltaLength, foreground, false);
+        }
+        if (background != renderedBackground) {
+            deltaLength = appendColor(delta, deltaLength, background, true);
+        }
+
+        int fullLength = appendParameter(full, 2, ATTRIBUTE_RESET);
+        fullLength = appendIntensity(full, fullLength, intensity);
+        for (int i = 0; i < STYLE_ON.length; i++) {
+            if ((attributes & 1 << (i + STYLE_ON_OFF_SHIFT)) != 0) {
+                fullLength = appendParameter(full, fullLength, STYLE_ON[i]);
+            }
+        }
+        if (foreground != COLOR_DEFAULT) {
+            fullLength = appendColor(full, fullLength, foreground, false);
+        }
+        if (background != COLOR_DEFAULT) {
+            fullLength = appendColor(full, fullLength, background, true);
+        }
+
+        final boolean reset = renderedUntracked && !untrackedActive;
+        if (!reset && (untrackedActive || deltaLength <= fullLength)) {
+            delta[deltaLength] = 'm';
+            this.out.write(delta, 0, deltaLength + 1);
+        } else {
+            full[fullLength] = 'm';
+            this.out.write(full, 0, fullLength + 1);
+        }
+        renderedAttributes = attributes;
+        renderedForeground = foreground;
+        renderedBackground = background;
+        renderedUntracked = untrackedActive;
+    }
+
+    @Override
+    protected void processSetAttribute(int attribute) throws IOException {
+        graphicRendition = true;
+        switch (attribute) {
+            case ATTRIBUTE_INTENSITY_BOLD:
+                attributes = (attributes & ~STYLE_FAINT) | STYLE_BOLD;
+                break;
+            case ATTRIBUTE_INTENSITY_FAINT:
+                attributes = (attributes & ~STYLE_BOLD) | STYLE_FAINT;
+                break;
+            case ATTRIBUTE_INTENSITY_NORMAL:
+                attributes &= ~STYLE_INTENSITY;
+                break;
+            case ATTRIBUTE_ITALIC:
+                attributes |= STYLE_ITALIC;
+                break;
+            case ATTRIBUTE_ITALIC_OFF:
+                attributes &= ~STYLE_ITALIC;
+                break;
+            case ATTRIBUTE_UNDERLINE:
+                attributes |= STYLE_UNDERLINE;
+                break;
+            case ATTRIBUTE_UNDERLINE_DOUBLE:
+                attributes |= STYLE_UNDERLINE;
+                untracked = true;
+                break;
+            case ATTRIBUTE_UNDERLINE_OFF:
+                attributes &= ~STYLE_UNDERLINE;
+                break;
+            case ATTRIBUTE_BLINK_SLOW:
+                attributes |= STYLE_BLINK;
+                break;
+            case ATTRIBUTE_BLINK_FAST:
+                attributes |= STYLE_BLINK;
+                untracked = true;
+                break;
+            case ATTRIBUTE_BLINK_OFF:
+                attributes &= ~STYLE_BLINK;
+                break;
+            case ATTRIBUTE_NEGATIVE_ON:
+                attributes |= STYLE_NEGATIVE;
+                break;
+            case ATTRIBUTE_NEGATIVE_OFF:
+                attributes &= ~STYLE_NEGATIVE;
+                break;
+            case ATTRIBUTE_CONCEAL_ON:
+                attributes |= STYLE_CONCEAL;
+                break;
+            case ATTRIBUTE_CONCEAL_OFF:
+                attributes &= ~STYLE_CONCEAL;
+                break;
+            case ATTRIBUTE_STRIKE:
+                attributes |= STYLE_STRIKE;
+                break;
+            case ATTRIBUTE_STRIKE_OFF:
+                attributes &= ~STYLE_STRIKE;
+                break;
+            default:
+                // e.g. fonts, frames or overline: written through as is
+                untracked = true;
+                break;
+        }
+    }
+
+    @Override
+    protected void processAttributeRest() throws IOException {
+        graphicRendition = true;
+        untrackedActive = false;
+        attributes = 0;
+        foreground = COLOR_DEFAULT;
+        background = COLOR_DEFAULT;
+    }
+
+    @Override
+    protected void processSetForegroundColor(int color, boolean bright) throws IOException {
+        graphicRendition = true;
+        foreground = bright ? color + 8 : color;
+    }
+
+    @Override
+    protected void processSetBackgroundColor(int color, boolean bright) throws IOException {
+        graphicRendition = true;
+        background = bright ? color + 8 : color;
+    }
+
+    @Override
+    protected void processSetForegroundColorExt(int paletteIndex) throws IOException {
+        graphicRendition = true;
+        foreground = paletteIndex;
+    }
+
+    @Override
+    protected void processSetForegroundColorExt(int r, int g, int b) throws IOException {
+        graphicRendition = true;
+        foreground = COLOR_TRUECOLOR | r << 16 | g << 8 | b;
+    }
+
+    @Override
+    protected void processSetBackgroundColorExt(int paletteIndex) throws IOException {
+        graphicRendition = true;
+        background = paletteIndex;
+    }
+
+    @Override
+    protected void processSetBackgroundColorExt(int r, int g, int b) throws IOException {
+        graphicRendition = true;
+        background = COLOR_TRUECOLOR | r << 16 | g << 8 | b;
+    }
+
+    @Override
+    protected void processDefaultTextColor() throws IOException {
+        graphicRendition = true;
+        foreground = COLOR_DEFAULT;
+    }
+
+    @Override
+    protected void processDefaultBackgroundColor() throws IOException {
+        graphicRendition = true;
+        background = COLOR_DEFAULT;
+    }
+
+    private static int appendIntensity(final byte[] buffer, int length, int intensity) {
+        if (intensity == STYLE_BOLD) {
+            return appendParameter(buffer, length, ATTRIBUTE_INTENSITY_BOLD);
+        }
+        if (intensity == STYLE_FAINT) {
+            return appendParameter(buffer, length, ATTRIBUTE_INTENSITY_FAINT);
+        }
+        return length;
+    }
+
+    private static int appendColor(final byte[] buffer, int length, int color, boolean background) {
+        final int base = background ? 40 : 30;
+        if (color == COLOR_DEFAULT) {
+            return appendParameter(buffer, length, base + 9);
+        }
+        if (color < 8) {
+            return appendParameter(buffer, length, base + color);
+        }
+        if (color < 16) {
+            return appendParameter(buffer, length, base + 60 + color - 8);
+        }
+        int result = appendParameter(buffer, length, base + 8);
+        if ((color & COLOR_TRUECOLOR) == 0) {
+            result = appendParameter(buffer, result, 5);
+            return appendParameter(buffer, result, color);
+        }
+        result = appendParameter(buffer, result, 2);
+        result = appendParameter(buffer, result, color >> 16 & 0xFF);
+        result = appendParameter(buffer, result, color >> 8 & 0xFF);
+        return appendParameter(buffer, result, color & 0xFF);
+    }
+
+    private static int appendParameter(final byte[] buffer, int length, int value) {
+        if (length > 2) {
+            buffer[length++] = ';';
+        }
+        if (value >= 100) {
+            buffer[length++] = (byte) ('0' + value / 100);
+        }
+        if (value >= 10) {
+            buffer[length++] = (byte) ('0' + value / 10 % 10);
+        }
+        buffer[length++] = (byte) ('0' + value % 10);
+        return length;
+    }
+}
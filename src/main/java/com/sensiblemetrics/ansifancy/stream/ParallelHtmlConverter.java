@@ -0,0 +1,220 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 SensibleMetrics Labs, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.sensiblemetrics.ansifancy.stream;
+
+import com.sensiblemetrics.ansifancy.utils.ValidationUtils;
+import lombok.experimental.UtilityClass;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parallel ANSI to HTML converter: input is split into chunks at line boundaries, rendering state
+ * at every chunk start is found by a sequential pre-scan that only runs escape sequences through
+ * the parser and skips plain text, and chunks are translated by {@link HtmlFancyOutputStream}
+ * instances seeded with that state on a {@link ForkJoinPool}. Chunk outputs are written in order,
+ * so the result is byte-identical to the sequential {@link HtmlFancyOutputStream} output
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+@UtilityClass
+public class ParallelHtmlConverter {
+
+    /**
+     * Default chunk size
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 4 << 20;
+
+    /**
+     * Converts source file into target file
+     *
+     * @param source - initial input source file {@link Path}
+     * @param target - initial input target file {@link Path}
+     * @return number of processed source bytes
+     * @throws IOException IOException
+     */
+    public static long convert(final Path source, final Path target) throws IOException {
+        Objects.requireNonNull(source, "Source should not be null");
+        Objects.requireNonNull(target, "Target should not be null");
+
+        try (final FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             final OutputStream out = Channels.newOutputStream(FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))) {
+            final long size = in.size();
+            ValidationUtils.isTrue(size <= Integer.MAX_VALUE, "Source file should not exceed 2 GB");
+            convert(in.map(FileChannel.MapMode.READ_ONLY, 0, size), out, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+            return size;
+        }
+    }
+
+    /**
+     * Converts input source buffer into output stream with common {@link ForkJoinPool}
+     *
+     * @param source - initial input source {@link ByteBuffer}
+     * @param out    - initial input {@link OutputStream}
+     * @throws IOException IOException
+     */
+    public static void convert(final ByteBuffer source, final OutputStream out) throws IOException {
+        convert(source, out, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Converts input source buffer into output stream with input {@link ForkJoinPool} and chunk size.
+     * At most twice the pool parallelism chunk outputs are held in memory at once
+     *
+     * @param source    - initial input source {@link ByteBuffer}
+     * @param out       - initial input {@link OutputStream}
+     * @param pool      - initial input {@link ForkJoinPool}
+     * @param chunkSize - initial input minimum chunk size
+     * @throws IOException IOException
+     */
+    public static void convert(final ByteBuffer source, final OutputStream out, final ForkJoinPool pool, int chunkSize) throws IOException {
+        Objects.requireNonNull(source, "Source should not be null");
+        Objects.requireNonNull(out, "Output stream should not be null");
+        Objects.requireNonNull(pool, "Pool should not be null");
+        ValidationUtils.isTrue(chunkSize > 0, "Chunk size should be positive");
+
+        final int window = Math.max(2, pool.getParallelism() * 2);
+        final Deque<ForkJoinTask<byte[]>> pending = new ArrayDeque<>(window);
+        final HtmlFancyOutputStream scanner = new HtmlFancyOutputStream(OutputStream.nullOutputStream());
+        final int end = source.limit();
+        int start = source.position();
+        while (start < end) {
+            final HtmlFancyOutputStream state = new HtmlFancyOutputStream(OutputStream.nullOutputStream());
+            state.copyStateFrom(scanner);
+            final int chunkEnd = scan(scanner, source, start, (int) Math.min(end, (long) start + chunkSize), end);
+            if (pending.size() == window) {
+                writeResult(pending.removeFirst(), out);
+            }
+            pending.addLast(pool.submit(new ChunkTask(source, start, chunkEnd, state, chunkEnd == end)));
+            start = chunkEnd;
+        }
+        while (!pending.isEmpty()) {
+            writeResult(pending.removeFirst(), out);
+        }
+        source.position(end);
+        out.flush();
+    }
+
+    /**
+     * Runs escape sequences of input range through the scanner, skipping plain text (only rendering
+     * pending style before it), and returns the chunk end: the first line boundary at or after
+     * the target position where the scanner is outside of an escape sequence
+     */
+    private static int scan(final HtmlFancyOutputStream scanner, final ByteBuffer source, int from, int target, int end) {
+        int i = from;
+        try {
+            while (i < end) {
+                if (scanner.isPlain()) {
+                    final int run = i;
+                    boolean boundary = false;
+                    while (i < end && source.get(i) != 27) {
+                        if (source.get(i++) == '\n' && i >= target) {
+                            boundary = true;
+                            break;
+                        }
+                    }
+                    if (i > run) {
+                        scanner.renderStyle();
+                    }
+                    if (boundary) {
+                        return i;
+                    }
+                    if (i == end) {
+                        break;
+                    }
+                }
+                scanner.process(source.get(i++) & 0xFF);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return end;
+    }
+
+    private static void writeResult(final ForkJoinTask<byte[]> task, final OutputStream out) throws IOException {
+        try {
+            out.write(task.join());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Chunk translation task seeded with rendering state at the chunk start
+     */
+    private static final class ChunkTask extends RecursiveTask<byte[]> {
+
+        /**
+         * Default explicit serialVersionUID for interoperability
+         */
+        private static final long serialVersionUID = 7076160949866844148L;
+
+        private final ByteBuffer source;
+        private final int from;
+        private final int to;
+        private final HtmlFancyOutputStream state;
+        private final boolean last;
+
+        ChunkTask(final ByteBuffer source, int from, int to, final HtmlFancyOutputStream state, boolean last) {
+            this.source = source;
+            this.from = from;
+            this.to = to;
+            this.state = state;
+            this.last = last;
+        }
+
+        @Override
+        protected byte[] compute() {
+            final ByteArrayOutputStream result = new ByteArrayOutputStream(to - from + (to - from >> 3));
+            final FancyByteChannel channel = new FancyByteChannel(Channels.newChannel(result), stream -> {
+                final HtmlFancyOutputStream html = new HtmlFancyOutputStream(stream);
+                html.copyStateFrom(state);
+                return html;
+            });
+            try {
+                channel.write(source.duplicate().limit(to).position(from));
+                if (last) {
+                    channel.close();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return result.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 SensibleMetrics Labs, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.sensiblemetrics.ansifancy.stream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Base pass-through fancy output stream writer {@link FancyOutputStream}: bytes of every escape sequence are
+ * buffered while it is parsed, plain text and aborted sequences are written through as is, and completed
+ * sequences are handed to {@link #finishSequence(byte[], int)} after the SGR hooks have seen their parameters.
+ * Cursor movement emulation of {@link FancyOutputStream} is suppressed, so subclasses override SGR hooks only
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+abstract class PassThroughFancyOutputStream extends FancyOutputStream {
+
+    private byte[] sequence = new byte[128];
+    private int sequenceLength = 0;
+    private boolean aborted = false;
+
+    PassThroughFancyOutputStream(final OutputStream os) {
+        super(os);
+    }
+
+    @Override
+    public void write(int data) throws IOException {
+        if (isPlain() && (data & 0xFF) != 27) {
+            beforeText();
+            this.out.write(data);
+        } else {
+            super.write(data);
+        }
+    }
+
+    @Override
+    protected void writePlain(final byte[] data, int offset, int length) throws IOException {
+        if (length == 0) {
+            return;
+        }
+        if (sequenceLength > 0) {
+            // aborted escape sequence is written through as is
+            aborted = true;
+            abortSequence();
+        }
+        beforeText();
+        this.out.write(data, offset, length);
+    }
+
+    @Override
+    void process(int data) throws IOException {
+        if (isPlain()) {
+            if (data != 27) {
+                beforeText();
+                this.out.write(data);
+                return;
+            }
+            aborted = false;
+            beginSequence();
+        }
+        if (sequenceLength == sequence.length) {
+            sequence = Arrays.copyOf(sequence, sequenceLength * 2);
+        }
+        sequence[sequenceLength++] = (byte) data;
+        super.process(data);
+        if (isPlain()) {
+            final int length = sequenceLength;
+            sequenceLength = 0;
+            if (!aborted) {
+                finishSequence(sequence, length);
+            }
+        }
+    }
+
+    /**
+     * Called before plain text is written out
+     *
+     * @throws IOException IOException
+     */
+    void beforeText() throws IOException {
+    }
+
+    /**
+     * Called at the escape character starting a new sequence
+     */
+    void beginSequence() {
+    }
+
+    /**
+     * Called once when the current escape sequence is aborted, before its bytes are written out as plain text
+     */
+    void abortSequence() {
+    }
+
+    /**
+     * Writes out completed escape sequence
+     *
+     * @param sequence - initial input sequence bytes
+     * @param length   - initial input sequence length
+     * @throws IOException IOException
+     */
+    abstract void finishSequence(final byte[] sequence, int length) throws IOException;
+
+    /**
+     * Cursor forward sequence is written through as is, see {@link #finishSequence(byte[], int)}
+     */
+    @Override
+    protected void processCursorRight(int count) throws IOException {
+    }
+
+    /**
+     * Cursor next line sequence is written through as is, see {@link #finishSequence(byte[], int)}
+     */
+    @Override
+    protected void processCursorDownLine(int count) throws IOException {
+    }
+}
@@ -0,0 +1,735 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 SensibleMetrics Labs, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.sensiblemetrics.ansifancy.stream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Virtual terminal screen model driven by {@link FancyOutputStream} callbacks: written output is
+ * applied to a fixed size screen of cells (code point plus packed attributes) with scroll region,
+ * cursor movement, erase, insert / delete line and scroll support, lines scrolled off the top
+ * of the screen are kept in a bounded scrollback ring, and the final screen can be taken
+ * by {@link #snapshot()} at any point. Line feed also returns the cursor to the first column,
+ * as output captured from pipes (e.g. CI logs) is not translated by a terminal driver
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+public class VirtualTerminal extends FancyOutputStream {
+
+    /**
+     * Default screen size and scrollback capacity
+     */
+    public static final int DEFAULT_COLUMNS = 80;
+    public static final int DEFAULT_ROWS = 24;
+    public static final int DEFAULT_SCROLLBACK = 1000;
+
+    /**
+     * Default packed cell attribute layout: foreground color in bits 0-25, background color in bits 26-51
+     * (0 - default, 1-256 - palette index plus one, {@link #COLOR_TRUECOLOR} flag plus RGB value),
+     * style flags from bit 52 on
+     */
+    public static final int COLOR_DEFAULT = -1;
+    public static final int COLOR_TRUECOLOR = 1 << 24;
+    public static final long STYLE_BOLD = 1L << 52;
+    public static final long STYLE_FAINT = 1L << 53;
+    public static final long STYLE_ITALIC = 1L << 54;
+    public static final long STYLE_UNDERLINE = 1L << 55;
+    public static final long STYLE_BLINK = 1L << 56;
+    public static final long STYLE_NEGATIVE = 1L << 57;
+    public static final long STYLE_CONCEAL = 1L << 58;
+
+    private static final int COLOR_BITS = 26;
+    private static final long COLOR_MASK = (1L << COLOR_BITS) - 1;
+    private static final int BACKGROUND_SHIFT = COLOR_BITS;
+    private static final long BACKGROUND_MASK = COLOR_MASK << BACKGROUND_SHIFT;
+    private static final int ATTRIBUTE_ITALIC_OFF = 23;
+    private static final int ERASE_SCREEN_AND_SCROLLBACK = 3;
+    private static final int TAB_WIDTH = 8;
+    private static final int BLANK = ' ';
+    private static final int REPLACEMENT_CHARACTER = 0xFFFD;
+
+    private final int columns;
+    private final int rows;
+    private final int[] codePoints;
+    private final long[] attributes;
+    /**
+     * Screen row to physical row mapping, so scrolling only rotates row indexes
+     */
+    private final int[] rowIndex;
+    private final int[] rowScratch;
+
+    private final int scrollbackCapacity;
+    private int[] scrollbackCodePoints;
+    private long[] scrollbackAttributes;
+    private int scrollbackStart = 0;
+    private int scrollbackSize = 0;
+
+    private int cursorRow = 0;
+    private int cursorColumn = 0;
+    private boolean wrapPending = false;
+    private int savedRow = 0;
+    private int savedColumn = 0;
+    private int scrollTop;
+    private int scrollBottom;
+    private long attribute = 0;
+
+    private int utf8Needed = 0;
+    private int utf8Value = 0;
+
+    public VirtualTerminal() {
+        this(DEFAULT_COLUMNS, DEFAULT_ROWS, DEFAULT_SCROLLBACK);
+    }
+
+    public VirtualTerminal(int columns, int rows, int scrollback) {
+        super(OutputStream.nullOutputStream());
+        if (columns <= 0 || rows <= 0) {
+            throw new IllegalArgumentException(String.format("ERROR: invalid screen size={%sx%s}, should be positive", columns, rows));
+        }
+        if (scrollback < 0) {
+            throw new IllegalArgumentException(String.format("ERROR: invalid scrollback={%s}, should not be negative", scrollback));
+        }
+        this.columns = columns;
+        this.rows = rows;
+        this.codePoints = new int[columns * rows];
+        this.attributes = new long[columns * rows];
+        this.rowIndex = new int[rows];
+        this.rowScratch = new int[rows];
+        this.scrollbackCapacity = scrollback;
+        this.scrollTop = 0;
+        this.scrollBottom = rows - 1;
+        Arrays.fill(this.codePoints, BLANK);
+        for (int i = 0; i < rows; i++) {
+            this.rowIndex[i] = i;
+        }
+    }
+
+    /**
+     * Returns foreground color of packed cell attribute
+     *
+     * @param attribute - initial input packed cell attribute
+     * @return {@link #COLOR_DEFAULT}, palette index or {@link #COLOR_TRUECOLOR} flag plus RGB value
+     */
+    public static int getForeground(long attribute) {
+        return decodeColor(attribute & COLOR_MASK);
+    }
+
+    /**
+     * Returns background color of packed cell attribute
+     *
+     * @param attribute - initial input packed cell attribute
+     * @return {@link #COLOR_DEFAULT}, palette index or {@link #COLOR_TRUECOLOR} flag plus RGB value
+     */
+    public static int getBackground(long attribute) {
+        return decodeColor((attribute & BACKGROUND_MASK) >>> BACKGROUND_SHIFT);
+    }
+
+    @Override
+    public synchronized void write(int data) throws IOException {
+        if (isPlain() && (data & 0xFF) != 27) {
+            decode(data & 0xFF);
+        } else {
+            super.write(data);
+        }
+    }
+
+    @Override
+    protected void writePlain(final byte[] data, int offset, int length) throws IOException {
+        // unhandled escape sequences are passed back raw by the parser, a terminal does not print them
+        if (length > 0 && data[offset] == 27) {
+            return;
+        }
+        final int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            decode(data[i] & 0xFF);
+        }
+    }
+
+    /**
+     * Returns snapshot of the scrollback and the current screen
+     *
+     * @return screen {@link Snapshot}
+     */
+    public synchronized Snapshot snapshot() {
+        final int total = scrollbackSize + rows;
+        final int[] snapshotCodePoints = new int[total * columns];
+        final long[] snapshotAttributes = new long[total * columns];
+        for (int i = 0; i < scrollbackSize; i++) {
+            final int from = ((scrollbackStart + i) % scrollbackCapacity) * columns;
+            System.arraycopy(scrollbackCodePoints, from, snapshotCodePoints, i * columns, columns);
+            System.arraycopy(scrollbackAttributes, from, snapshotAttributes, i * columns, columns);
+        }
+        for (int i = 0; i < rows; i++) {
+            final int from = rowIndex[i] * columns;
+            System.arraycopy(codePoints, from, snapshotCodePoints, (scrollbackSize + i) * columns, columns);
+            System.arraycopy(attributes, from, snapshotAttributes, (scrollbackSize + i) * columns, columns);
+        }
+        return new Snapshot(columns, rows, scrollbackSize, snapshotCodePoints, snapshotAttributes, cursorRow, cursorColumn);
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    private void decode(int data) {
+        if (utf8Needed > 0) {
+            if ((data & 0xC0) == 0x80) {
+                utf8Value = utf8Value << 6 | data & 0x3F;
+                if (--utf8Needed == 0) {
+                    print(utf8Value);
+                }
+                return;
+            }
+            utf8Needed = 0;
+            print(REPLACEMENT_CHARACTER);
+        }
+        if (data < 0x80) {
+            control(data);
+        } else if ((data & 0xE0) == 0xC0) {
+            utf8Value = data & 0x1F;
+            utf8Needed = 1;
+        } else if ((data & 0xF0) == 0xE0) {
+            utf8Value = data & 0x0F;
+            utf8Needed = 2;
+        } else if ((data & 0xF8) == 0xF0) {
+            utf8Value = data & 0x07;
+            utf8Needed = 3;
+        } else {
+            print(REPLACEMENT_CHARACTER);
+        }
+    }
+
+    private void control(int data) {
+        switch (data) {
+            case '\n':
+            case 0x0B:
+            case 0x0C:
+                cursorColumn = 0;
+                wrapPending = false;
+                lineFeed();
+                break;
+            case '\r':
+                cursorColumn = 0;
+                wrapPending = false;
+                break;
+            case '\b':
+                if (cursorColumn > 0) {
+                    cursorColumn--;
+                }
+                wrapPending = false;
+                break;
+            case '\t':
+                cursorColumn = Math.min(columns - 1, (cursorColumn / TAB_WIDTH + 1) * TAB_WIDTH);
+                wrapPending = false;
+                break;
+            default:
+                if (data >= 0x20 && data != 0x7F) {
+                    print(data);
+                }
+                break;
+        }
+    }
+
+    private void print(int codePoint) {
+        if (wrapPending) {
+            cursorColumn = 0;
+            wrapPending = false;
+            lineFeed();
+        }
+        final int cell = rowIndex[cursorRow] * columns + cursorColumn;
+        codePoints[cell] = codePoint;
+        attributes[cell] = attribute;
+        if (cursorColumn == columns - 1) {
+            wrapPending = true;
+        } else {
+            cursorColumn++;
+        }
+    }
+
+    private void lineFeed() {
+        if (cursorRow == scrollBottom) {
+            scrollUp(scrollTop, scrollBottom, 1, scrollTop == 0);
+        } else if (cursorRow < rows - 1) {
+            cursorRow++;
+        }
+    }
+
+    /**
+     * Scrolls screen rows in inclusive range up, optionally saving rows scrolled off into scrollback
+     */
+    private void scrollUp(int top, int bottom, int count, boolean history) {
+        final int height = bottom - top + 1;
+        count = Math.min(count, height);
+        for (int i = 0; i < count; i++) {
+            rowScratch[i] = rowIndex[top + i];
+            if (history) {
+                pushScrollback(rowScratch[i]);
+            }
+        }
+        System.arraycopy(rowIndex, top + count, rowIndex, top, height - count);
+        for (int i = 0; i < count; i++) {
+            rowIndex[bottom - count + 1 + i] = rowScratch[i];
+            clear(rowScratch[i], 0, columns);
+        }
+    }
+
+    /**
+     * Scrolls screen rows in inclusive range down
+     */
+    private void scrollDown(int top, int bottom, int count) {
+        final int height = bottom - top + 1;
+        count = Math.min(count, height);
+        System.arraycopy(rowIndex, bottom - count + 1, rowScratch, 0, count);
+        System.arraycopy(rowIndex, top, rowIndex, top + count, height - count);
+        for (int i = 0; i < count; i++) {
+            rowIndex[top + i] = rowScratch[i];
+            clear(rowScratch[i], 0, columns);
+        }
+    }
+
+    private void pushScrollback(int physicalRow) {
+        if (scrollbackCapacity == 0) {
+            return;
+        }
+        if (scrollbackCodePoints == null) {
+            scrollbackCodePoints = new int[scrollbackCapacity * columns];
+            scrollbackAttributes = new long[scrollbackCapacity * columns];
+        }
+        final int slot;
+        if (scrollbackSize < scrollbackCapacity) {
+            slot = (scrollbackStart + scrollbackSize++) % scrollbackCapacity;
+        } else {
+            slot = scrollbackStart;
+            scrollbackStart = (scrollbackStart + 1) % scrollbackCapacity;
+        }
+        System.arraycopy(codePoints, physicalRow * columns, scrollbackCodePoints, slot * columns, columns);
+        System.arraycopy(attributes, physicalRow * columns, scrollbackAttributes, slot * columns, columns);
+    }
+
+    /**
+     * Clears cells of physical row in column range with the current background color
+     */
+    private void clear(int physicalRow, int from, int to) {
+        final int offset = physicalRow * columns;
+        Arrays.fill(codePoints, offset + from, offset + to, BLANK);
+        Arrays.fill(attributes, offset + from, offset + to, attribute & BACKGROUND_MASK);
+    }
+
+    private void moveTo(int row, int column) {
+        cursorRow = Math.max(0, Math.min(rows - 1, row));
+        cursorColumn = Math.max(0, Math.min(columns - 1, column));
+        wrapPending = false;
+    }
+
+    @Override
+    protected void processCursorTo(int row, int col) throws IOException {
+        moveTo(row - 1, col - 1);
+    }
+
+    @Override
+    protected void processCursorToColumn(int x) throws IOException {
+        moveTo(cursorRow, x - 1);
+    }
+
+    @Override
+    protected void processCursorUp(int count) throws IOException {
+        final int top = cursorRow >= scrollTop ? scrollTop : 0;
+        moveTo(Math.max(top, cursorRow - count), cursorColumn);
+    }
+
+    @Override
+    protected void processCursorDown(int count) throws IOException {
+        final int bottom = cursorRow <= scrollBottom ? scrollBottom : rows - 1;
+        moveTo(Math.min(bottom, cursorRow + count), cursorColumn);
+    }
+
+    @Override
+    protected void processCursorUpLine(int count) throws IOException {
+        processCursorUp(count);
+        cursorColumn = 0;
+    }
+
+    @Override
+    protected void processCursorDownLine(int count) throws IOException {
+        processCursorDown(count);
+        cursorColumn = 0;
+    }
+
+    @Override
+    protected void processCursorLeft(int count) throws IOException {
+        moveTo(cursorRow, cursorColumn - count);
+    }
+
+    @Override
+    protected void processCursorRight(int count) throws IOException {
+        moveTo(cursorRow, cursorColumn + count);
+    }
+
+    @Override
+    protected void processSaveCursorPosition() {
+        savedRow = cursorRow;
+        savedColumn = cursorColumn;
+    }
+
+    @Override
+    protected void processRestoreCursorPosition() {
+        moveTo(savedRow, savedColumn);
+    }
+
+    @Override
+    protected void processEraseScreen(int eraseOption) throws IOException {
+        switch (eraseOption) {
+            case ERASE_SCREEN_TO_END:
+                clear(rowIndex[cursorRow], cursorColumn, columns);
+                for (int i = cursorRow + 1; i < rows; i++) {
+                    clear(rowIndex[i], 0, columns);
+                }
+                break;
+            case ERASE_SCREEN_TO_BEGINING:
+                for (int i = 0; i < cursorRow; i++) {
+                    clear(rowIndex[i], 0, columns);
+                }
+                clear(rowIndex[cursorRow], 0, cursorColumn + 1);
+                break;
+            case ERASE_SCREEN:
+                for (int i = 0; i < rows; i++) {
+                    clear(rowIndex[i], 0, columns);
+                }
+                break;
+            case ERASE_SCREEN_AND_SCROLLBACK:
+                scrollbackStart = scrollbackSize = 0;
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    protected void processEraseLine(int eraseOption) throws IOException {
+        switch (eraseOption) {
+            case ERASE_LINE_TO_END:
+                clear(rowIndex[cursorRow], cursorColumn, columns);
+                break;
+            case ERASE_LINE_TO_BEGINING:
+                clear(rowIndex[cursorRow], 0, cursorColumn + 1);
+                break;
+            case ERASE_LINE:
+                clear(rowIndex[cursorRow], 0, columns);
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    protected void processInsertLine(int optionInt) throws IOException {
+        if (cursorRow >= scrollTop && cursorRow <= scrollBottom) {
+            scrollDown(cursorRow, scrollBottom, optionInt);
+            cursorColumn = 0;
+            wrapPending = false;
+        }
+    }
+
+    @Override
+    protected void processDeleteLine(int optionInt) throws IOException {
+        if (cursorRow >= scrollTop && cursorRow <= scrollBottom) {
+            scrollUp(cursorRow, scrollBottom, optionInt, false);
+            cursorColumn = 0;
+            wrapPending = false;
+        }
+    }
+
+    @Override
+    protected void processScrollUp(int optionInt) throws IOException {
+        scrollUp(scrollTop, scrollBottom, optionInt, false);
+    }
+
+    @Override
+    protected void processScrollDown(int optionInt) throws IOException {
+        scrollDown(scrollTop, scrollBottom, optionInt);
+    }
+
+    /**
+     * Handles <code>CSI top ; bottom r</code> corresponding to <code>DECSTBM – Set Scrolling Region</code>,
+     * private-prefixed <code>CSI ? ... r</code> (restore private modes) is ignored
+     */
+    @Override
+    protected void processUnknownExtension(final List<Object> options, int command) {
+        if (command != 'r' || !options.isEmpty() && Objects.equals(options.get(0), '?')) {
+            return;
+        }
+        final int top = options.size() > 0 && options.get(0) instanceof Integer ? (Integer) options.get(0) : 1;
+        final int bottom = options.size() > 1 && options.get(1) instanceof Integer ? (Integer) options.get(1) : rows;
+        if (top >= 1 && top < bottom && bottom <= rows) {
+            scrollTop = top - 1;
+            scrollBottom = bottom - 1;
+            moveTo(0, 0);
+        }
+    }
+
+    @Override
+    protected void processSetAttribute(int attribute) throws IOException {
+        switch (attribute) {
+            case ATTRIBUTE_INTENSITY_BOLD:
+                this.attribute = (this.attribute & ~STYLE_FAINT) | STYLE_BOLD;
+                break;
+            case ATTRIBUTE_INTENSITY_FAINT:
+                this.attribute = (this.attribute & ~STYLE_BOLD) | STYLE_FAINT;
+                break;
+            case ATTRIBUTE_INTENSITY_NORMAL:
+                this.attribute &= ~(STYLE_BOLD | STYLE_FAINT);
+                break;
+            case ATTRIBUTE_ITALIC:
+                this.attribute |= STYLE_ITALIC;
+                break;
+            case ATTRIBUTE_ITALIC_OFF:
+                this.attribute &= ~STYLE_ITALIC;
+                break;
+            case ATTRIBUTE_UNDERLINE:
+            case ATTRIBUTE_UNDERLINE_DOUBLE:
+                this.attribute |= STYLE_UNDERLINE;
+                break;
+            case ATTRIBUTE_UNDERLINE_OFF:
+                this.attribute &= ~STYLE_UNDERLINE;
+                break;
+            case ATTRIBUTE_BLINK_SLOW:
+            case ATTRIBUTE_BLINK_FAST:
+                this.attribute |= STYLE_BLINK;
+                break;
+            case ATTRIBUTE_BLINK_OFF:
+                this.attribute &= ~STYLE_BLINK;
+                break;
+            case ATTRIBUTE_NEGATIVE_ON:
+                this.attribute |= STYLE_NEGATIVE;
+                break;
+            case ATTRIBUTE_NEGATIVE_OFF:
+                this.attribute &= ~STYLE_NEGATIVE;
+                break;
+            case ATTRIBUTE_CONCEAL_ON:
+                this.attribute |= STYLE_CONCEAL;
+                break;
+            case ATTRIBUTE_CONCEAL_OFF:
+                this.attribute &= ~STYLE_CONCEAL;
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    protected void processAttributeRest() throws IOException {
+        attribute = 0;
+    }
+
+    @Override
+    protected void processSetForegroundColor(int color, boolean bright) throws IOException {
+        setForeground(bright ? color + 9 : color + 1);
+    }
+
+    @Override
+    protected void processSetForegroundColorExt(int paletteIndex) throws IOException {
+        setForeground(paletteIndex + 1);
+    }
+
+    @Override
+    protected void processSetForegroundColorExt(int r, int g, int b) throws IOException {
+        setForeground(COLOR_TRUECOLOR | r << 16 | g << 8 | b);
+    }
+
+    @Override
+    protected void processDefaultTextColor() throws IOException {
+        setForeground(0);
+    }
+
+    @Override
+    protected void processSetBackgroundColor(int color, boolean bright) throws IOException {
+        setBackground(bright ? color + 9 : color + 1);
+    }
+
+    @Override
+    protected void processSetBackgroundColorExt(int paletteIndex) throws IOException {
+        setBackground(paletteIndex + 1);
+    }
+
+    @Override
+    protected void processSetBackgroundColorExt(int r, int g, int b) throws IOException {
+        setBackground(COLOR_TRUECOLOR | r << 16 | g << 8 | b);
+    }
+
+    @Override
+    protected void processDefaultBackgroundColor() throws IOException {
+        setBackground(0);
+    }
+
+    private void setForeground(long color) {
+        attribute = (attribute & ~COLOR_MASK) | color;
+    }
+
+    private void setBackground(long color) {
+        attribute = (attribute & ~BACKGROUND_MASK) | color << BACKGROUND_SHIFT;
+    }
+
+    private static int decodeColor(long color) {
+        return color == 0 ? COLOR_DEFAULT : color >= COLOR_TRUECOLOR ? (int) color : (int) color - 1;
+    }
+
+    /**
+     * Immutable virtual terminal screen snapshot: scrollback rows (oldest first) followed by screen rows
+     */
+    public static final class Snapshot {
+
+        private final int columns;
+        private final int rows;
+        private final int scrollbackRows;
+        private final int[] codePoints;
+        private final long[] attributes;
+        private final int cursorRow;
+        private final int cursorColumn;
+
+        private Snapshot(int columns, int rows, int scrollbackRows, final int[] codePoints, final long[] attributes, int cursorRow, int cursorColumn) {
+            this.columns = columns;
+            this.rows = rows;
+            this.scrollbackRows = scrollbackRows;
+            this.codePoints = codePoints;
+            this.attributes = attributes;
+            this.cursorRow = cursorRow;
+            this.cursorColumn = cursorColumn;
+        }
+
+        public int getColumns() {
+            return columns;
+        }
+
+        /**
+         * Returns number of screen rows
+         *
+         * @return number of screen rows
+         */
+        public int getRows() {
+            return rows;
+        }
+
+        /**
+         * Returns number of scrollback rows preceding screen rows
+         *
+         * @return number of scrollback rows
+         */
+        public int getScrollbackRows() {
+            return scrollbackRows;
+        }
+
+        /**
+         * Returns cursor row relative to the first screen row
+         *
+         * @return cursor row
+         */
+        public int getCursorRow() {
+            return cursorRow;
+        }
+
+        public int getCursorColumn() {
+            return cursorColumn;
+        }
+
+        /**
+         * Returns code point of the cell at input row (scrollback rows included) and column
+         *
+         * @param row    - initial input row
+         * @param column - initial input column
+         * @return cell code point
+         */
+        public int getCodePoint(int row, int column) {
+            return codePoints[index(row, column)];
+        }
+
+        /**
+         * Returns packed attribute of the cell at input row (scrollback rows included) and column
+         *
+         * @param row    - initial input row
+         * @param column - initial input column
+         * @return packed cell attribute
+         */
+        public long getAttribute(int row, int column) {
+            return attributes[index(row, column)];
+        }
+
+        /**
+         * Returns text of input row (scrollback rows included) without trailing blanks
+         *
+         * @param row - initial input row
+         * @return row text {@link String}
+         */
+        public String getLine(int row) {
+            final int offset = index(row, 0);
+            int end = offset + columns;
+            while (end > offset && codePoints[end - 1] == BLANK) {
+                end--;
+            }
+            return new String(codePoints, offset, end - offset);
+        }
+
+        /**
+         * Returns text of all rows without trailing blanks and trailing empty rows
+         *
+         * @return screen text {@link String}
+         */
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder();
+            int blankRows = 0;
+            boolean first = true;
+            for (int row = 0; row < scrollbackRows + rows; row++) {
+                final String line = getLine(row);
+                if (line.isEmpty()) {
+                    blankRows++;
+                    continue;
+                }
+                if (!first) {
+                    sb.append('\n');
+                }
+                for (; blankRows > 0; blankRows--) {
+                    sb.append('\n');
+                }
+                sb.append(line);
+                first = false;
+            }
+            return sb.toString();
+        }
+
+        private int index(int row, int column) {
+            if (row < 0 || row >= scrollbackRows + rows || column < 0 || column >= columns) {
+                throw new IndexOutOfBoundsException(String.format("ERROR: invalid cell={%s, %s}", row, column));
+            }
+            return row * columns + column;
+        }
+    }
+}
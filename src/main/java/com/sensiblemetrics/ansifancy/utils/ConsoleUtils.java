@@ -23,10 +23,12 @@
  */
 package com.sensiblemetrics.ansifancy.utils;
 
+import com.sensiblemetrics.ansifancy.enumeration.ColorCapabilityType;
 import lombok.experimental.UtilityClass;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -107,6 +109,55 @@ public class ConsoleUtils {
         && System.getenv("MSYSTEM").startsWith("MINGW")
         && Objects.equals("xterm", System.getenv("TERM"));
 
+    /**
+     * Returns {@link ColorCapabilityType} of the current console detected by environment variables
+     *
+     * @return {@link ColorCapabilityType}
+     */
+    public ColorCapabilityType getColorCapability() {
+        return getColorCapability(System.getenv());
+    }
+
+    /**
+     * Returns {@link ColorCapabilityType} detected by input environment variables: {@code NO_COLOR} disables colors,
+     * {@code COLORTERM} / {@code TERM} declare 24-bit, 256 or 16 colors support, Windows Terminal supports 24-bit colors
+     * and CI or Windows consoles without {@code TERM} are expected to support 16 colors
+     *
+     * @param env - initial input environment variables {@link Map}
+     * @return {@link ColorCapabilityType}
+     */
+    public ColorCapabilityType getColorCapability(final Map<String, String> env) {
+        Objects.requireNonNull(env, "Environment should not be null");
+
+        if (env.containsKey("NO_COLOR")) {
+            return ColorCapabilityType.MONO;
+        }
+        final String colorTerm = env.get("COLORTERM");
+        if (Objects.equals("truecolor", colorTerm) || Objects.equals("24bit", colorTerm)) {
+            return ColorCapabilityType.TRUECOLOR;
+        }
+        final String term = env.get("TERM");
+        if (Objects.nonNull(term)) {
+            if (term.endsWith("-direct")) {
+                return ColorCapabilityType.TRUECOLOR;
+            }
+            if (term.endsWith("256color")) {
+                return ColorCapabilityType.ANSI_256;
+            }
+            if (Objects.equals("dumb", term)) {
+                return ColorCapabilityType.MONO;
+            }
+            return ColorCapabilityType.ANSI_16;
+        }
+        if (env.containsKey("WT_SESSION")) {
+            return ColorCapabilityType.TRUECOLOR;
+        }
+        if (env.containsKey("CI") || IS_WINDOWS_CONSOLE) {
+            return ColorCapabilityType.ANSI_16;
+        }
+        return ColorCapabilityType.MONO;
+    }
+
     /*
      * A method to change the color codes. This only works on color-enabled
      * terminals. In Windows/MS-DOS you need to load the ansi.sys driver from
@@ -54,6 +54,14 @@ public class StringUtils {
      */
     public static final String DEFAULT_FORMAT_PATTERN = "#.##";
 
+    /**
+     * Default escape sequence characters
+     */
+    private static final char ESC_CHAR = 0x1B;
+    private static final char CSI_CHAR = 0x9B;
+    private static final char ST_CHAR = 0x9C;
+    private static final char BEL_CHAR = 0x07;
+
     /**
      * Default regular expression (only alpha-numeric characters)
      */
@@ -197,7 +205,8 @@ public class StringUtils {
     }
 
     /**
-     * Returns string stripped from ANSI characters
+     * Returns string stripped from ANSI escape sequences (CSI, OSC, charset selection and other
+     * two-character escapes), or input string itself if it contains no ESC / CSI characters
      *
      * @param value - initial input string to be stripped
      * @return stripped string
@@ -205,7 +214,124 @@ public class StringUtils {
      */
     public static String stripAnsiChars(final String value) {
         ValidationUtils.notNull(value);
-        return sanitize(value, "[\\u001b\\u009b][[()#;?]*(?:[0-9]{1,4}(?:;[0-9]{0,4})*)?[0-9A-PRZcf-nqry=><]");
+        final int first = indexOfEscape(value, 0);
+        if (first < 0) {
+            return value;
+        }
+        final StringBuilder result = new StringBuilder(value.length());
+        result.append(value, 0, first);
+        return stripAnsiChars(value, first, result).toString();
+    }
+
+    /**
+     * Appends input char sequence stripped from ANSI escape sequences to the target {@link StringBuilder}
+     *
+     * @param value  - initial input char sequence {@link CharSequence} to be stripped
+     * @param target - initial input target {@link StringBuilder}
+     * @return target {@link StringBuilder}
+     * @throws NullPointerException if after is null
+     */
+    public static StringBuilder stripAnsiChars(final CharSequence value, final StringBuilder target) {
+        ValidationUtils.notNull(value);
+        ValidationUtils.notNull(target);
+        return stripAnsiChars(value, 0, target);
+    }
+
+    /**
+     * Returns visible length of input char sequence, i.e. length without ANSI escape sequences
+     *
+     * @param value - initial input char sequence {@link CharSequence}
+     * @return visible length
+     * @throws NullPointerException if after is null
+     */
+    public static int visibleLength(final CharSequence value) {
+        ValidationUtils.notNull(value);
+        final int length = value.length();
+        int result = 0;
+        for (int i = 0; i < length; ) {
+            if (isEscape(value.charAt(i))) {
+                i = skipEscape(value, i);
+            } else {
+                result++;
+                i++;
+            }
+        }
+        return result;
+    }
+
+    private static StringBuilder stripAnsiChars(final CharSequence value, int from, final StringBuilder target) {
+        final int length = value.length();
+        int start = from;
+        int i = indexOfEscape(value, from);
+        while (i >= 0) {
+            target.append(value, start, i);
+            start = skipEscape(value, i);
+            i = indexOfEscape(value, start);
+        }
+        return target.append(value, start, length);
+    }
+
+    private static boolean isEscape(char c) {
+        return c == ESC_CHAR || c == CSI_CHAR;
+    }
+
+    private static int indexOfEscape(final CharSequence value, int from) {
+        final int length = value.length();
+        for (int i = from; i < length; i++) {
+            if (isEscape(value.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns index following the escape sequence started at input index (unterminated sequences
+     * extend to the end of input, malformed ones end before the offending character):
+     * <ul>
+     * <li>CSI: ESC [ or 0x9B, parameter bytes 0x30-0x3F, intermediate bytes 0x20-0x2F, final byte 0x40-0x7E</li>
+     * <li>OSC: ESC ], terminated by BEL, ESC \ or 0x9C</li>
+     * <li>charset selection and other escapes: ESC, intermediate bytes 0x20-0x2F, final byte 0x30-0x7E</li>
+     * </ul>
+     */
+    private static int skipEscape(final CharSequence value, int index) {
+        final int length = value.length();
+        int i = index + 1;
+        boolean csi = true;
+        if (value.charAt(index) == ESC_CHAR) {
+            if (i < length && value.charAt(i) == ']') {
+                return skipOperatingSystemCommand(value, i + 1);
+            } else if (i < length && value.charAt(i) == '[') {
+                i++;
+            } else {
+                csi = false;
+            }
+        }
+        if (csi) {
+            while (i < length && value.charAt(i) >= 0x30 && value.charAt(i) <= 0x3F) {
+                i++;
+            }
+        }
+        while (i < length && value.charAt(i) >= 0x20 && value.charAt(i) <= 0x2F) {
+            i++;
+        }
+        if (i < length && value.charAt(i) >= (csi ? 0x40 : 0x30) && value.charAt(i) <= 0x7E) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipOperatingSystemCommand(final CharSequence value, int index) {
+        final int length = value.length();
+        for (int i = index; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c == BEL_CHAR || c == ST_CHAR) {
+                return i + 1;
+            } else if (c == ESC_CHAR && i + 1 < length && value.charAt(i + 1) == '\\') {
+                return i + 2;
+            }
+        }
+        return length;
     }
 
 
@@ -0,0 +1,69 @@
+package com.sensiblemetrics.ansifancy.model.impl;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link BlockCompositor} keystroke benchmark: one cell of one of overlapping panels changes,
+ * dirty region recomposition versus full frame recomposition
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlockCompositorBenchmark {
+
+    private static final int ROWS = 50;
+    private static final int COLUMNS = 200;
+    private static final int PANELS = 24;
+
+    private BlockCompositor compositor;
+    private Block[] panels;
+    private int index;
+
+    @Setup
+    public void setup() {
+        this.compositor = new BlockCompositor(ROWS, COLUMNS);
+        this.panels = new Block[PANELS];
+        for (int i = 0; i < PANELS; i++) {
+            final int row = (i % 6) * 8;
+            final int column = (i / 6) * 45 + (i % 3) * 5;
+            this.panels[i] = Block.create(Area.create(Position.create(row, column + 60), Position.create(row + 12, column)));
+            this.panels[i].fill(i % 2 == 0 ? Style.BOLD : Style.RED_FOREGROUND);
+            this.compositor.add(this.panels[i]);
+        }
+        this.compositor.compose();
+    }
+
+    @Benchmark
+    public List<Area> dirty() {
+        final Block panel = this.panels[this.index++ % PANELS];
+        panel.set(1, 1, panel.getStyle(1, 1) == Style.UNDER_LINE ? null : Style.UNDER_LINE);
+        this.compositor.invalidate(panel, Area.create(Position.create(1, 2), Position.create(2, 1)));
+        return this.compositor.compose();
+    }
+
+    @Benchmark
+    public List<Area> full() {
+        final Block panel = this.panels[this.index++ % PANELS];
+        panel.set(1, 1, panel.getStyle(1, 1) == Style.UNDER_LINE ? null : Style.UNDER_LINE);
+        this.compositor.invalidateAll();
+        return this.compositor.compose();
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(BlockCompositorBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
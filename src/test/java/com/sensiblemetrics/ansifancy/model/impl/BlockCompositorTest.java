@@ -0,0 +1,141 @@
+package com.sensiblemetrics.ansifancy.model.impl;
+
+import com.sensiblemetrics.ansifancy.model.iface.StyleIF;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link BlockCompositor} unit tests (compared against a full recomposition of the same layers)
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+class BlockCompositorTest {
+
+    private static final int HEIGHT = 12;
+    private static final int WIDTH = 16;
+    private static final StyleIF[] STYLES = styles(64);
+
+    @Test
+    void testZOrder() {
+        final BlockCompositor compositor = new BlockCompositor(HEIGHT, WIDTH, STYLES[0]);
+        final Block bottom = create(2, 2, 4, 6, STYLES[1]);
+        final Block top = create(3, 4, 4, 6, STYLES[2]);
+        compositor.add(bottom);
+        compositor.add(top);
+        compositor.compose();
+        assertThat(compositor.getFrame().get(2, 2)).isSameAs(STYLES[1]);
+        assertThat(compositor.getFrame().get(3, 4)).isSameAs(STYLES[2]);
+        assertThat(compositor.getFrame().get(1, 2)).isSameAs(STYLES[0]);
+
+        compositor.remove(top);
+        compositor.add(0, top);
+        compositor.compose();
+        assertThat(compositor.getFrame().get(3, 4)).isSameAs(STYLES[1]);
+        assertThat(compositor.getFrame().get(6, 9)).isSameAs(STYLES[2]);
+    }
+
+    @Test
+    void testRemove() {
+        final BlockCompositor compositor = new BlockCompositor(HEIGHT, WIDTH, STYLES[0]);
+        final Block bottom = create(-2, -3, 6, 8, STYLES[1]);
+        final Block top = create(1, 1, 3, 3, STYLES[2]);
+        compositor.add(bottom);
+        compositor.add(top);
+        compositor.compose();
+
+        assertThat(compositor.remove(top)).isTrue();
+        assertThat(compositor.remove(top)).isFalse();
+        assertThat(compositor.compose()).hasSize(1);
+        assertFrame(compositor);
+
+        compositor.remove(bottom);
+        compositor.compose();
+        assertFrame(compositor);
+        assertThat(compositor.getFrame().get(0, 0)).isSameAs(STYLES[0]);
+    }
+
+    @Test
+    void testAdjacentRegionsAreNotMerged() {
+        final BlockCompositor compositor = new BlockCompositor(HEIGHT, WIDTH);
+        compositor.compose();
+        compositor.invalidate(area(0, 0, 2, 2));
+        compositor.invalidate(area(2, 2, 2, 2));
+        compositor.invalidate(area(0, 2, 2, 2));
+        assertThat(compositor.compose()).hasSize(3);
+
+        compositor.invalidate(area(0, 0, 2, 2));
+        compositor.invalidate(area(1, 1, 2, 2));
+        assertThat(compositor.compose()).hasSize(1);
+    }
+
+    @Test
+    void testRandomPartialInvalidate() {
+        final Random random = new Random(7);
+        for (int n = 0; n < 200; n++) {
+            final BlockCompositor compositor = new BlockCompositor(HEIGHT, WIDTH, STYLES[0]);
+            for (int step = 0; step < 50; step++) {
+                final List<Block> layers = compositor.getLayers();
+                final int action = layers.isEmpty() ? 0 : random.nextInt(4);
+                if (action == 0) {
+                    final Block block = create(random.nextInt(HEIGHT + 4) - 4, random.nextInt(WIDTH + 4) - 4,
+                        1 + random.nextInt(8), 1 + random.nextInt(8), STYLES[1 + random.nextInt(STYLES.length - 1)]);
+                    compositor.add(random.nextInt(layers.size() + 1), block);
+                } else if (action == 1) {
+                    compositor.remove(layers.get(random.nextInt(layers.size())));
+                } else {
+                    // cell changes of a layer are reported by its own region only
+                    final Block block = layers.get(random.nextInt(layers.size()));
+                    final int height = block.getMatrix().height();
+                    final int width = block.getMatrix().width();
+                    final int row = random.nextInt(height);
+                    final int column = random.nextInt(width);
+                    final int rows = 1 + random.nextInt(height - row);
+                    final int columns = 1 + random.nextInt(width - column);
+                    block.fill(area(row, column, rows, columns), STYLES[random.nextInt(STYLES.length)]);
+                    compositor.invalidate(block, area(row, column, rows, columns));
+                }
+                compositor.compose();
+                assertThat(compositor.isDirty()).isFalse();
+                assertFrame(compositor);
+            }
+        }
+    }
+
+    /**
+     * Checks frame of input compositor against a new compositor of the same layers composed entirely
+     */
+    private static void assertFrame(final BlockCompositor compositor) {
+        final BlockCompositor expected = new BlockCompositor(HEIGHT, WIDTH, STYLES[0]);
+        for (final Block block : compositor.getLayers()) {
+            expected.add(block);
+        }
+        expected.invalidateAll();
+        expected.compose();
+        for (int i = 0; i < HEIGHT; i++) {
+            assertThat(compositor.getFrame().getRow(i)).containsExactly(expected.getFrame().getRow(i));
+        }
+    }
+
+    private static Block create(int row, int column, int height, int width, final StyleIF style) {
+        final Block block = Block.create(area(row, column, height, width));
+        block.fill(style);
+        return block;
+    }
+
+    private static Area area(int row, int column, int height, int width) {
+        return Area.create(Position.create(row, column + width), Position.create(row + height, column));
+    }
+
+    private static StyleIF[] styles(int size) {
+        final StyleIF[] styles = new StyleIF[size];
+        for (int k = 0; k < size; k++) {
+            styles[k] = Style.create("style" + k, "style " + k, Point.BOLD);
+        }
+        return styles;
+    }
+}
@@ -0,0 +1,163 @@
+package com.sensiblemetrics.ansifancy.model.impl;
+
+import com.sensiblemetrics.ansifancy.model.iface.StyleIF;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link Block} region operations unit tests (compared against a naive per-cell copy)
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+class BlockTest {
+
+    private static final int HEIGHT = 6;
+    private static final int WIDTH = 7;
+    private static final StyleIF[] STYLES = styles(1000);
+
+    @Test
+    void testMoveOverlapping() {
+        // region rows 1..4 and columns 2..5 moved up / down / left / right and diagonally by one or two cells
+        for (int rows = -2; rows <= 2; rows++) {
+            for (int columns = -2; columns <= 2; columns++) {
+                final Block block = create(HEIGHT, WIDTH, new Random(rows * 5 + columns));
+                final StyleIF[] expected = copy(block, block, 1, 2, 4, 5, 1 + rows, 2 + columns);
+                block.move(area(1, 2, 4, 5), 1 + rows, 2 + columns);
+                assertThat(cells(block)).containsExactly(expected);
+            }
+        }
+    }
+
+    @Test
+    void testMoveAcrossBounds() {
+        final Block block = create(HEIGHT, WIDTH, new Random(1));
+        final StyleIF[] expected = copy(block, block, -2, -1, 3, 9, 2, -3);
+        block.move(area(-2, -1, 3, 9), 2, -3);
+        assertThat(cells(block)).containsExactly(expected);
+    }
+
+    @Test
+    void testCopyNegativeOrigins() {
+        final Block source = create(5, 8, new Random(2));
+        final Block target = create(HEIGHT, WIDTH, new Random(3));
+        StyleIF[] expected = copy(source, target, -2, -3, 3, 4, 1, 1);
+        target.copy(source, area(-2, -3, 3, 4), 1, 1);
+        assertThat(cells(target)).containsExactly(expected);
+
+        expected = copy(source, target, 1, 2, 5, 8, -1, -2);
+        target.copy(source, area(1, 2, 5, 8), -1, -2);
+        assertThat(cells(target)).containsExactly(expected);
+
+        expected = copy(source, target, -3, -3, 0, 0, 0, 0);
+        target.copy(source, area(-3, -3, 0, 0), 0, 0);
+        assertThat(cells(target)).containsExactly(expected);
+    }
+
+    @Test
+    void testRandomCopyAndMove() {
+        final Random random = new Random(9);
+        for (int n = 0; n < 10_000; n++) {
+            final Block source = create(1 + random.nextInt(8), 1 + random.nextInt(8), random);
+            final Block target = random.nextBoolean() ? source : create(1 + random.nextInt(8), 1 + random.nextInt(8), random);
+            final int top = random.nextInt(14) - 3;
+            final int left = random.nextInt(14) - 3;
+            final int bottom = top + random.nextInt(10);
+            final int right = left + random.nextInt(10);
+            final int row = random.nextInt(14) - 3;
+            final int column = random.nextInt(14) - 3;
+            final StyleIF[] expected = copy(source, target, top, left, bottom, right, row, column);
+            target.copy(source, area(top, left, bottom, right), row, column);
+            assertThat(cells(target)).containsExactly(expected);
+        }
+    }
+
+    @Test
+    void testScroll() {
+        final StyleIF style = Style.RED_BACKGROUND;
+        for (final int rows : new int[]{0, 1, HEIGHT - 1, HEIGHT, HEIGHT + 3}) {
+            Block block = create(HEIGHT, WIDTH, new Random(rows));
+            StyleIF[] expected = scroll(block, rows, style);
+            block.scrollUp(rows, style);
+            assertThat(cells(block)).containsExactly(expected);
+
+            block = create(HEIGHT, WIDTH, new Random(rows));
+            expected = scroll(block, -rows, style);
+            block.scrollDown(rows, style);
+            assertThat(cells(block)).containsExactly(expected);
+        }
+    }
+
+    private static Block create(int height, int width, final Random random) {
+        final Block block = Block.create(area(0, 0, height, width));
+        for (int i = 0; i < height; i++) {
+            for (int j = 0; j < width; j++) {
+                block.set(i, j, STYLES[random.nextInt(STYLES.length)]);
+            }
+        }
+        return block;
+    }
+
+    private static Area area(int top, int left, int bottom, int right) {
+        return Area.create(Position.create(top, right), Position.create(bottom, left));
+    }
+
+    private static StyleIF[] styles(int size) {
+        final StyleIF[] styles = new StyleIF[size];
+        for (int k = 1; k < size; k++) {
+            styles[k] = Style.create("style" + k, "style " + k, Point.BOLD);
+        }
+        return styles;
+    }
+
+    private static StyleIF[] cells(final Block block) {
+        final int width = block.getMatrix().width();
+        final StyleIF[] cells = new StyleIF[block.getMatrix().height() * width];
+        for (int k = 0; k < cells.length; k++) {
+            cells[k] = block.getStyle(k / width, k % width);
+        }
+        return cells;
+    }
+
+    /**
+     * Returns target cells after a per-cell copy of the source region, cells outside either block are skipped
+     */
+    private static StyleIF[] copy(final Block source, final Block target, int top, int left, int bottom, int right, int row, int column) {
+        final StyleIF[] from = cells(source);
+        final StyleIF[] to = cells(target);
+        final int sourceHeight = source.getMatrix().height();
+        final int sourceWidth = source.getMatrix().width();
+        final int targetHeight = target.getMatrix().height();
+        final int targetWidth = target.getMatrix().width();
+        for (int i = top; i < bottom; i++) {
+            for (int j = left; j < right; j++) {
+                final int ti = row + i - top;
+                final int tj = column + j - left;
+                if (i >= 0 && j >= 0 && i < sourceHeight && j < sourceWidth && ti >= 0 && tj >= 0 && ti < targetHeight && tj < targetWidth) {
+                    to[ti * targetWidth + tj] = from[i * sourceWidth + j];
+                }
+            }
+        }
+        return to;
+    }
+
+    /**
+     * Returns cells after a per-cell scroll up (positive rows) or down (negative rows), freed cells get input style
+     */
+    private static StyleIF[] scroll(final Block block, int rows, final StyleIF style) {
+        final StyleIF[] from = cells(block);
+        final int height = block.getMatrix().height();
+        final int width = block.getMatrix().width();
+        final StyleIF[] to = new StyleIF[from.length];
+        for (int i = 0; i < height; i++) {
+            for (int j = 0; j < width; j++) {
+                final int si = i + rows;
+                to[i * width + j] = si >= 0 && si < height ? from[si * width + j] : style;
+            }
+        }
+        return to;
+    }
+}
@@ -0,0 +1,96 @@
+package com.sensiblemetrics.ansifancy.model.impl;
+
+import com.sensiblemetrics.ansifancy.model.iface.StyleIF;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PackedMatrix} versus {@link Matrix} full-screen back buffer benchmark: column scan,
+ * clear and scroll by one row
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PackedMatrixBenchmark {
+
+    private static final int ROWS = 50;
+    private static final int COLUMNS = 200;
+
+    private Matrix matrix;
+    private PackedMatrix packed;
+
+    @Setup
+    public void setup() {
+        this.matrix = new Matrix(ROWS, COLUMNS);
+        this.packed = new PackedMatrix(ROWS, COLUMNS);
+        for (int i = 0; i < ROWS; i++) {
+            for (int j = 0; j < COLUMNS; j++) {
+                final StyleIF style = (i + j) % 3 == 0 ? Style.BOLD : null;
+                this.matrix.set(i, j, style);
+                this.packed.set(i, j, style);
+            }
+        }
+    }
+
+    @Benchmark
+    public int columnsMatrix() {
+        int count = 0;
+        for (int j = 0; j < COLUMNS; j++) {
+            for (final StyleIF style : this.matrix.getColumn(j)) {
+                count += style == null ? 0 : 1;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int columnsPacked() {
+        int count = 0;
+        for (int j = 0; j < COLUMNS; j++) {
+            final PackedMatrix.View column = this.packed.column(j);
+            for (int i = 0; i < column.length(); i++) {
+                count += column.get(i) == PackedStyle.DEFAULT ? 0 : 1;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public Matrix clearMatrix() {
+        for (int i = 0; i < ROWS; i++) {
+            for (int j = 0; j < COLUMNS; j++) {
+                this.matrix.set(i, j, null);
+            }
+        }
+        return this.matrix;
+    }
+
+    @Benchmark
+    public PackedMatrix clearPacked() {
+        this.packed.fill(PackedStyle.DEFAULT);
+        return this.packed;
+    }
+
+    @Benchmark
+    public PackedMatrix scrollPacked() {
+        this.packed.blit(this.packed, 1, 0, ROWS - 1, COLUMNS, 0, 0);
+        this.packed.row(ROWS - 1).fill(PackedStyle.DEFAULT);
+        return this.packed;
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(PackedMatrixBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,90 @@
+package com.sensiblemetrics.ansifancy.model.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static com.sensiblemetrics.ansifancy.model.impl.PackedStyle.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link PackedStyle} unit tests
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+class PackedStyleTest {
+
+    private static final int PAIRS = 300_000;
+
+    @Test
+    void testRandomRoundTripAndTransition() {
+        final Random random = new Random(3);
+        final StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < PAIRS; i++) {
+            final long from = random(random);
+            final long to = random(random);
+            assertThat(of(toStyle(from))).isEqualTo(from);
+            assertThat(transition(buffer, from, to)).isEqualTo(to);
+            assertThat(diff(from, to) == 0).isEqualTo(from == to);
+        }
+    }
+
+    @Test
+    void testIntensityTransition() {
+        final StringBuilder buffer = new StringBuilder();
+        final long[] styles = {DEFAULT, BOLD, FAINT, BOLD | FAINT, BOLD | UNDERLINE, FAINT | STRIKE};
+        for (final long from : styles) {
+            for (final long to : styles) {
+                assertThat(transition(buffer, from, to)).isEqualTo(to);
+            }
+        }
+        assertThat(transition(buffer, BOLD, FAINT)).isEqualTo(FAINT);
+        assertThat(buffer.toString()).contains("22");
+        assertThat(transition(buffer, BOLD | FAINT, BOLD)).isEqualTo(BOLD);
+        assertThat(buffer.toString()).contains("22");
+        assertThat(transition(buffer, FAINT, BOLD | FAINT)).isEqualTo(BOLD | FAINT);
+    }
+
+    @Test
+    void testExtendedColorParameters() {
+        final long palette = parse("\u001B[38;5;200;48;5;17m");
+        assertThat(foregroundKind(palette)).isEqualTo(COLOR_PALETTE);
+        assertThat(foreground(palette)).isEqualTo(200);
+        assertThat(backgroundKind(palette)).isEqualTo(COLOR_PALETTE);
+        assertThat(background(palette)).isEqualTo(17);
+
+        final long rgb = parse("\u001B[1;38;2;10;20;30;48;2;255;0;128;4m");
+        assertThat(attributes(rgb)).isEqualTo(BOLD | UNDERLINE);
+        assertThat(foregroundKind(rgb)).isEqualTo(COLOR_RGB);
+        assertThat(foreground(rgb)).isEqualTo(0x0A141E);
+        assertThat(backgroundKind(rgb)).isEqualTo(COLOR_RGB);
+        assertThat(background(rgb)).isEqualTo(0xFF0080);
+
+        final long basic = parse("\u001B[31;102mX\u001B[39m");
+        assertThat(foregroundKind(basic)).isEqualTo(COLOR_DEFAULT);
+        assertThat(background(basic)).isEqualTo(10);
+    }
+
+    private static long random(final Random random) {
+        long style = random.nextInt(256);
+        final int foreground = random.nextInt(3);
+        final int background = random.nextInt(3);
+        style = withForeground(style, foreground, randomColor(random, foreground));
+        return withBackground(style, background, randomColor(random, background));
+    }
+
+    private static int randomColor(final Random random, int kind) {
+        return kind == COLOR_PALETTE ? random.nextInt(256) : kind == COLOR_RGB ? random.nextInt(1 << 24) : 0;
+    }
+
+    private static long transition(final StringBuilder buffer, long from, long to) {
+        buffer.setLength(0);
+        appendTransition(buffer, from, to);
+        return apply(from, buffer.toString().toCharArray(), 0, buffer.length());
+    }
+
+    private static long parse(final String escape) {
+        return apply(DEFAULT, escape.toCharArray(), 0, escape.length());
+    }
+}
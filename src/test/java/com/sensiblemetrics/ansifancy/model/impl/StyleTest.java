@@ -0,0 +1,55 @@
+package com.sensiblemetrics.ansifancy.model.impl;
+
+import com.sensiblemetrics.ansifancy.model.iface.PointIF;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link Style} unit tests
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+class StyleTest {
+
+    @Test
+    void testMergedSelectGraphicRendition() {
+        final Style style = (Style) Style.create("test", "test style", Point.BOLD, Point.RED_FOREGROUND,
+            Point.of("ERASE_LINE", "ERS_LN", "\u001B[2K", PointIF.PointType.CURSOR_CONTROL), Point.UNDERLINE);
+        assertThat(new String(style.getEscapeChars())).isEqualTo("\u001B[1;31m\u001B[2K\u001B[4m");
+        assertThat(new String(style.getEscapeBytes(), StandardCharsets.UTF_8)).isEqualTo("\u001B[1;31m\u001B[2K\u001B[4m");
+    }
+
+    @Test
+    void testCodePointsAreConcatenated() {
+        final Style style = (Style) Style.create("test", "test style", Point.BOLD, Point.RED_FOREGROUND,
+            Point.of("ERASE_LINE", "ERS_LN", "\u001B[2K", PointIF.PointType.CURSOR_CONTROL), Point.UNDERLINE);
+        assertThat(style.getCodePoints()).isEqualTo("\u001B[1m\u001B[31m\u001B[2K\u001B[4m");
+        assertThat(style.getCodePoints()).isSameAs(style.getCodePoints());
+    }
+
+    @Test
+    void testPointCodeUpdate() {
+        final Point point = (Point) Point.of("BOLD", "BLD", 1, PointIF.PointType.DECORATION_CONTROL);
+        final Style style = (Style) Style.create("test", "test style", point, Point.RED_FOREGROUND);
+        assertThat(new String(style.getEscapeChars())).isEqualTo("\u001B[1;31m");
+        point.setCode("\u001B[4m");
+        assertThat(style.getCodePoints()).isEqualTo("\u001B[4m\u001B[31m");
+        assertThat(new String(style.getEscapeBytes())).isEqualTo("\u001B[4;31m");
+    }
+
+    @Test
+    void testPointsUpdatedDirectly() {
+        final Style style = (Style) Style.create("test", "test style", Point.BOLD);
+        assertThat(style.getCodePoints()).isEqualTo("\u001B[1m");
+        style.getPoints().add(Point.RED_FOREGROUND);
+        assertThat(new String(style.getEscapeChars())).isEqualTo("\u001B[1;31m");
+        assertThat(style.getCodePoints()).isEqualTo("\u001B[1m\u001B[31m");
+        style.getPoints().clear();
+        assertThat(style.getEscapeChars()).isEmpty();
+        assertThat(style.getCodePoints()).isEmpty();
+    }
+}
@@ -0,0 +1,49 @@
+package com.sensiblemetrics.ansifancy.parser.impl;
+
+import com.sensiblemetrics.ansifancy.config.impl.Configuration;
+import com.sensiblemetrics.ansifancy.model.impl.Marker;
+import com.sensiblemetrics.ansifancy.model.impl.MetaData;
+import com.sensiblemetrics.ansifancy.model.impl.Style;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link MarkupStreamParser} unit tests
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+class MarkupStreamParserTest {
+
+    @Test
+    void testSameAsTemplate() throws IOException {
+        final Configuration configuration = new Configuration();
+        final String source = "a {bold b {red_fg c}} `{d`} {dim}e {uline f";
+        for (int bufferSize = 1; bufferSize <= 8; bufferSize++) {
+            assertThat(parse(new MarkupStreamParser(configuration, bufferSize), source))
+                .isEqualTo(MarkupTemplate.compile(source, configuration).toString());
+        }
+    }
+
+    @Test
+    void testMarkerAddedAfterConstruction() throws IOException {
+        final Configuration configuration = new Configuration();
+        final MarkupStreamParser parser = new MarkupStreamParser(configuration, 4);
+        configuration.add(Marker.builder().metaData(MetaData.create("important_notice", "important notice"))
+            .styles(asList(Style.BOLD, Style.RED_FOREGROUND)).build());
+        final String source = "{important_notice hi}";
+        assertThat(parse(parser, source)).isEqualTo(MarkupTemplate.compile(source, configuration).toString());
+    }
+
+    private static String parse(final MarkupStreamParser parser, final String source) throws IOException {
+        final StringWriter out = new StringWriter();
+        parser.parse(new StringReader(source), out);
+        return out.toString();
+    }
+}
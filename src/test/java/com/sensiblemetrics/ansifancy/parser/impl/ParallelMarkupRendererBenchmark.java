@@ -0,0 +1,59 @@
+package com.sensiblemetrics.ansifancy.parser.impl;
+
+import com.sensiblemetrics.ansifancy.config.impl.Configuration;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ParallelMarkupRenderer} styled table rows benchmark: parallel batch versus sequential template compiling
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelMarkupRendererBenchmark {
+
+    private static final int ROWS = 200_000;
+
+    private final Configuration configuration = new Configuration();
+    private List<CharSequence> rows;
+
+    @Setup
+    public void setup() {
+        this.rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            this.rows.add("| {bold " + i + "} | {green_fg item-" + (i * 31 % 997) + "} | {yellow_fg " + (i % 100) + " ms} | {red_fg {uline " + (i % 7 == 0 ? "FAIL" : "ok") + "}} |");
+        }
+    }
+
+    @Benchmark
+    public List<String> sequential() {
+        final List<String> result = new ArrayList<>(ROWS);
+        for (final CharSequence row : this.rows) {
+            result.add(MarkupTemplate.compile(row, this.configuration).toString());
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<String> parallel() {
+        return ParallelMarkupRenderer.render(this.rows, this.configuration);
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(ParallelMarkupRendererBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
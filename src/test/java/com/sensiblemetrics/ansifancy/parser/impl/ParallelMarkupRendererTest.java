@@ -0,0 +1,54 @@
+package com.sensiblemetrics.ansifancy.parser.impl;
+
+import com.sensiblemetrics.ansifancy.config.impl.Configuration;
+import com.sensiblemetrics.ansifancy.exception.ParserException;
+import com.sensiblemetrics.ansifancy.processor.impl.MarkerProcessor;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * {@link ParallelMarkupRenderer} unit tests
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+class ParallelMarkupRendererTest {
+
+    @Test
+    void testSourceOrderIsPreserved() {
+        final Configuration configuration = new Configuration();
+        final List<CharSequence> rows = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            rows.add("| {bold " + i + "} | {green_fg item-" + (i * 31 % 997) + "} | {red_fg {uline " + (i % 7 == 0 ? "FAIL" : "ok") + "}} |");
+        }
+        final List<String> expected = new ArrayList<>();
+        for (final CharSequence row : rows) {
+            expected.add(MarkupTemplate.render(row, configuration, new MarkerProcessor.Tokens(), new StringBuilder()).toString());
+        }
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (final int batchSize : new int[]{1, 7, 256, 10_000}) {
+                assertThat(ParallelMarkupRenderer.render(rows, configuration, pool, batchSize)).isEqualTo(expected);
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertThat(ParallelMarkupRenderer.render(rows, configuration)).isEqualTo(expected);
+    }
+
+    @Test
+    void testUnknownClassIsRethrown() {
+        final List<CharSequence> rows = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            rows.add(i == 42 ? "{unknown_class x}" : "{bold x}");
+        }
+        assertThatThrownBy(() -> ParallelMarkupRenderer.render(rows, new Configuration(), ForkJoinPool.commonPool(), 8))
+            .isInstanceOf(ParserException.class);
+    }
+}
@@ -0,0 +1,56 @@
+package com.sensiblemetrics.ansifancy.processor.impl;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MarkerProcessor#tokenize(CharSequence, MarkerProcessor.Tokens)} benchmark
+ * (run with {@code -prof gc} to check that a reused {@link MarkerProcessor.Tokens} buffer does not allocate)
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarkerProcessorBenchmark {
+
+    @Param({"plain", "heavy"})
+    private String input;
+
+    private String value;
+    private MarkerProcessor<String> processor;
+    private MarkerProcessor.Tokens tokens;
+
+    @Setup
+    public void setup() {
+        switch (this.input) {
+            case "plain":
+                this.value = "2019-03-01 12:00:00.123 INFO  [main] request GET /index.html took 17 ms, status 200 OK";
+                break;
+            default:
+                this.value = "{dim 2019-03-01 12:00:00.123} {green INFO } [{bold main}] request {cyan GET /index.html} "
+                    + "took {yellow 17 ms}, status {bold {green 200}} `{not a class`} OK";
+        }
+        this.processor = new MarkerProcessor<>();
+        this.tokens = new MarkerProcessor.Tokens();
+    }
+
+    @Benchmark
+    public int tokenize() {
+        return this.processor.tokenize(this.value, this.tokens).size();
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(MarkerProcessorBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
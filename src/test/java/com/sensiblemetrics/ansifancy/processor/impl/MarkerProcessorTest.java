@@ -0,0 +1,86 @@
+package com.sensiblemetrics.ansifancy.processor.impl;
+
+import org.junit.jupiter.api.Test;
+
+import static com.sensiblemetrics.ansifancy.processor.impl.MarkerProcessor.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link MarkerProcessor} unit tests
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+class MarkerProcessorTest {
+
+    private final MarkerProcessor<String> processor = new MarkerProcessor<>();
+
+    @Test
+    void testClass() {
+        assertThat(tokenize("a{bold b}c")).containsExactly(
+            TOKEN_TEXT, 0, 1,
+            TOKEN_CLASS_BEGIN, 2, 6,
+            TOKEN_TEXT, 7, 8,
+            TOKEN_CLASS_END, 8, 9,
+            TOKEN_TEXT, 9, 10);
+    }
+
+    @Test
+    void testClassNameEndsAtMarkup() {
+        assertThat(tokenize("{bold}")).containsExactly(
+            TOKEN_CLASS_BEGIN, 1, 5,
+            TOKEN_CLASS_END, 5, 6);
+        assertThat(tokenize("{red{bold x}}")).containsExactly(
+            TOKEN_CLASS_BEGIN, 1, 4,
+            TOKEN_CLASS_BEGIN, 5, 9,
+            TOKEN_TEXT, 10, 11,
+            TOKEN_CLASS_END, 11, 12,
+            TOKEN_CLASS_END, 12, 13);
+    }
+
+    @Test
+    void testUnmatchedClassEnd() {
+        assertThat(tokenize("a}b")).containsExactly(
+            TOKEN_TEXT, 0, 1,
+            TOKEN_CLASS_END, 1, 2,
+            TOKEN_TEXT, 2, 3);
+    }
+
+    @Test
+    void testEscape() {
+        assertThat(tokenize("a`{b")).containsExactly(
+            TOKEN_TEXT, 0, 1,
+            TOKEN_TEXT, 2, 4);
+        assertThat(tokenize("a``b")).containsExactly(
+            TOKEN_TEXT, 0, 1,
+            TOKEN_TEXT, 2, 4);
+    }
+
+    @Test
+    void testEscapeAtEnd() {
+        assertThat(tokenize("ab`")).containsExactly(TOKEN_TEXT, 0, 3);
+        assertThat(tokenize("{x}`")).containsExactly(
+            TOKEN_CLASS_BEGIN, 1, 2,
+            TOKEN_CLASS_END, 2, 3,
+            TOKEN_TEXT, 3, 4);
+    }
+
+    @Test
+    void testEmptyAndReuse() {
+        final Tokens tokens = new Tokens();
+        this.processor.tokenize("{a b}{c d}{e f}{g h}{i j}{k l}{m n}{o p}{q r}", tokens);
+        assertThat(tokens.size()).isEqualTo(27);
+        assertThat(this.processor.tokenize("", tokens).size()).isZero();
+    }
+
+    private int[] tokenize(final String source) {
+        final Tokens tokens = this.processor.tokenize(source, new Tokens());
+        final int[] result = new int[tokens.size() * 3];
+        for (int i = 0; i < tokens.size(); i++) {
+            result[i * 3] = tokens.kind(i);
+            result[i * 3 + 1] = tokens.start(i);
+            result[i * 3 + 2] = tokens.end(i);
+        }
+        return result;
+    }
+}
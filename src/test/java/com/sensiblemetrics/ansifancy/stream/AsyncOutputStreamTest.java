@@ -0,0 +1,233 @@
+package com.sensiblemetrics.ansifancy.stream;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * {@link AsyncOutputStream} unit tests
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+class AsyncOutputStreamTest {
+
+    @Test
+    void testWriteOrderIsPreserved() throws IOException {
+        for (final AsyncOutputStream.OverflowPolicy policy : AsyncOutputStream.OverflowPolicy.values()) {
+            final Sink sink = new Sink();
+            final StringBuilder expected = new StringBuilder();
+            try (final AsyncOutputStream stream = new AsyncOutputStream(sink, 1 << 16, policy)) {
+                for (int i = 0; i < 5_000; i++) {
+                    final String line = "line " + i + "\n";
+                    if (i % 3 == 0) {
+                        for (final byte b : line.getBytes(StandardCharsets.UTF_8)) {
+                            stream.write(b);
+                        }
+                    } else {
+                        stream.write(line.getBytes(StandardCharsets.UTF_8));
+                    }
+                    expected.append(line);
+                }
+                assertThat(stream.getDroppedCount()).isZero();
+            }
+            assertThat(sink.toString()).isEqualTo(expected.toString());
+        }
+    }
+
+    @Test
+    void testSmallBufferBlockPreservesOrder() throws IOException {
+        final Sink sink = new Sink();
+        final StringBuilder expected = new StringBuilder();
+        try (final AsyncOutputStream stream = new AsyncOutputStream(sink, 16, AsyncOutputStream.OverflowPolicy.BLOCK)) {
+            for (int i = 0; i < 2_000; i++) {
+                final String line = "\u001B[3" + (i % 8) + "m" + i + "\n";
+                stream.write(line.getBytes(StandardCharsets.UTF_8));
+                stream.write('.');
+                expected.append(line).append('.');
+            }
+            assertThat(stream.getDroppedCount()).isZero();
+        }
+        assertThat(sink.toString()).isEqualTo(expected.toString());
+    }
+
+    @Test
+    void testFlushDrainsBuffer() throws IOException {
+        final Sink sink = new Sink();
+        try (final AsyncOutputStream stream = new AsyncOutputStream(sink)) {
+            stream.write("abc".getBytes(StandardCharsets.UTF_8));
+            stream.write('d');
+            stream.flush();
+            assertThat(sink.toString()).isEqualTo("abcd");
+            assertThat(sink.flushes).isPositive();
+            assertThat(stream.size()).isZero();
+        }
+    }
+
+    @Test
+    void testCloseDrainsBufferAndClosesStream() throws IOException {
+        final Sink sink = new Sink();
+        final AsyncOutputStream stream = new AsyncOutputStream(sink);
+        stream.write("abc".getBytes(StandardCharsets.UTF_8));
+        stream.close();
+        assertThat(sink.toString()).isEqualTo("abc");
+        assertThat(sink.closed).isTrue();
+
+        stream.close();
+        assertThatThrownBy(() -> stream.write('d')).isInstanceOf(IOException.class);
+        assertThatThrownBy(stream::flush).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void testBlockWaitsForSpace() throws Exception {
+        final Sink sink = new Sink().hold();
+        final AsyncOutputStream stream = new AsyncOutputStream(sink, 4, AsyncOutputStream.OverflowPolicy.BLOCK);
+        stalled(stream, sink);
+        final Thread writer = new Thread(() -> {
+            try {
+                stream.write("abcdef".getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        writer.start();
+        while (writer.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+        assertThat(stream.size()).isEqualTo(4);
+
+        sink.release();
+        writer.join();
+        stream.close();
+        assertThat(sink.toString()).isEqualTo("xabcdef");
+        assertThat(stream.getDroppedCount()).isZero();
+    }
+
+    @Test
+    void testDropOldest() throws Exception {
+        final Sink sink = new Sink().hold();
+        final AsyncOutputStream stream = new AsyncOutputStream(sink, 4, AsyncOutputStream.OverflowPolicy.DROP_OLDEST);
+        stalled(stream, sink);
+        stream.write("abcd".getBytes(StandardCharsets.UTF_8));
+        stream.write("ef".getBytes(StandardCharsets.UTF_8));
+        stream.write('g');
+        assertThat(stream.getDroppedCount()).isEqualTo(3);
+        stream.write("0123456789".getBytes(StandardCharsets.UTF_8));
+        assertThat(stream.getDroppedCount()).isEqualTo(13);
+
+        sink.release();
+        stream.close();
+        assertThat(sink.toString()).isEqualTo("x6789");
+    }
+
+    @Test
+    void testDropNewest() throws Exception {
+        final Sink sink = new Sink().hold();
+        final AsyncOutputStream stream = new AsyncOutputStream(sink, 4, AsyncOutputStream.OverflowPolicy.DROP_NEWEST);
+        stalled(stream, sink);
+        stream.write("abc".getBytes(StandardCharsets.UTF_8));
+        stream.write("def".getBytes(StandardCharsets.UTF_8));
+        stream.write('g');
+        assertThat(stream.getDroppedCount()).isEqualTo(3);
+
+        sink.release();
+        stream.close();
+        assertThat(sink.toString()).isEqualTo("xabcd");
+    }
+
+    @Test
+    void testWriteFailureIsReported() throws IOException {
+        final Sink sink = new Sink().fail();
+        final AsyncOutputStream stream = new AsyncOutputStream(sink);
+        stream.write('x');
+        assertThatThrownBy(stream::flush).isInstanceOf(IOException.class).hasCauseInstanceOf(IOException.class);
+        assertThatThrownBy(() -> stream.write('y')).isInstanceOf(IOException.class);
+        assertThatThrownBy(stream::close).isInstanceOf(IOException.class);
+    }
+
+    /**
+     * Writes a single byte and waits until the flusher is stuck writing it, so that the ring buffer is empty
+     * and its further state only depends on the caller
+     */
+    private static void stalled(final AsyncOutputStream stream, final Sink sink) throws Exception {
+        stream.write('x');
+        assertThat(sink.entered.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(stream.size()).isZero();
+    }
+
+    /**
+     * Recording output stream, optionally holding or failing writes
+     */
+    private static final class Sink extends OutputStream {
+
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+        private volatile boolean held;
+        private volatile boolean failed;
+        private volatile int flushes;
+        private volatile boolean closed;
+
+        private Sink hold() {
+            this.held = true;
+            return this;
+        }
+
+        private Sink fail() {
+            this.failed = true;
+            return this;
+        }
+
+        private void release() {
+            this.released.countDown();
+        }
+
+        @Override
+        public void write(int data) throws IOException {
+            this.write(new byte[]{(byte) data}, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] data, int offset, int length) throws IOException {
+            this.entered.countDown();
+            if (this.held) {
+                try {
+                    this.released.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (this.failed) {
+                throw new IOException("Sink failure");
+            }
+            synchronized (this.buffer) {
+                this.buffer.write(data, offset, length);
+            }
+        }
+
+        @Override
+        public void flush() {
+            this.flushes++;
+        }
+
+        @Override
+        public void close() {
+            this.closed = true;
+        }
+
+        @Override
+        public String toString() {
+            synchronized (this.buffer) {
+                return new String(this.buffer.toByteArray(), StandardCharsets.UTF_8);
+            }
+        }
+    }
+}
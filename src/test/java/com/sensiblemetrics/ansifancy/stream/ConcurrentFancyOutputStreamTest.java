@@ -0,0 +1,70 @@
+package com.sensiblemetrics.ansifancy.stream;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link ConcurrentFancyOutputStream} unit tests
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+class ConcurrentFancyOutputStreamTest {
+
+    @Test
+    void testPartialLineOfTerminatedThreadIsWrittenBeforeClose() throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ConcurrentFancyOutputStream stream = new ConcurrentFancyOutputStream(out);
+        final Thread writer = new Thread(() -> {
+            try {
+                stream.write("first\npartial".getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.start();
+        writer.join();
+
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!contains(out, "partial") && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(contains(out, "first\npartial")).isTrue();
+        stream.close();
+        assertThat(out.toString(StandardCharsets.UTF_8.name())).isEqualTo("first\npartial");
+    }
+
+    @Test
+    void testLinesOfManyShortLivedThreads() throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ConcurrentFancyOutputStream stream = new ConcurrentFancyOutputStream(out);
+        for (int i = 0; i < 100; i++) {
+            final int id = i;
+            final Thread writer = new Thread(() -> {
+                try {
+                    stream.write(("\u001B[1mline " + id + "\u001B[0m\n").getBytes(StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.start();
+            writer.join();
+        }
+        stream.close();
+        assertThat(stream.getLineCount()).isEqualTo(100L);
+        assertThat(out.toString(StandardCharsets.UTF_8.name()).split("\n")).hasSize(100);
+    }
+
+    private static boolean contains(final ByteArrayOutputStream out, final String value) {
+        synchronized (out) {
+            return new String(out.toByteArray(), StandardCharsets.UTF_8).contains(value);
+        }
+    }
+}
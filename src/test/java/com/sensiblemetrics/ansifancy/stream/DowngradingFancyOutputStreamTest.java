@@ -0,0 +1,63 @@
+package com.sensiblemetrics.ansifancy.stream;
+
+import com.sensiblemetrics.ansifancy.enumeration.ColorCapabilityType;
+import com.sensiblemetrics.ansifancy.utils.ConsoleUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link DowngradingFancyOutputStream} unit tests
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+class DowngradingFancyOutputStreamTest {
+
+    private static final String NON_SGR = "ab\u001B[3Ccd\u001B[2Eef\u001B[C\u001B[E\u001B[K\u001B[1K\u001B[2J\u001B[3;4H\u001B[2A\u001B[B\u001B[D"
+        + "\u001B[L\u001B[M\u001B[S\u001B[T\u001B[Gx\u001B[s\u001B[u\u001B[?25l\u001B[2;5r";
+
+    @Test
+    void testNonGraphicRenditionSequencesArePassedThrough() throws IOException {
+        for (final ColorCapabilityType capability : ColorCapabilityType.values()) {
+            assertThat(downgrade(NON_SGR, capability, false)).isEqualTo(NON_SGR);
+            assertThat(downgrade(NON_SGR, capability, true)).isEqualTo(NON_SGR);
+        }
+    }
+
+    @Test
+    void testTrueColorIsDowngraded() throws IOException {
+        assertThat(downgrade("\u001B[38;2;255;0;0mx", ColorCapabilityType.ANSI_256, false)).isEqualTo("\u001B[38;5;196mx");
+        assertThat(downgrade("\u001B[38;2;255;0;0mx\u001B[3C", ColorCapabilityType.MONO, false)).isEqualTo("x\u001B[3C");
+    }
+
+    @Test
+    void testDefaultCapabilityIsDetectedFromEnvironment() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final DowngradingFancyOutputStream stream = new DowngradingFancyOutputStream(out);
+        assertThat(stream.getCapability()).isEqualTo(ConsoleUtils.getColorCapability());
+
+        stream.write("\u001B[38;2;255;0;0mx".getBytes(StandardCharsets.UTF_8));
+        stream.flush();
+        assertThat(out.toString(StandardCharsets.UTF_8.name())).isEqualTo(downgrade("\u001B[38;2;255;0;0mx", stream.getCapability(), false));
+    }
+
+    private static String downgrade(final String value, final ColorCapabilityType capability, boolean byteByByte) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final DowngradingFancyOutputStream stream = new DowngradingFancyOutputStream(out, capability);
+        final byte[] data = value.getBytes(StandardCharsets.UTF_8);
+        if (byteByByte) {
+            for (final byte b : data) {
+                stream.write(b);
+            }
+        } else {
+            stream.write(data);
+        }
+        stream.flush();
+        return out.toString(StandardCharsets.UTF_8.name());
+    }
+}
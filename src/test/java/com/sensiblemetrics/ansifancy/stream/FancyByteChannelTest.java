@@ -0,0 +1,172 @@
+package com.sensiblemetrics.ansifancy.stream;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * {@link FancyByteChannel} unit tests (compared against {@link FancyOutputStream} output of the same input)
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+class FancyByteChannelTest {
+
+    private static final String VALUE = "a<b&\u001B[31mred\u001B[0m \u001B[1;4mbold\u001B[22m\u001B[5Cx\u001B[2K\u001B[38;5;196my\u001B[m\n";
+
+    @Test
+    void testPartialChannelWrites() throws IOException {
+        final StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            value.append(i).append(VALUE);
+        }
+        final byte[] data = value.toString().getBytes(StandardCharsets.UTF_8);
+        for (final Function<OutputStream, ? extends FancyOutputStream> factory : factories()) {
+            final byte[] expected = expected(data, factory);
+            for (final int limit : new int[]{1, 3, 64, Integer.MAX_VALUE}) {
+                assertThat(write(new Sink(limit), factory, data, data.length)).isEqualTo(expected);
+                assertThat(write(new GatheringSink(limit), factory, data, data.length)).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    void testEscapesSplitAcrossBuffers() throws IOException {
+        final byte[] data = VALUE.getBytes(StandardCharsets.UTF_8);
+        for (final Function<OutputStream, ? extends FancyOutputStream> factory : factories()) {
+            final byte[] expected = expected(data, factory);
+            for (int size = 1; size <= data.length; size++) {
+                assertThat(write(new GatheringSink(Integer.MAX_VALUE), factory, data, size)).isEqualTo(expected);
+            }
+            for (int split = 0; split <= data.length; split++) {
+                final GatheringSink sink = new GatheringSink(7);
+                final FancyByteChannel channel = new FancyByteChannel(sink, factory);
+                final ByteBuffer first = ByteBuffer.allocateDirect(split).put(data, 0, split);
+                first.flip();
+                final ByteBuffer second = ByteBuffer.wrap(data, split, data.length - split);
+                assertThat(channel.write(new ByteBuffer[]{first, second})).isEqualTo(data.length);
+                assertThat(first.hasRemaining() || second.hasRemaining()).isFalse();
+                channel.close();
+                assertThat(sink.toByteArray()).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    void testClose() throws IOException {
+        final Sink sink = new Sink(Integer.MAX_VALUE);
+        final FancyByteChannel channel = new FancyByteChannel(sink);
+        assertThat(channel.isOpen()).isTrue();
+        channel.close();
+        channel.close();
+        assertThat(channel.isOpen()).isFalse();
+        assertThat(sink.isOpen()).isFalse();
+        assertThatThrownBy(() -> channel.write(ByteBuffer.wrap(new byte[]{'x'}))).isInstanceOf(ClosedChannelException.class);
+    }
+
+    private static byte[] write(final Sink sink, final Function<OutputStream, ? extends FancyOutputStream> factory,
+                                final byte[] data, int size) throws IOException {
+        final FancyByteChannel channel = new FancyByteChannel(sink, factory);
+        for (int offset = 0; offset < data.length; offset += size) {
+            final ByteBuffer buffer = ByteBuffer.wrap(data, offset, Math.min(size, data.length - offset));
+            assertThat(channel.write(buffer)).isEqualTo(Math.min(size, data.length - offset));
+            assertThat(buffer.hasRemaining()).isFalse();
+        }
+        channel.close();
+        return sink.toByteArray();
+    }
+
+    private static byte[] expected(final byte[] data, final Function<OutputStream, ? extends FancyOutputStream> factory) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (final FancyOutputStream stream = factory.apply(out)) {
+            stream.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<OutputStream, ? extends FancyOutputStream>[] factories() {
+        return new Function[]{
+            (Function<OutputStream, FancyOutputStream>) FancyOutputStream::new,
+            (Function<OutputStream, FancyOutputStream>) HtmlFancyOutputStream::new
+        };
+    }
+
+    /**
+     * Recording channel writing at most limit bytes per call
+     */
+    private static class Sink implements WritableByteChannel {
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final int limit;
+        private boolean open = true;
+
+        Sink(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public int write(final ByteBuffer src) throws IOException {
+            if (!this.open) {
+                throw new ClosedChannelException();
+            }
+            final int count = Math.min(this.limit, src.remaining());
+            for (int i = 0; i < count; i++) {
+                this.out.write(src.get());
+            }
+            return count;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return this.open;
+        }
+
+        @Override
+        public void close() {
+            this.open = false;
+        }
+
+        byte[] toByteArray() {
+            return this.out.toByteArray();
+        }
+    }
+
+    /**
+     * Recording gathering channel writing at most limit bytes per call
+     */
+    private static final class GatheringSink extends Sink implements GatheringByteChannel {
+
+        GatheringSink(int limit) {
+            super(limit);
+        }
+
+        @Override
+        public long write(final ByteBuffer[] srcs, int offset, int length) throws IOException {
+            long count = 0;
+            for (int i = offset; i < offset + length && count < this.limit; i++) {
+                final ByteBuffer src = srcs[i].duplicate();
+                src.limit(src.position() + (int) Math.min(src.remaining(), this.limit - count));
+                count += write(src);
+                srcs[i].position(src.position());
+            }
+            return count;
+        }
+
+        @Override
+        public long write(final ByteBuffer[] srcs) throws IOException {
+            return write(srcs, 0, srcs.length);
+        }
+    }
+}
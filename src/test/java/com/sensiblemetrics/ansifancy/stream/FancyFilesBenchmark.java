@@ -0,0 +1,74 @@
+package com.sensiblemetrics.ansifancy.stream;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link FancyFiles} memory-mapped stripping throughput benchmark (reported as GB/s by "gigabytes" counter)
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class FancyFilesBenchmark {
+
+    @Param({"256"})
+    private int sizeMb;
+
+    @Param({"plain", "light", "heavy"})
+    private String input;
+
+    private Path source;
+    private Path target;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+
+        public double gigabytes;
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        final byte[] chunk = FancyOutputStreamBenchmark.createInput(this.input);
+        this.source = Files.createTempFile("fancy-source", ".log");
+        this.target = Files.createTempFile("fancy-target", ".log");
+        try (final OutputStream out = Files.newOutputStream(this.source)) {
+            for (long written = 0; written < (long) this.sizeMb << 20; written += chunk.length) {
+                out.write(chunk);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.source);
+        Files.deleteIfExists(this.target);
+    }
+
+    @Benchmark
+    public long strip(final Counters counters) throws IOException {
+        final long size = FancyFiles.strip(this.source, this.target);
+        counters.gigabytes += size / 1e9;
+        return size;
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(FancyFilesBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,51 @@
+package com.sensiblemetrics.ansifancy.stream;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link FancyOutputStream} escape sequence decoding allocation benchmark (expected to run with {@link GCProfiler})
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FancyOutputStreamAllocationBenchmark {
+
+    @Param({"\u001B[38;2;200;100;50m", "\u001B[1;4;31;48;5;200m", "\u001B[10;20H", "\u001B[2J", "\u001B[;5H\u001B[K"})
+    private String sequence;
+
+    private byte[] data;
+    private FancyOutputStream stream;
+
+    @Setup
+    public void setup() {
+        this.data = this.sequence.getBytes(StandardCharsets.US_ASCII);
+        this.stream = new FancyOutputStream(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void decode() throws IOException {
+        this.stream.write(this.data, 0, this.data.length);
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(FancyOutputStreamAllocationBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build()).run();
+    }
+}
@@ -0,0 +1,76 @@
+package com.sensiblemetrics.ansifancy.stream;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link FancyOutputStream} throughput benchmark on plain, lightly and heavily colored inputs
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FancyOutputStreamBenchmark {
+
+    private static final int DEFAULT_LINE_COUNT = 4096;
+
+    @Param({"plain", "light", "heavy"})
+    private String input;
+
+    private byte[] data;
+    private FancyOutputStream stream;
+
+    @Setup
+    public void setup() {
+        this.data = createInput(this.input);
+        this.stream = new FancyOutputStream(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void bulkWrite() throws IOException {
+        this.stream.write(this.data, 0, this.data.length);
+    }
+
+    @Benchmark
+    public void byteWrite() throws IOException {
+        for (final byte b : this.data) {
+            this.stream.write(b);
+        }
+    }
+
+    static byte[] createInput(final String type) {
+        final StringBuilder buff = new StringBuilder();
+        for (int i = 0; i < DEFAULT_LINE_COUNT; i++) {
+            switch (type) {
+                case "light":
+                    buff.append("2019-06-01 12:00:00.000 \u001B[32mINFO\u001B[0m [main] c.s.a.Service - processed request id=").append(i).append('\n');
+                    break;
+                case "heavy":
+                    buff.append("\u001B[1m\u001B[38;2;200;100;").append(i & 0xFF).append("m2019\u001B[0m \u001B[31;1mWARN\u001B[0m \u001B[38;5;")
+                        .append(i & 0xFF).append("m[main]\u001B[39m \u001B[4mid\u001B[24m=\u001B[36m").append(i).append("\u001B[0m\n");
+                    break;
+                default:
+                    buff.append("2019-06-01 12:00:00.000 INFO [main] c.s.a.Service - processed request id=").append(i).append('\n');
+            }
+        }
+        return buff.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(FancyOutputStreamBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,85 @@
+package com.sensiblemetrics.ansifancy.stream;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link FancyWriter} versus raw {@link PrintWriter} printing and {@link FormatTemplate} formatting benchmark
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FancyWriterBenchmark {
+
+    private static final String PLAIN = "The quick brown fox jumps over the lazy dog, 0123456789 abcdefghijklmnopqrstuvwxyz";
+    private static final String STYLED = "The quick {bold brown} fox jumps over the {red_fg lazy} dog, 0123456789 abcdefghijklmnopqrstuvwxyz";
+
+    private static final FormatTemplate TEMPLATE = FormatTemplate.compile("%s {bold %d}%n");
+
+    private PrintWriter raw;
+    private FancyWriter fancy;
+    private char[] plainChars;
+    private final StringBuilder builder = new StringBuilder();
+
+    @Setup
+    public void setup() {
+        this.raw = new PrintWriter(new OutputStreamWriter(OutputStream.nullOutputStream()));
+        this.fancy = new FancyWriter(OutputStream.nullOutputStream());
+        this.plainChars = PLAIN.toCharArray();
+    }
+
+    @Benchmark
+    public void rawPlain() {
+        this.raw.println(PLAIN);
+    }
+
+    @Benchmark
+    public void fancyPlain() {
+        this.fancy.println(PLAIN);
+    }
+
+    @Benchmark
+    public void fancyPlainChars() {
+        this.fancy.write(this.plainChars, 0, this.plainChars.length);
+    }
+
+    @Benchmark
+    public void fancyStyled() {
+        this.fancy.println(STYLED);
+    }
+
+    @Benchmark
+    public void fancyFormat() {
+        this.fancy.format("%s {bold %d}%n", PLAIN, 42);
+    }
+
+    @Benchmark
+    public void fancyTemplate() {
+        this.fancy.format(TEMPLATE, PLAIN, 42);
+    }
+
+    @Benchmark
+    public StringBuilder templateAppend() {
+        this.builder.setLength(0);
+        return TEMPLATE.appendTo(this.builder, PLAIN, 42);
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(FancyWriterBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
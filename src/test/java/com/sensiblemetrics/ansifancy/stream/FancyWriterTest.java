@@ -0,0 +1,97 @@
+package com.sensiblemetrics.ansifancy.stream;
+
+import com.sensiblemetrics.ansifancy.config.impl.Configuration;
+import com.sensiblemetrics.ansifancy.parser.impl.MarkupTemplate;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link FancyWriter} unit tests (compared against {@link MarkupTemplate} rendering of the same markup)
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+class FancyWriterTest {
+
+    private static final String[] SOURCES = {
+        "plain text without markup",
+        "{bold bold} text",
+        "{bold Hello {red_fg world} again} done",
+        "| {bold 1} | {green_fg item-31} | {red_fg {uline FAIL}} |",
+        "escaped `{bold not`} class and `` symbol",
+        "{uline {bold {green_fg deep}} nested} end",
+        "raw \u001B[31mescape\u001B[0m {bold kept}"
+    };
+
+    @Test
+    void testMarkupMatchesTemplateRendering() {
+        final Configuration configuration = new Configuration();
+        for (final String source : SOURCES) {
+            final String expected = MarkupTemplate.compile(source, configuration).toString();
+            assertThat(print(source)).isEqualTo(expected);
+            assertThat(printChars(source)).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void testSplitWritesMatchWholeWrite() {
+        for (final String source : SOURCES) {
+            final String expected = print(source);
+            // class names are not split between writes: pieces are cut after spaces only
+            for (int i = 1; i < source.length(); i++) {
+                if (source.charAt(i - 1) != ' ') {
+                    continue;
+                }
+                final StringWriter out = new StringWriter();
+                final FancyWriter writer = new FancyWriter(out);
+                writer.print(source.substring(0, i));
+                writer.write(source.toCharArray(), i, source.length() - i);
+                writer.flush();
+                assertThat(out.toString()).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    void testUnknownClassesAreWrittenAsIs() {
+        assertThat(print("{\"json\": 1}")).isEqualTo("{\"json\": 1}");
+        assertThat(print("{unknown x} y")).isEqualTo("{unknown x} y");
+        assertThat(print("a } b `c")).isEqualTo("a } b `c");
+    }
+
+    @Test
+    void testFormatMatchesTemplateRendering() {
+        final Configuration configuration = new Configuration();
+        final StringWriter out = new StringWriter();
+        final FancyWriter writer = new FancyWriter(out);
+        writer.format(Locale.ROOT, "%s {bold %d}%n", "value", 42);
+        writer.flush();
+        assertThat(out.toString()).isEqualTo(MarkupTemplate.compile(String.format(Locale.ROOT, "value {bold 42}%n"), configuration).toString());
+
+        final StringWriter templateOut = new StringWriter();
+        final FancyWriter templateWriter = new FancyWriter(templateOut);
+        templateWriter.format(FormatTemplate.compile("%s {bold %d}%n"), "value", 42);
+        templateWriter.flush();
+        assertThat(templateOut.toString()).isEqualTo(out.toString());
+    }
+
+    private static String print(final String value) {
+        final StringWriter out = new StringWriter();
+        final FancyWriter writer = new FancyWriter(out);
+        writer.print(value);
+        writer.flush();
+        return out.toString();
+    }
+
+    private static String printChars(final String value) {
+        final StringWriter out = new StringWriter();
+        final FancyWriter writer = new FancyWriter(out);
+        writer.write(value.toCharArray(), 0, value.length());
+        writer.flush();
+        return out.toString();
+    }
+}
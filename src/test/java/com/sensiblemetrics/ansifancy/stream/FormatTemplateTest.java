@@ -0,0 +1,37 @@
+package com.sensiblemetrics.ansifancy.stream;
+
+import com.sensiblemetrics.ansifancy.config.impl.Configuration;
+import org.junit.jupiter.api.Test;
+
+import java.util.IllegalFormatConversionException;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * {@link FormatTemplate} unit tests
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+class FormatTemplateTest {
+
+    @Test
+    void testNullArgumentsArray() {
+        final FormatTemplate template = compile("%s %d %2$s");
+        final String expected = String.format(Locale.US, "%s %d %2$s", (Object[]) null);
+        assertThat(template.appendTo(new StringBuilder(), (Object[]) null).toString()).isEqualTo(expected);
+    }
+
+    @Test
+    void testCharConversion() {
+        assertThat(compile("%c%c").appendTo(new StringBuilder(), 'x', (Object) 65).toString()).isEqualTo("xA");
+        assertThatThrownBy(() -> compile("%c").appendTo(new StringBuilder(), 65L))
+            .isInstanceOf(IllegalFormatConversionException.class);
+    }
+
+    private static FormatTemplate compile(final String format) {
+        return FormatTemplate.compile(format, Locale.US, new Configuration());
+    }
+}
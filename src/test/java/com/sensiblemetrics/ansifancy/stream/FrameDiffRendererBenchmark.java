@@ -0,0 +1,111 @@
+package com.sensiblemetrics.ansifancy.stream;
+
+import com.sensiblemetrics.ansifancy.model.iface.StyleIF;
+import com.sensiblemetrics.ansifancy.model.impl.Style;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link FrameDiffRenderer} dashboard update benchmark: frame diff versus full redraw
+ * (bytes per frame of both are reported as auxiliary counters)
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrameDiffRendererBenchmark {
+
+    private static final int ROWS = 40;
+    private static final int COLUMNS = 120;
+    private static final int FRAMES = 64;
+    private static final StyleIF[] STYLES = {null, Style.BOLD, Style.RED_FOREGROUND, Style.GREEN_FOREGROUND, Style.BLUE_BACKGROUND};
+
+    private final FrameDiffRenderer diffRenderer = new FrameDiffRenderer();
+    private final FrameDiffRenderer redrawRenderer = new FrameDiffRenderer();
+    private final StringBuilder buffer = new StringBuilder();
+    private FrameDiffRenderer.Frame[] frames;
+    private int index;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+
+        private long bytes;
+        private long frames;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.bytes = 0;
+            this.frames = 0;
+        }
+
+        public double bytesPerFrame() {
+            return this.frames == 0 ? 0 : (double) this.bytes / this.frames;
+        }
+
+        void add(int bytes) {
+            this.bytes += bytes;
+            this.frames++;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        this.frames = new FrameDiffRenderer.Frame[FRAMES];
+        final FrameDiffRenderer.Frame base = new FrameDiffRenderer.Frame(ROWS, COLUMNS);
+        for (int row = 0; row < ROWS; row++) {
+            for (int column = 0; column < COLUMNS; column++) {
+                base.set(row, column, (char) ('a' + (row * 7 + column) % 26), STYLES[(row + column / 10) % STYLES.length]);
+            }
+        }
+        for (int i = 0; i < FRAMES; i++) {
+            final FrameDiffRenderer.Frame frame = base.copy();
+            // progress bar, clock and a few counters change between frames
+            for (int column = 0; column < i * COLUMNS / FRAMES; column++) {
+                frame.set(ROWS - 1, column, '=', Style.GREEN_FOREGROUND);
+            }
+            final String clock = String.format("12:00:%02d", i % 60);
+            for (int column = 0; column < clock.length(); column++) {
+                frame.set(0, COLUMNS - clock.length() + column, clock.charAt(column), Style.BOLD);
+            }
+            for (int counter = 0; counter < 4; counter++) {
+                frame.set(5 + counter * 8, 20, (char) ('0' + (i + counter) % 10), Style.RED_FOREGROUND);
+            }
+            this.frames[i] = frame;
+        }
+    }
+
+    @Benchmark
+    public int diff(final Counters counters) {
+        final FrameDiffRenderer.Frame previous = this.frames[this.index];
+        this.index = (this.index + 1) % FRAMES;
+        this.buffer.setLength(0);
+        this.diffRenderer.diff(previous, this.frames[this.index], this.buffer);
+        counters.add(this.buffer.length());
+        return this.buffer.length();
+    }
+
+    @Benchmark
+    public int redraw(final Counters counters) {
+        this.index = (this.index + 1) % FRAMES;
+        this.buffer.setLength(0);
+        this.redrawRenderer.redraw(this.frames[this.index], this.buffer);
+        counters.add(this.buffer.length());
+        return this.buffer.length();
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(FrameDiffRendererBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,138 @@
+package com.sensiblemetrics.ansifancy.stream;
+
+import com.sensiblemetrics.ansifancy.model.iface.PointIF;
+import com.sensiblemetrics.ansifancy.model.iface.StyleIF;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link FrameDiffRenderer} unit tests
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+class FrameDiffRendererTest {
+
+    @Test
+    void testMutatedStyleIsRenderedWithNewCodes() {
+        final SgrStyle style = new SgrStyle("1");
+        final FrameDiffRenderer renderer = new FrameDiffRenderer();
+        final FrameDiffRenderer.Frame frame = new FrameDiffRenderer.Frame(1, 2);
+        frame.set(0, 0, 'a', style);
+        assertThat(renderer.redraw(frame, new StringBuilder()).toString()).isEqualTo("\u001B[H\u001B[0;1ma\u001B[0m ");
+
+        style.add("31");
+        renderer.invalidate();
+        assertThat(renderer.redraw(frame, new StringBuilder()).toString()).isEqualTo("\u001B[H\u001B[0;1;31ma\u001B[0m ");
+    }
+
+    @Test
+    void testEqualStylesOfDifferentInstancesDoNotRepeatCodes() {
+        final FrameDiffRenderer renderer = new FrameDiffRenderer();
+        final FrameDiffRenderer.Frame frame = new FrameDiffRenderer.Frame(1, 2);
+        frame.set(0, 0, 'a', new SgrStyle("1", "31"));
+        frame.set(0, 1, 'b', new SgrStyle("1", "31"));
+        assertThat(renderer.redraw(frame, new StringBuilder()).toString()).isEqualTo("\u001B[H\u001B[0;1;31mab");
+    }
+
+    @Test
+    void testStylesOfDifferentParameterOrderAreNotEqual() {
+        final FrameDiffRenderer renderer = new FrameDiffRenderer();
+        final FrameDiffRenderer.Frame previous = new FrameDiffRenderer.Frame(1, 2);
+        previous.set(0, 0, 'a', new SgrStyle("31", "32"));
+        previous.set(0, 1, 'b', new SgrStyle("31", "32"));
+        assertThat(renderer.redraw(previous, new StringBuilder()).toString()).isEqualTo("\u001B[H\u001B[0;31;32mab");
+
+        final FrameDiffRenderer.Frame next = previous.copy();
+        next.set(0, 1, 'b', new SgrStyle("32", "31"));
+        assertThat(renderer.diff(previous, next)).isEqualTo("\u001B[1;2H\u001B[0;32;31mb");
+    }
+
+    @Test
+    void testAppendedParametersAreWrittenAsDelta() {
+        final FrameDiffRenderer renderer = new FrameDiffRenderer();
+        final FrameDiffRenderer.Frame frame = new FrameDiffRenderer.Frame(1, 3);
+        frame.set(0, 0, 'a', new SgrStyle("1"));
+        frame.set(0, 1, 'b', new SgrStyle("1", "31"));
+        frame.set(0, 2, 'c', new SgrStyle("31", "1"));
+        assertThat(renderer.redraw(frame, new StringBuilder()).toString()).isEqualTo("\u001B[H\u001B[0;1ma\u001B[31mb\u001B[0;31;1mc");
+    }
+
+    @Test
+    void testManyDistinctStyles() {
+        final FrameDiffRenderer renderer = new FrameDiffRenderer();
+        final FrameDiffRenderer.Frame frame = new FrameDiffRenderer.Frame(1, 1);
+        for (int i = 0; i < 10000; i++) {
+            frame.set(0, 0, 'a', new SgrStyle("38;5;" + i % 256));
+            renderer.invalidate();
+            assertThat(renderer.redraw(frame, new StringBuilder()).toString()).isEqualTo("\u001B[H\u001B[0;38;5;" + i % 256 + "ma");
+        }
+    }
+
+    /**
+     * Mutable style of SGR codes
+     */
+    private static final class SgrStyle implements StyleIF {
+
+        private final List<PointIF> points = new ArrayList<>();
+
+        private SgrStyle(final String... params) {
+            for (final String param : params) {
+                add(param);
+            }
+        }
+
+        private void add(final String param) {
+            this.points.add(new SgrPoint("\u001B[" + param + "m"));
+        }
+
+        @Override
+        public String getTitle() {
+            return "sgr";
+        }
+
+        @Override
+        public String getDescription() {
+            return null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <S extends Iterable<? extends PointIF>> S getPoints() {
+            return (S) this.points;
+        }
+    }
+
+    /**
+     * SGR code point
+     */
+    private static final class SgrPoint implements PointIF {
+
+        private final String code;
+
+        private SgrPoint(final String code) {
+            this.code = code;
+        }
+
+        @Override
+        public PointType getType() {
+            return PointType.DECORATION_CONTROL;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T extends CharSequence> T getSymbol() {
+            return (T) this.code;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T extends CharSequence> T getCode() {
+            return (T) this.code;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.sensiblemetrics.ansifancy.stream;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link HtmlFancyOutputStream} unit tests
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+class HtmlFancyOutputStreamTest {
+
+    @Test
+    void testSpanIsOpenedBeforeTextAndClosedOnReset() throws IOException {
+        assertThat(render("a\u001B[1mb\u001B[31mc\u001B[0m\u001B[0md"))
+            .isEqualTo("a<span class=\"ansi-bold\">b</span><span class=\"ansi-bold ansi-fg-1\">c</span>d");
+        assertThat(render("\u001B[1;4;91;44mq\u001B[7mr\u001B[0m\u001B[1m"))
+            .isEqualTo("<span class=\"ansi-bold ansi-underline ansi-fg-9 ansi-bg-4\">q</span>"
+                + "<span class=\"ansi-bold ansi-underline ansi-negative ansi-fg-4 ansi-bg-9\">r</span>");
+    }
+
+    @Test
+    void testUnchangedStyleIsCoalesced() throws IOException {
+        assertThat(render("\u001B[31mred\u001B[0m\u001B[31mred")).isEqualTo("<span class=\"ansi-fg-1\">redred</span>");
+        assertThat(render("\u001B[31m\u001B[0m\u001B[32mx<y\u001B[39m\u001B[22mz")).isEqualTo("<span class=\"ansi-fg-2\">x&lt;y</span>z");
+        assertThat(render("\u001B[1m\u001B[22m\u001B[3m\u001B[23m")).isEmpty();
+    }
+
+    @Test
+    void testSpanIsClosedOnClose() throws IOException {
+        assertThat(render("\u001B[4mx")).isEqualTo("<span class=\"ansi-underline\">x</span>");
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final HtmlFancyOutputStream stream = new HtmlFancyOutputStream(out);
+        final byte[] line = "\u001B[5mx".getBytes(StandardCharsets.UTF_8);
+        stream.writeLine(line, 0, line.length);
+        stream.write('y');
+        stream.close();
+        assertThat(out.toString(StandardCharsets.UTF_8.name())).isEqualTo("<span class=\"ansi-blink\">x</span>y");
+    }
+
+    @Test
+    void testHtmlEntitiesAreEscaped() throws IOException {
+        assertThat(render("\"a\" & <b>")).isEqualTo("&quot;a&quot; &amp; &lt;b&gt;");
+        assertThat(render("\u001B[1m<&>")).isEqualTo("<span class=\"ansi-bold\">&lt;&amp;&gt;</span>");
+    }
+
+    @Test
+    void testSingleByteWritesMatchBulkWrites() throws IOException {
+        final String value = "a<\u001B[1;31mb&\u001B[7mc\u001B[27;22m\"d\u001B[0m>e\u001B[38;5;100mf\u001B[48;2;1;2;3mg\u001B[m";
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (final HtmlFancyOutputStream stream = new HtmlFancyOutputStream(out)) {
+            for (final byte b : value.getBytes(StandardCharsets.UTF_8)) {
+                stream.write(b);
+            }
+        }
+        assertThat(out.toString(StandardCharsets.UTF_8.name())).isEqualTo(render(value));
+    }
+
+    @Test
+    void testStyleSheetDeclaresClassPalette() {
+        final String styleSheet = HtmlFancyOutputStream.getStyleSheet();
+        assertThat(styleSheet).contains(".ansi-bold { font-weight: bold; }\n");
+        assertThat(styleSheet).contains(".ansi-underline { text-decoration: underline; }\n");
+        assertThat(styleSheet).contains(".ansi-fg-1 { color: #cd0000; }\n");
+        assertThat(styleSheet).contains(".ansi-bg-4 { background-color: #0000ee; }\n");
+        assertThat(styleSheet).contains(".ansi-fg-9 { color: #ff0000; }\n");
+    }
+
+    @Test
+    void testPaletteColorsUseClasses() throws IOException {
+        assertThat(render("\u001B[38;5;196mx\u001B[48;5;232my"))
+            .isEqualTo("<span class=\"ansi-fg-196\">x</span><span class=\"ansi-fg-196 ansi-bg-232\">y</span>");
+        assertThat(render("\u001B[38;5;1mr\u001B[31mr")).isEqualTo("<span class=\"ansi-fg-1\">rr</span>");
+    }
+
+    @Test
+    void testTrueColorsAreInlined() throws IOException {
+        assertThat(render("\u001B[38;2;1;2;255mt\u001B[48;2;16;32;48mu\u001B[7mv\u001B[0m"))
+            .isEqualTo("<span style=\"color: #0102ff;\">t</span>"
+                + "<span style=\"color: #0102ff; background-color: #102030;\">u</span>"
+                + "<span class=\"ansi-negative\" style=\"color: #102030; background-color: #0102ff;\">v</span>");
+        assertThat(render("\u001B[1;48;2;255;0;0mw")).isEqualTo("<span class=\"ansi-bold\" style=\"background-color: #ff0000;\">w</span>");
+        assertThat(render("\u001B[38;2;0;0;0;48;5;4mk")).isEqualTo("<span class=\"ansi-bg-4\" style=\"color: #000000;\">k</span>");
+    }
+
+    @Test
+    void testStyleSheetDeclaresExtendedPalette() {
+        final String styleSheet = HtmlFancyOutputStream.getStyleSheet();
+        assertThat(styleSheet).contains(".ansi-fg-16 { color: #000000; }\n");
+        assertThat(styleSheet).contains(".ansi-fg-196 { color: #ff0000; }\n");
+        assertThat(styleSheet).contains(".ansi-fg-231 { color: #ffffff; }\n");
+        assertThat(styleSheet).contains(".ansi-bg-232 { background-color: #080808; }\n");
+        assertThat(styleSheet).contains(".ansi-bg-255 { background-color: #eeeeee; }\n");
+    }
+
+    private static String render(final String value) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (final HtmlFancyOutputStream stream = new HtmlFancyOutputStream(out)) {
+            stream.write(value.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toString(StandardCharsets.UTF_8.name());
+    }
+}
@@ -0,0 +1,93 @@
+package com.sensiblemetrics.ansifancy.stream;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link MinimizingFancyOutputStream} unit tests: minimized output should render the same
+ * {@link VirtualTerminal} screen as the input
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+class MinimizingFancyOutputStreamTest {
+
+    private static final String[] SGR = {"1", "2", "3", "4", "7", "9", "22", "23", "24", "27", "0", "", "31", "92", "44", "38;5;200", "48;2;250;0;9", "39", "49", "53", "1;31;4"};
+    private static final String[] OTHER = {"\u001B[3C", "\u001B[C", "\u001B[2E", "\u001B[E", "\u001B[K", "\u001B[1K", "\u001B[2K", "\u001B[J", "\u001B[2J", "\u001B[H", "\u001B[2;5H", "\u001B[2A", "\u001B[L", "\u001B[M", "\n", "\r"};
+
+    @Test
+    void testCursorForward() throws IOException {
+        assertThat(minimize("ab\u001B[3Ccd")).isEqualTo("ab\u001B[3Ccd");
+        assertSameScreen("ab\u001B[3Ccd\r\u001B[Cx");
+    }
+
+    @Test
+    void testCursorNextLine() throws IOException {
+        assertThat(minimize("ab\u001B[2Ecd")).isEqualTo("ab\u001B[2Ecd");
+        assertSameScreen("ab\u001B[2Ecd\u001B[Eef");
+    }
+
+    @Test
+    void testEraseInDisplay() throws IOException {
+        assertSameScreen("abc\ndef\u001B[1;2H\u001B[44m\u001B[J\u001B[31mx");
+        assertSameScreen("abc\ndef\u001B[2;2H\u001B[1m\u001B[1J\u001B[0my");
+    }
+
+    @Test
+    void testEraseInLine() throws IOException {
+        assertSameScreen("abcdef\u001B[1;3H\u001B[42m\u001B[K\u001B[0m\u001B[1Kz");
+        assertSameScreen("abcdef\r\u001B[7m\u001B[2K\u001B[27mq");
+    }
+
+    @Test
+    void testRandomSequences() throws IOException {
+        final Random random = new Random(1);
+        for (int i = 0; i < 500; i++) {
+            final StringBuilder sb = new StringBuilder();
+            for (int k = 0; k < 60; k++) {
+                final int kind = random.nextInt(10);
+                if (kind < 5) {
+                    sb.append("\u001B[").append(SGR[random.nextInt(SGR.length)]).append('m');
+                } else if (kind < 8) {
+                    sb.append("abcdef", 0, 1 + random.nextInt(5));
+                } else {
+                    sb.append(OTHER[random.nextInt(OTHER.length)]);
+                }
+            }
+            assertSameScreen(sb.toString());
+        }
+    }
+
+    private static void assertSameScreen(final String value) throws IOException {
+        final VirtualTerminal.Snapshot expected = render(value.getBytes(StandardCharsets.UTF_8));
+        final VirtualTerminal.Snapshot actual = render(minimize(value).getBytes(StandardCharsets.UTF_8));
+        assertThat(actual.getCursorRow()).isEqualTo(expected.getCursorRow());
+        assertThat(actual.getCursorColumn()).isEqualTo(expected.getCursorColumn());
+        for (int row = 0; row < expected.getRows() + expected.getScrollbackRows(); row++) {
+            for (int column = 0; column < expected.getColumns(); column++) {
+                assertThat(actual.getCodePoint(row, column)).isEqualTo(expected.getCodePoint(row, column));
+                assertThat(actual.getAttribute(row, column)).isEqualTo(expected.getAttribute(row, column));
+            }
+        }
+    }
+
+    private static VirtualTerminal.Snapshot render(final byte[] data) throws IOException {
+        final VirtualTerminal terminal = new VirtualTerminal(30, 8, 20);
+        terminal.write(data);
+        return terminal.snapshot();
+    }
+
+    private static String minimize(final String value) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final MinimizingFancyOutputStream stream = new MinimizingFancyOutputStream(out);
+        stream.write(value.getBytes(StandardCharsets.UTF_8));
+        stream.flush();
+        return out.toString(StandardCharsets.UTF_8.name());
+    }
+}
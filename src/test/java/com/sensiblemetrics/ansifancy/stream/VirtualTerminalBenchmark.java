@@ -0,0 +1,59 @@
+package com.sensiblemetrics.ansifancy.stream;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link VirtualTerminal} throughput benchmark on a 100 MB progress-bar log (carriage returns,
+ * colors and erase in line), one invocation processes the whole log
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VirtualTerminalBenchmark {
+
+    private static final long LOG_SIZE = 100L << 20;
+
+    private byte[] chunk;
+
+    @Setup
+    public void setup() {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i <= 100; i++) {
+            sb.append("\r\u001B[32mDownloading\u001B[0m [");
+            for (int j = 0; j < i / 5; j++) {
+                sb.append('=');
+            }
+            sb.append(">] ").append(i).append("% \u001B[K");
+        }
+        sb.append("\nbuild step done\n");
+        this.chunk = sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public VirtualTerminal.Snapshot progressLog() throws IOException {
+        final VirtualTerminal terminal = new VirtualTerminal();
+        for (long size = 0; size < LOG_SIZE; size += this.chunk.length) {
+            terminal.write(this.chunk);
+        }
+        return terminal.snapshot();
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(VirtualTerminalBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
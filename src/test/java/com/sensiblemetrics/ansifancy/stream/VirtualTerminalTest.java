@@ -0,0 +1,57 @@
+package com.sensiblemetrics.ansifancy.stream;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link VirtualTerminal} unit tests
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+class VirtualTerminalTest {
+
+    @Test
+    void testEraseScrollbackKeepsScreen() throws IOException {
+        final VirtualTerminal terminal = render(10, 2, "a\nb\nc\u001B[3J");
+        final VirtualTerminal.Snapshot snapshot = terminal.snapshot();
+        assertThat(snapshot.getScrollbackRows()).isEqualTo(0);
+        assertThat(snapshot.toString()).isEqualTo("b\nc");
+    }
+
+    @Test
+    void testEraseScreenKeepsScrollback() throws IOException {
+        final VirtualTerminal.Snapshot snapshot = render(10, 2, "a\nb\nc\u001B[2J").snapshot();
+        assertThat(snapshot.getScrollbackRows()).isEqualTo(1);
+        assertThat(snapshot.toString()).isEqualTo("a");
+    }
+
+    @Test
+    void testScrollingRegion() throws IOException {
+        final VirtualTerminal.Snapshot snapshot = render(10, 4, "top\u001B[2;3r\u001B[2;1H1\n2\n3\n4").snapshot();
+        assertThat(snapshot.getScrollbackRows()).isEqualTo(0);
+        assertThat(snapshot.toString()).isEqualTo("top\n3\n4");
+    }
+
+    @Test
+    void testPrivateModeRestoreIsNotScrollingRegion() throws IOException {
+        final VirtualTerminal.Snapshot snapshot = render(10, 4, "ab\u001B[?1;2r").snapshot();
+        assertThat(snapshot.getCursorRow()).isEqualTo(0);
+        assertThat(snapshot.getCursorColumn()).isEqualTo(2);
+    }
+
+    @Test
+    void testUnhandledCommandIsNotPrinted() throws IOException {
+        assertThat(render(10, 2, "ab\u001B[2Pc\u001B[3Xd").snapshot().toString()).isEqualTo("abcd");
+    }
+
+    private static VirtualTerminal render(int columns, int rows, final String value) throws IOException {
+        final VirtualTerminal terminal = new VirtualTerminal(columns, rows, 10);
+        terminal.write(value.getBytes(StandardCharsets.UTF_8));
+        return terminal;
+    }
+}
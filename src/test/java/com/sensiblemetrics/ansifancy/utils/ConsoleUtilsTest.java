@@ -0,0 +1,59 @@
+package com.sensiblemetrics.ansifancy.utils;
+
+import com.sensiblemetrics.ansifancy.enumeration.ColorCapabilityType;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * {@link ConsoleUtils} unit tests
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+class ConsoleUtilsTest {
+
+    @Test
+    void testColorTermDeclaresTrueColor() {
+        assertThat(ConsoleUtils.getColorCapability(env("COLORTERM", "truecolor"))).isEqualTo(ColorCapabilityType.TRUECOLOR);
+        assertThat(ConsoleUtils.getColorCapability(env("COLORTERM", "24bit", "TERM", "xterm"))).isEqualTo(ColorCapabilityType.TRUECOLOR);
+        assertThat(ConsoleUtils.getColorCapability(env("COLORTERM", "yes", "TERM", "xterm-256color"))).isEqualTo(ColorCapabilityType.ANSI_256);
+    }
+
+    @Test
+    void testTermDeclaresColors() {
+        assertThat(ConsoleUtils.getColorCapability(env("TERM", "xterm-direct"))).isEqualTo(ColorCapabilityType.TRUECOLOR);
+        assertThat(ConsoleUtils.getColorCapability(env("TERM", "screen-256color"))).isEqualTo(ColorCapabilityType.ANSI_256);
+        assertThat(ConsoleUtils.getColorCapability(env("TERM", "xterm"))).isEqualTo(ColorCapabilityType.ANSI_16);
+        assertThat(ConsoleUtils.getColorCapability(env("TERM", "dumb"))).isEqualTo(ColorCapabilityType.MONO);
+    }
+
+    @Test
+    void testNoColorOverridesTerm() {
+        assertThat(ConsoleUtils.getColorCapability(env("NO_COLOR", "", "COLORTERM", "truecolor", "TERM", "xterm-256color"))).isEqualTo(ColorCapabilityType.MONO);
+    }
+
+    @Test
+    void testWindowsTerminalAndCi() {
+        assertThat(ConsoleUtils.getColorCapability(env("WT_SESSION", "1"))).isEqualTo(ColorCapabilityType.TRUECOLOR);
+        assertThat(ConsoleUtils.getColorCapability(env("CI", "true"))).isEqualTo(ColorCapabilityType.ANSI_16);
+    }
+
+    @Test
+    void testCurrentEnvironment() {
+        assertThat(ConsoleUtils.getColorCapability()).isEqualTo(ConsoleUtils.getColorCapability(System.getenv()));
+        assertThatThrownBy(() -> ConsoleUtils.getColorCapability(null)).isInstanceOf(NullPointerException.class);
+    }
+
+    private static Map<String, String> env(final String... values) {
+        final Map<String, String> result = new HashMap<>();
+        for (int i = 0; i < values.length; i += 2) {
+            result.put(values[i], values[i + 1]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,76 @@
+package com.sensiblemetrics.ansifancy.utils;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link StringUtils#stripAnsiChars(String)} scanner versus regular expression stripping benchmark
+ *
+ * @author Alexander Rogalskiy
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringUtilsBenchmark {
+
+    /**
+     * Regular expression of the replaced implementation (with the nested class bracket escaped to compile)
+     */
+    private static final String ANSI_PATTERN = "[\\u001b\\u009b][\\[()#;?]*(?:[0-9]{1,4}(?:;[0-9]{0,4})*)?[0-9A-PRZcf-nqry=><]";
+
+    @Param({"plain", "light", "heavy"})
+    private String input;
+
+    private String value;
+    private StringBuilder buffer;
+
+    @Setup
+    public void setup() {
+        switch (this.input) {
+            case "plain":
+                this.value = "The quick brown fox jumps over the lazy dog, 0123456789";
+                break;
+            case "light":
+                this.value = "The quick \u001B[1;31mbrown\u001B[0m fox jumps over the lazy dog, 0123456789";
+                break;
+            default:
+                this.value = "\u001B[1m\u001B[38;5;200mThe\u001B[0m \u001B[4mquick\u001B[24m \u001B[32mbrown\u001B[39m \u001B[7mfox\u001B[27m \u001B[2K";
+        }
+        this.buffer = new StringBuilder(this.value.length());
+    }
+
+    @Benchmark
+    public String regex() {
+        return this.value.replaceAll(ANSI_PATTERN, "");
+    }
+
+    @Benchmark
+    public String scanner() {
+        return StringUtils.stripAnsiChars(this.value);
+    }
+
+    @Benchmark
+    public StringBuilder scannerInto() {
+        this.buffer.setLength(0);
+        return StringUtils.stripAnsiChars(this.value, this.buffer);
+    }
+
+    @Benchmark
+    public int visibleLength() {
+        return StringUtils.visibleLength(this.value);
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(StringUtilsBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}